@@ -0,0 +1,146 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.ParameterOverload;
+import io.siddhi.annotation.ReturnAttribute;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.exception.OperationNotSupportedException;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.query.processor.ProcessingMode;
+import io.siddhi.core.query.selector.attribute.aggregator.AttributeAggregatorExecutor;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.extension.execution.math.util.CoMomentsAttributeState;
+import io.siddhi.query.api.definition.Attribute;
+
+/**
+ * AttributeAggregator which implements the following function.
+ * <code>correlation(x, y)</code>
+ * Returns the Pearson correlation coefficient of the stored value pairs.
+ * Accept Type(s): x: FLOAT,INT,LONG,DOUBLE, y: FLOAT,INT,LONG,DOUBLE
+ * Return Type: DOUBLE
+ */
+@Extension(
+        name = "correlation",
+        namespace = "math",
+        description = "This function returns the Pearson correlation coefficient of two given arguments, which " +
+                "is their covariance divided by the product of their standard deviations. The co-moments are " +
+                "updated with the bivariate form of Welford's algorithm, so each event is processed in constant " +
+                "time and values leaving a window are removed without keeping the values. Events where either " +
+                "argument is null are ignored. The function returns null while the coefficient is undefined, " +
+                "i.e. when there are fewer than two values or either argument has the same value in all events.",
+        parameters = {
+                @Parameter(
+                        name = "x",
+                        description = "The first value of each pair.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        dynamic = true),
+                @Parameter(
+                        name = "y",
+                        description = "The second value of each pair.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        dynamic = true)
+        },
+        parameterOverloads = {
+                @ParameterOverload(parameterNames = {"x", "y"})
+        },
+        returnAttributes = @ReturnAttribute(
+                description = "The Pearson correlation coefficient of the 'x' and 'y' values, between -1 and 1.",
+                type = {DataType.DOUBLE}),
+        examples = @Example(
+                syntax = "define stream InValueStream (deviceId string, temperature double, humidity double); \n" +
+                        "from InValueStream#window.time(10 min) \n" +
+                        "select deviceId, math:correlation(temperature, humidity) as correlation \n" +
+                        "group by deviceId \n" +
+                        "insert into OutMediationStream;",
+                description = "This function returns the correlation of the temperature and humidity values " +
+                        "received from each device during the last 10 minutes."
+        )
+)
+public class CorrelationFunctionExtension extends AttributeAggregatorExecutor<CoMomentsAttributeState> {
+
+    @Override
+    protected StateFactory<CoMomentsAttributeState> init(ExpressionExecutor[] expressionExecutors,
+                                                         ProcessingMode processingMode, boolean b,
+                                                         ConfigReader configReader,
+                                                         SiddhiQueryContext siddhiQueryContext) {
+        if (attributeExpressionExecutors.length != 2) {
+            throw new OperationNotSupportedException("Correlation function has to have exactly 2 parameters, " +
+                                                             "currently " + attributeExpressionExecutors.length +
+                                                             " parameters provided.");
+        }
+        for (ExpressionExecutor executor : attributeExpressionExecutors) {
+            Attribute.Type type = executor.getReturnType();
+            if (type != Attribute.Type.INT && type != Attribute.Type.LONG
+                    && type != Attribute.Type.FLOAT && type != Attribute.Type.DOUBLE) {
+                throw new OperationNotSupportedException("Correlation not supported for " + type);
+            }
+        }
+        return CoMomentsAttributeState::new;
+    }
+
+    @Override
+    public Object processAdd(Object data, CoMomentsAttributeState state) {
+        // will not occur
+        return new IllegalStateException("Correlation need multiple input, but found " + data);
+    }
+
+    @Override
+    public Object processAdd(Object[] data, CoMomentsAttributeState state) {
+        if (data[0] != null && data[1] != null) {
+            state.add(((Number) data[0]).doubleValue(), ((Number) data[1]).doubleValue());
+        }
+        return currentValue(state);
+    }
+
+    @Override
+    public Object processRemove(Object data, CoMomentsAttributeState state) {
+        // will not occur
+        return new IllegalStateException("Correlation need multiple input, but found " + data);
+    }
+
+    @Override
+    public Object processRemove(Object[] data, CoMomentsAttributeState state) {
+        if (data[0] != null && data[1] != null) {
+            state.remove(((Number) data[0]).doubleValue(), ((Number) data[1]).doubleValue());
+        }
+        return currentValue(state);
+    }
+
+    @Override
+    public Object reset(CoMomentsAttributeState state) {
+        state.clear();
+        return null;
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return Attribute.Type.DOUBLE;
+    }
+
+    private static Object currentValue(CoMomentsAttributeState state) {
+        double correlation = state.correlation();
+        return Double.isNaN(correlation) ? null : correlation;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.ParameterOverload;
+import io.siddhi.annotation.ReturnAttribute;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.executor.function.FunctionExecutor;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.State;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.extension.execution.math.util.KllSketch;
+import io.siddhi.query.api.definition.Attribute;
+import io.siddhi.query.api.exception.SiddhiAppValidationException;
+
+/**
+ * createSketch(value);
+ * Returns a KLL quantile sketch containing only the given value, in its compact binary form.
+ * Accept Type(s): FLOAT,INT,LONG,DOUBLE
+ * Return Type(s): OBJECT (byte[])
+ */
+@Extension(
+        name = "createSketch",
+        namespace = "math",
+        description = "This function returns a KLL quantile sketch holding only the given value. Such sketches " +
+                "can be merged with `math:sketchMerge`, and they are used as the per event partials when " +
+                "`math:sketch` is used in an incremental aggregation.",
+        parameters = {
+                @Parameter(
+                        name = "arg",
+                        description = "The value to be put into the sketch.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        dynamic = true)
+        },
+        parameterOverloads = {
+                @ParameterOverload(parameterNames = {"arg"})
+        },
+        returnAttributes = @ReturnAttribute(
+                description = "A KLL sketch of the single 'arg' value as a byte array.",
+                type = {DataType.OBJECT}),
+        examples = @Example(
+                syntax = "define stream LatencyStream (latency double); \n" +
+                        "from LatencyStream \n" +
+                        "select math:createSketch(latency) as latencySketch \n" +
+                        "insert into LatencySketchStream;",
+                description = "This converts each latency into a sketch, which can later be merged with " +
+                        "`math:sketchMerge`."
+        )
+)
+public class CreateSketchFunctionExtension extends FunctionExecutor {
+
+    private static final int DEFAULT_K = 200;
+
+    @Override
+    protected StateFactory init(ExpressionExecutor[] expressionExecutors, ConfigReader configReader,
+                                SiddhiQueryContext siddhiQueryContext) {
+        if (attributeExpressionExecutors.length != 1) {
+            throw new SiddhiAppValidationException("Invalid no of arguments passed to math:createSketch() " +
+                    "function, required 1, but found " + attributeExpressionExecutors.length);
+        }
+        Attribute.Type attributeType = attributeExpressionExecutors[0].getReturnType();
+        if ((attributeType != Attribute.Type.DOUBLE)
+                && (attributeType != Attribute.Type.INT)
+                && (attributeType != Attribute.Type.FLOAT)
+                && (attributeType != Attribute.Type.LONG)) {
+            throw new SiddhiAppValidationException("Invalid parameter type found for the argument of " +
+                    "math:createSketch() function, required " + Attribute.Type.INT + " or " +
+                    Attribute.Type.LONG + " or " + Attribute.Type.FLOAT + " or " + Attribute.Type.DOUBLE +
+                    ", but found " + attributeType.toString());
+        }
+        return null;
+    }
+
+    @Override
+    protected Object execute(Object[] data, State state) {
+        return null;    // This method won't get called. Hence, unimplemented.
+    }
+
+    @Override
+    protected Object execute(Object data, State state) {
+        if (data == null) {
+            return new KllSketch(DEFAULT_K).toBytes();
+        }
+        return KllSketch.toBytes(DEFAULT_K, ((Number) data).doubleValue());
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return Attribute.Type.OBJECT;
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.ParameterOverload;
+import io.siddhi.annotation.ReturnAttribute;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.executor.ConstantExpressionExecutor;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.executor.function.FunctionExecutor;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.State;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.query.api.definition.Attribute;
+import io.siddhi.query.api.exception.SiddhiAppValidationException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ewma(value, alpha) or ewma(value, halfLife, timestamp);
+ * Returns the exponentially weighted moving average of the values received so far.
+ * Accept Type(s): value: INT,LONG,FLOAT,DOUBLE / alpha: DOUBLE / halfLife: INT,LONG / timestamp: LONG
+ * Return Type(s): DOUBLE
+ */
+@Extension(
+        name = "ewma",
+        namespace = "math",
+        description = "This function returns the exponentially weighted moving average of a given argument, " +
+                "which smooths the values while keeping only the current average, hence it needs constant memory " +
+                "unlike a window. When `alpha` is given, each value moves the average by `alpha` times its " +
+                "difference from the average, which suits values arriving at regular intervals. When `half.life` " +
+                "and `timestamp` are given instead, the values are weighted by their age, halving their weight " +
+                "every `half.life` milliseconds, so irregular intervals are taken into account; values with the " +
+                "same timestamp are weighted equally and values older than the latest timestamp are weighted by " +
+                "their age when they arrive. In both cases the first value is returned as it is. The average is " +
+                "kept per partition key, hence the function should be used within a partition to smooth the " +
+                "values of each key separately.",
+        parameters = {
+                @Parameter(
+                        name = "arg",
+                        description = "The value to be averaged.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        dynamic = true),
+                @Parameter(
+                        name = "alpha",
+                        description = "The smoothing factor, where 0 < alpha <= 1. Larger values follow recent " +
+                                "values more closely.",
+                        type = {DataType.DOUBLE}),
+                @Parameter(
+                        name = "half.life",
+                        description = "The time in milliseconds after which a value counts half as much as a " +
+                                "value that has just arrived.",
+                        type = {DataType.INT, DataType.LONG}),
+                @Parameter(
+                        name = "timestamp",
+                        description = "The time of the value in milliseconds, usually `eventTimestamp()`.",
+                        type = {DataType.LONG},
+                        dynamic = true)
+        },
+        parameterOverloads = {
+                @ParameterOverload(parameterNames = {"arg", "alpha"}),
+                @ParameterOverload(parameterNames = {"arg", "half.life", "timestamp"})
+        },
+        returnAttributes = @ReturnAttribute(
+                description = "The exponentially weighted moving average of the 'arg' values.",
+                type = {DataType.DOUBLE}),
+        examples = {
+                @Example(
+                        syntax = "define stream SensorStream (deviceId string, temperature double); \n" +
+                                "partition with (deviceId of SensorStream) \n" +
+                                "begin \n" +
+                                "    from SensorStream \n" +
+                                "    select deviceId, math:ewma(temperature, 0.2) as smoothedTemperature \n" +
+                                "    insert into OutMediationStream; \n" +
+                                "end;",
+                        description = "This function returns the moving average of the temperature of each " +
+                                "device, where each new temperature contributes 20% of the average."),
+                @Example(
+                        syntax = "define stream SensorStream (deviceId string, temperature double); \n" +
+                                "partition with (deviceId of SensorStream) \n" +
+                                "begin \n" +
+                                "    from SensorStream \n" +
+                                "    select deviceId, math:ewma(temperature, 1 min, eventTimestamp()) " +
+                                "as smoothedTemperature \n" +
+                                "    insert into OutMediationStream; \n" +
+                                "end;",
+                        description = "This function returns the moving average of the temperature of each " +
+                                "device, where a temperature counts half as much after one minute and a quarter " +
+                                "as much after two minutes, however irregularly the temperatures arrive.")
+        }
+)
+public class EwmaFunctionExtension extends FunctionExecutor<EwmaFunctionExtension.EwmaState> {
+
+    private static final String AVERAGE = "AVERAGE";
+    private static final String WEIGHTED_SUM = "WEIGHTED_SUM";
+    private static final String WEIGHT = "WEIGHT";
+    private static final String LAST_TIMESTAMP = "LAST_TIMESTAMP";
+
+    @Override
+    protected StateFactory<EwmaState> init(ExpressionExecutor[] expressionExecutors, ConfigReader configReader,
+                                           SiddhiQueryContext siddhiQueryContext) {
+        if (attributeExpressionExecutors.length != 2 && attributeExpressionExecutors.length != 3) {
+            throw new SiddhiAppValidationException("Invalid no of arguments passed to math:ewma() function, " +
+                    "required 2 or 3, but found " + attributeExpressionExecutors.length);
+        }
+        Attribute.Type attributeType = attributeExpressionExecutors[0].getReturnType();
+        if ((attributeType != Attribute.Type.DOUBLE)
+                && (attributeType != Attribute.Type.INT)
+                && (attributeType != Attribute.Type.FLOAT)
+                && (attributeType != Attribute.Type.LONG)) {
+            throw new SiddhiAppValidationException("Invalid parameter type found for the first argument of " +
+                    "math:ewma() function, required " + Attribute.Type.INT + " or " + Attribute.Type.LONG +
+                    " or " + Attribute.Type.FLOAT + " or " + Attribute.Type.DOUBLE + ", but found " +
+                    attributeType.toString());
+        }
+        if (!(attributeExpressionExecutors[1] instanceof ConstantExpressionExecutor)) {
+            throw new SiddhiAppValidationException("The second argument of math:ewma() function has to be a " +
+                    "constant.");
+        }
+        Object value = ((ConstantExpressionExecutor) attributeExpressionExecutors[1]).getValue();
+        if (attributeExpressionExecutors.length == 2) {
+            if (!(value instanceof Double)) {
+                throw new SiddhiAppValidationException("Invalid parameter type found for the second argument of " +
+                        "math:ewma() function, required " + Attribute.Type.DOUBLE + ", but found " +
+                        attributeExpressionExecutors[1].getReturnType());
+            }
+            double alpha = (Double) value;
+            if (!(alpha > 0 && alpha <= 1)) {
+                throw new SiddhiAppValidationException("The alpha argument of math:ewma() function should be in " +
+                        "0 < alpha <= 1 range, but found " + alpha);
+            }
+            return () -> new SmoothedEwmaState(alpha);
+        }
+        if (!(value instanceof Integer || value instanceof Long)) {
+            throw new SiddhiAppValidationException("Invalid parameter type found for the second argument of " +
+                    "math:ewma() function, required " + Attribute.Type.INT + " or " + Attribute.Type.LONG +
+                    ", but found " + attributeExpressionExecutors[1].getReturnType());
+        }
+        long halfLife = ((Number) value).longValue();
+        if (halfLife <= 0) {
+            throw new SiddhiAppValidationException("The half.life argument of math:ewma() function should be " +
+                    "greater than 0, but found " + halfLife);
+        }
+        if (attributeExpressionExecutors[2].getReturnType() != Attribute.Type.LONG) {
+            throw new SiddhiAppValidationException("Invalid parameter type found for the third argument of " +
+                    "math:ewma() function, required " + Attribute.Type.LONG + ", but found " +
+                    attributeExpressionExecutors[2].getReturnType());
+        }
+        return () -> new TimeDecayedEwmaState(halfLife);
+    }
+
+    @Override
+    protected Object execute(Object[] data, EwmaState state) {
+        if (data[0] == null || (data.length == 3 && data[2] == null)) {
+            return state.currentValue();
+        }
+        return state.update(((Number) data[0]).doubleValue(), data.length == 3 ? (Long) data[2] : 0L);
+    }
+
+    @Override
+    protected Object execute(Object data, EwmaState state) {
+        return null;    // This method won't get called. Hence, unimplemented.
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return Attribute.Type.DOUBLE;
+    }
+
+    /**
+     * Base of the moving average states, which keep the average of a partition key.
+     */
+    abstract static class EwmaState extends State {
+
+        protected abstract double update(double value, long timestamp);
+
+        protected abstract Object currentValue();
+    }
+
+    /**
+     * Moving average which moves by a constant fraction of each value's difference from the average.
+     */
+    private static class SmoothedEwmaState extends EwmaState {
+
+        private final double alpha;
+        private double average;
+        private boolean empty = true;
+
+        private SmoothedEwmaState(double alpha) {
+            this.alpha = alpha;
+        }
+
+        @Override
+        protected double update(double value, long timestamp) {
+            if (empty) {
+                average = value;
+                empty = false;
+            } else {
+                average += alpha * (value - average);
+            }
+            return average;
+        }
+
+        @Override
+        protected Object currentValue() {
+            return empty ? null : average;
+        }
+
+        @Override
+        public boolean canDestroy() {
+            return empty;
+        }
+
+        @Override
+        public Map<String, Object> snapshot() {
+            Map<String, Object> state = new HashMap<>();
+            state.put(AVERAGE, empty ? null : average);
+            return state;
+        }
+
+        @Override
+        public void restore(Map<String, Object> state) {
+            Double restored = (Double) state.get(AVERAGE);
+            empty = restored == null;
+            average = empty ? 0 : restored;
+        }
+    }
+
+    /**
+     * Moving average which weights each value by its age, halving the weight every half life. The weighted sum of
+     * the values and the sum of their weights are kept as of the latest timestamp, so only the elapsed time since
+     * then is needed to age them.
+     */
+    private static class TimeDecayedEwmaState extends EwmaState {
+
+        private final double decayRate;
+        private double weightedSum;
+        private double weight;
+        private long lastTimestamp;
+
+        private TimeDecayedEwmaState(long halfLife) {
+            this.decayRate = Math.log(2) / halfLife;
+        }
+
+        @Override
+        protected double update(double value, long timestamp) {
+            if (weight == 0) {
+                weightedSum = value;
+                weight = 1;
+                lastTimestamp = timestamp;
+            } else if (timestamp >= lastTimestamp) {
+                double decay = Math.exp(-(timestamp - lastTimestamp) * decayRate);
+                weightedSum = weightedSum * decay + value;
+                weight = weight * decay + 1;
+                lastTimestamp = timestamp;
+            } else {
+                // A late value is aged to the latest timestamp instead of moving the time backwards.
+                double valueWeight = Math.exp(-(lastTimestamp - timestamp) * decayRate);
+                weightedSum += valueWeight * value;
+                weight += valueWeight;
+            }
+            return weightedSum / weight;
+        }
+
+        @Override
+        protected Object currentValue() {
+            return weight == 0 ? null : weightedSum / weight;
+        }
+
+        @Override
+        public boolean canDestroy() {
+            return weight == 0;
+        }
+
+        @Override
+        public Map<String, Object> snapshot() {
+            Map<String, Object> state = new HashMap<>();
+            state.put(WEIGHTED_SUM, weightedSum);
+            state.put(WEIGHT, weight);
+            state.put(LAST_TIMESTAMP, lastTimestamp);
+            return state;
+        }
+
+        @Override
+        public void restore(Map<String, Object> state) {
+            weightedSum = (Double) state.get(WEIGHTED_SUM);
+            weight = (Double) state.get(WEIGHT);
+            lastTimestamp = (Long) state.get(LAST_TIMESTAMP);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.ParameterOverload;
+import io.siddhi.annotation.ReturnAttribute;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.exception.OperationNotSupportedException;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.query.processor.ProcessingMode;
+import io.siddhi.core.query.selector.attribute.aggregator.AttributeAggregatorExecutor;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.extension.execution.math.util.CoMomentsAttributeState;
+import io.siddhi.query.api.definition.Attribute;
+
+/**
+ * AttributeAggregator which implements the following function.
+ * <code>linearRegression(x, y)</code>
+ * Returns the slope, the intercept and the coefficient of determination of the least squares line through the
+ * stored value pairs.
+ * Accept Type(s): x: FLOAT,INT,LONG,DOUBLE, y: FLOAT,INT,LONG,DOUBLE
+ * Return Type: OBJECT (double[])
+ */
+@Extension(
+        name = "linearRegression",
+        namespace = "math",
+        description = "This function fits a least squares line `y = slope * x + intercept` to the given pairs of " +
+                "arguments, and returns a double array holding the slope, the intercept and the coefficient of " +
+                "determination (r2) of the line, in that order. The means and the centred co-moments of the " +
+                "values are updated with the bivariate form of Welford's algorithm instead of raw sums, so the " +
+                "line stays accurate for large x values such as epoch millisecond timestamps, each event is " +
+                "processed in constant time and values leaving a window are removed without keeping the values. " +
+                "Events where either argument is null are ignored. The function returns null while the line is " +
+                "undefined, i.e. when there are fewer than two values or all the x values are the same, and r2 " +
+                "is 1.0 when all the y values are the same.",
+        parameters = {
+                @Parameter(
+                        name = "x",
+                        description = "The independent value of each pair, e.g. the event timestamp.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        dynamic = true),
+                @Parameter(
+                        name = "y",
+                        description = "The dependent value of each pair.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        dynamic = true)
+        },
+        parameterOverloads = {
+                @ParameterOverload(parameterNames = {"x", "y"})
+        },
+        returnAttributes = @ReturnAttribute(
+                description = "A double array holding the slope, the intercept and the r2 of the least squares " +
+                        "line through the 'x' and 'y' values.",
+                type = {DataType.OBJECT}),
+        examples = @Example(
+                syntax = "define stream SensorStream (sensorId string, temperature double); \n" +
+                        "from SensorStream#window.time(5 min) \n" +
+                        "select sensorId, math:linearRegression(eventTimestamp(), temperature) as trend \n" +
+                        "group by sensorId \n" +
+                        "insert into OutMediationStream;",
+                description = "This returns a double array with the slope, the intercept and the r2 of the " +
+                        "temperature of each sensor against the event timestamp over the last 5 minutes, where the " +
+                        "slope is the change of the temperature per millisecond."
+        )
+)
+public class LinearRegressionFunctionExtension extends AttributeAggregatorExecutor<CoMomentsAttributeState> {
+
+    @Override
+    protected StateFactory<CoMomentsAttributeState> init(ExpressionExecutor[] expressionExecutors,
+                                                         ProcessingMode processingMode, boolean b,
+                                                         ConfigReader configReader,
+                                                         SiddhiQueryContext siddhiQueryContext) {
+        if (attributeExpressionExecutors.length != 2) {
+            throw new OperationNotSupportedException("LinearRegression function has to have exactly 2 " +
+                                                             "parameters, currently " +
+                                                             attributeExpressionExecutors.length +
+                                                             " parameters provided.");
+        }
+        for (ExpressionExecutor executor : attributeExpressionExecutors) {
+            Attribute.Type type = executor.getReturnType();
+            if (type != Attribute.Type.INT && type != Attribute.Type.LONG
+                    && type != Attribute.Type.FLOAT && type != Attribute.Type.DOUBLE) {
+                throw new OperationNotSupportedException("LinearRegression not supported for " + type);
+            }
+        }
+        return CoMomentsAttributeState::new;
+    }
+
+    @Override
+    public Object processAdd(Object data, CoMomentsAttributeState state) {
+        // will not occur
+        return new IllegalStateException("LinearRegression need multiple input, but found " + data);
+    }
+
+    @Override
+    public Object processAdd(Object[] data, CoMomentsAttributeState state) {
+        if (data[0] != null && data[1] != null) {
+            state.add(((Number) data[0]).doubleValue(), ((Number) data[1]).doubleValue());
+        }
+        return currentValue(state);
+    }
+
+    @Override
+    public Object processRemove(Object data, CoMomentsAttributeState state) {
+        // will not occur
+        return new IllegalStateException("LinearRegression need multiple input, but found " + data);
+    }
+
+    @Override
+    public Object processRemove(Object[] data, CoMomentsAttributeState state) {
+        if (data[0] != null && data[1] != null) {
+            state.remove(((Number) data[0]).doubleValue(), ((Number) data[1]).doubleValue());
+        }
+        return currentValue(state);
+    }
+
+    @Override
+    public Object reset(CoMomentsAttributeState state) {
+        state.clear();
+        return null;
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return Attribute.Type.OBJECT;
+    }
+
+    private static Object currentValue(CoMomentsAttributeState state) {
+        if (state.isConstantX()) {
+            return null;
+        }
+        // A constant y lies on a flat line, while its correlation with x is undefined.
+        if (state.isConstantY()) {
+            return new double[]{0.0, state.getMeanY(), 1.0};
+        }
+        double slope = state.getCXY() / state.getM2X();
+        double intercept = state.getMeanY() - slope * state.getMeanX();
+        double correlation = state.correlation();
+        return new double[]{slope, intercept, correlation * correlation};
+    }
+}
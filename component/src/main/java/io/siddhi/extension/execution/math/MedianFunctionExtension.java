@@ -0,0 +1,243 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.ParameterOverload;
+import io.siddhi.annotation.ReturnAttribute;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.exception.OperationNotSupportedException;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.query.processor.ProcessingMode;
+import io.siddhi.core.query.selector.attribute.aggregator.AttributeAggregatorExecutor;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.Snapshot;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.extension.execution.math.util.DualHeapMedian;
+import io.siddhi.extension.execution.math.util.PercentileAttributeState;
+import io.siddhi.extension.execution.math.util.SortedValuesChangeLog;
+import io.siddhi.extension.execution.math.util.SortedValuesCodec;
+import io.siddhi.query.api.definition.Attribute;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * AttributeAggregator which implements the following function.
+ * <code>median(value)</code>
+ * Returns the median of the stored values.
+ * Accept Type(s): value: FLOAT,INT,LONG,DOUBLE
+ * Return Type: DOUBLE
+ */
+@Extension(
+        name = "median",
+        namespace = "math",
+        description = "This function returns the median of a given argument, which is the middle value, or the " +
+                "average of the two middle values when the number of values is even. The result is the same as " +
+                "`math:percentile(arg, 50.0)`, but the values are kept in two heaps holding the lower and the " +
+                "upper halves, so each event is processed in O(log n) time and the median is read in constant " +
+                "time.",
+        parameters = {
+                @Parameter(
+                        name = "arg",
+                        description = "The value of the parameter whose median should be found.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        dynamic = true)
+        },
+        parameterOverloads = {
+                @ParameterOverload(parameterNames = {"arg"})
+        },
+        returnAttributes = @ReturnAttribute(
+                description = "The median of the 'arg' values.",
+                type = {DataType.DOUBLE}),
+        examples = @Example(
+                syntax = "define stream InValueStream (sensorId int, temperature double); \n" +
+                        "from InValueStream#window.length(100) \n" +
+                        "select sensorId, math:median(temperature) as medianTemperature \n" +
+                        "group by sensorId \n" +
+                        "insert into OutMediationStream;",
+                description = "This function returns the median of the last 100 temperature values of each sensor."
+        )
+)
+public class MedianFunctionExtension extends AttributeAggregatorExecutor<PercentileAttributeState> {
+
+    private static final String VALUES_LIST = "VALUES_LIST";
+
+    @Override
+    protected StateFactory<PercentileAttributeState> init(ExpressionExecutor[] expressionExecutors,
+                                                          ProcessingMode processingMode, boolean b,
+                                                          ConfigReader configReader,
+                                                          SiddhiQueryContext siddhiQueryContext) {
+        if (attributeExpressionExecutors.length != 1) {
+            throw new OperationNotSupportedException("Median function has to have exactly 1 parameter, " +
+                                                             "currently " + attributeExpressionExecutors.length +
+                                                             " parameters provided.");
+        }
+        Attribute.Type attributeType = attributeExpressionExecutors[0].getReturnType();
+        // This approach is used to avoid per event type check as it has a negative performance impact.
+        switch (attributeType) {
+            case FLOAT:
+            case DOUBLE:
+                return DoubleMedianAttributeState::new;
+            case INT:
+            case LONG:
+                return LongMedianAttributeState::new;
+            default:
+                throw new OperationNotSupportedException("Median not supported for " + attributeType);
+        }
+    }
+
+    @Override
+    public Object processAdd(Object data, PercentileAttributeState state) {
+        if (data == null) {
+            return state.currentValue();
+        }
+        return state.processAdd(data);
+    }
+
+    @Override
+    public Object processAdd(Object[] data, PercentileAttributeState state) {
+        // will not occur
+        return new IllegalStateException("Median need a single input, but found " + data);
+    }
+
+    @Override
+    public Object processRemove(Object data, PercentileAttributeState state) {
+        if (data == null) {
+            return state.currentValue();
+        }
+        return state.processRemove(data);
+    }
+
+    @Override
+    public Object processRemove(Object[] data, PercentileAttributeState state) {
+        // will not occur
+        return new IllegalStateException("Median need a single input, but found " + data);
+    }
+
+    @Override
+    public Object reset(PercentileAttributeState state) {
+        return state.reset();
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return Attribute.Type.DOUBLE;
+    }
+
+    /**
+     * Base of the median states. The values are kept as order preserving longs, which the subclasses convert from
+     * and to the attribute values.
+     */
+    private abstract static class MedianAttributeState extends PercentileAttributeState {
+
+        private DualHeapMedian values = new DualHeapMedian();
+        private final SortedValuesChangeLog changeLog = new SortedValuesChangeLog();
+
+        protected abstract long toKey(Object data);
+
+        protected abstract double toValue(long key);
+
+        @Override public Object processAdd(Object data) {
+            long key = toKey(data);
+            values.add(key);
+            changeLog.recordAdd(key, values.size());
+            return currentValue();
+        }
+
+        @Override public Object processRemove(Object obj) {
+            long key = toKey(obj);
+            if (values.remove(key)) {
+                changeLog.recordRemove(key, values.size());
+            }
+            return currentValue();
+        }
+
+        @Override public Object reset() {
+            values.clear();
+            changeLog.clear();
+            return 0.0;
+        }
+
+        @Override public Object currentValue() {
+            if (values.isEmpty()) {
+                return 0.0;
+            }
+            double lowerMiddle = toValue(values.lowerMiddle());
+            if (values.size() % 2 == 1) {
+                return lowerMiddle;
+            }
+            return (lowerMiddle + toValue(values.upperMiddle())) / 2;
+        }
+
+        @Override public boolean canDestroy() {
+            return values.isEmpty();
+        }
+
+        @Override public Map<String, Object> snapshot() {
+            if (changeLog.isBaseRequired()) {
+                return Collections.singletonMap(VALUES_LIST,
+                        changeLog.snapshotBase(SortedValuesCodec.encode(values.toSortedArray())));
+            }
+            return Collections.singletonMap(VALUES_LIST, changeLog.snapshotChanges());
+        }
+
+        @Override public void restore(Map<String, Object> map) {
+            changeLog.clear();
+            for (Snapshot snapshot : SortedValuesChangeLog.toSnapshots(map.get(VALUES_LIST))) {
+                if (!snapshot.isIncrementalSnapshot()) {
+                    values = DualHeapMedian.fromSorted(SortedValuesCodec.decodeLongs((byte[]) snapshot.getState()));
+                    changeLog.restoredBase();
+                } else {
+                    for (long key : changeLog.restoredAdded(snapshot.getState())) {
+                        values.add(key);
+                    }
+                    for (long key : changeLog.restoredRemoved(snapshot.getState())) {
+                        values.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private static class DoubleMedianAttributeState extends MedianAttributeState {
+
+        @Override protected long toKey(Object data) {
+            return SortedValuesCodec.toSortableLong(((Number) data).doubleValue());
+        }
+
+        @Override protected double toValue(long key) {
+            return SortedValuesCodec.fromSortableLong(key);
+        }
+    }
+
+    private static class LongMedianAttributeState extends MedianAttributeState {
+
+        @Override protected long toKey(Object data) {
+            return ((Number) data).longValue();
+        }
+
+        @Override protected double toValue(long key) {
+            return key;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.ParameterOverload;
+import io.siddhi.annotation.ReturnAttribute;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.exception.OperationNotSupportedException;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.query.processor.ProcessingMode;
+import io.siddhi.core.query.selector.attribute.aggregator.AttributeAggregatorExecutor;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.Snapshot;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.extension.execution.math.util.AdaptiveSortedLongList;
+import io.siddhi.extension.execution.math.util.PercentileAttributeState;
+import io.siddhi.extension.execution.math.util.SortedValuesChangeLog;
+import io.siddhi.extension.execution.math.util.SortedValuesCodec;
+import io.siddhi.query.api.definition.Attribute;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * AttributeAggregator which implements the following function.
+ * <code>percentRank(value, probe)</code>
+ * Returns the percentage of the stored values which are less than or equal to the probe.
+ * Accept Type(s): value: FLOAT,INT,LONG,DOUBLE / probe: FLOAT,INT,LONG,DOUBLE
+ * Return Type: DOUBLE
+ */
+@Extension(
+        name = "percentRank",
+        namespace = "math",
+        description = "This function returns the percentile rank of the 'probe' among the values of a given " +
+                "argument, which is the percentage of the values that are less than or equal to the 'probe'. " +
+                "It is the inverse of `math:percentile`, hence each event can be scored against the values of " +
+                "its window. The values are kept sorted, so each event is processed and ranked in O(log n) time.",
+        parameters = {
+                @Parameter(
+                        name = "arg",
+                        description = "The value of the parameter which the probe is ranked against.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        dynamic = true),
+                @Parameter(
+                        name = "probe",
+                        description = "The value whose percentile rank should be found.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        dynamic = true)
+        },
+        parameterOverloads = {
+                @ParameterOverload(parameterNames = {"arg", "probe"})
+        },
+        returnAttributes = @ReturnAttribute(
+                description = "The percentage of the 'arg' values which are less than or equal to the 'probe', " +
+                        "from 0 to 100.",
+                type = {DataType.DOUBLE}),
+        examples = @Example(
+                syntax = "define stream RequestStream (service string, latency long); \n" +
+                        "from RequestStream#window.time(10 min) \n" +
+                        "select service, latency, math:percentRank(latency, latency) as latencyRank \n" +
+                        "group by service \n" +
+                        "insert into OutMediationStream;",
+                description = "This returns, for each request, the percentage of the requests of the same service " +
+                        "in the last 10 minutes that were as fast as or faster than it. For example, a latencyRank " +
+                        "of 97.3 means that the request was slower than 97.3% of the others."
+        )
+)
+public class PercentRankFunctionExtension extends AttributeAggregatorExecutor<PercentileAttributeState> {
+
+    private static final String VALUES_LIST = "VALUES_LIST";
+
+    @Override
+    protected StateFactory<PercentileAttributeState> init(ExpressionExecutor[] expressionExecutors,
+                                                          ProcessingMode processingMode, boolean b,
+                                                          ConfigReader configReader,
+                                                          SiddhiQueryContext siddhiQueryContext) {
+        if (attributeExpressionExecutors.length != 2) {
+            throw new OperationNotSupportedException("PercentRank function has to have exactly 2 parameters, " +
+                                                             "currently " + attributeExpressionExecutors.length +
+                                                             " parameters provided.");
+        }
+        Attribute.Type probeType = attributeExpressionExecutors[1].getReturnType();
+        if (probeType != Attribute.Type.INT && probeType != Attribute.Type.LONG
+                && probeType != Attribute.Type.FLOAT && probeType != Attribute.Type.DOUBLE) {
+            throw new OperationNotSupportedException("PercentRank not supported for probe of type " + probeType);
+        }
+        Attribute.Type attributeType = attributeExpressionExecutors[0].getReturnType();
+        // This approach is used to avoid per event type check as it has a negative performance impact.
+        switch (attributeType) {
+            case FLOAT:
+            case DOUBLE:
+                return DoublePercentRankAttributeState::new;
+            case INT:
+            case LONG:
+                return LongPercentRankAttributeState::new;
+            default:
+                throw new OperationNotSupportedException("PercentRank not supported for " + attributeType);
+        }
+    }
+
+    @Override
+    public Object processAdd(Object data, PercentileAttributeState state) {
+        // will not occur
+        return new IllegalStateException("PercentRank need multiple input, but found " + data);
+    }
+
+    @Override
+    public Object processAdd(Object[] data, PercentileAttributeState state) {
+        if (data == null) {
+            return state.currentValue();
+        }
+        return state.processAdd(data);
+    }
+
+    @Override
+    public Object processRemove(Object data, PercentileAttributeState state) {
+        // will not occur
+        return new IllegalStateException("PercentRank need multiple input, but found " + data);
+    }
+
+    @Override
+    public Object processRemove(Object[] data, PercentileAttributeState state) {
+        if (data == null) {
+            return state.currentValue();
+        }
+        return state.processRemove(data);
+    }
+
+    @Override
+    public Object reset(PercentileAttributeState state) {
+        return state.reset();
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return Attribute.Type.DOUBLE;
+    }
+
+    /**
+     * Base of the percent rank states. The values are kept as order preserving longs, which the subclasses convert
+     * from the attribute values and the probes.
+     */
+    private abstract static class PercentRankAttributeState extends PercentileAttributeState {
+
+        private AdaptiveSortedLongList values = new AdaptiveSortedLongList();
+        private final SortedValuesChangeLog changeLog = new SortedValuesChangeLog();
+        private Object lastRank = 0.0;
+
+        protected abstract long toKey(Object data);
+
+        /**
+         * @return largest key which is less than or equal to the given probe
+         */
+        protected abstract long toProbeKey(Object probe);
+
+        @Override public Object processAdd(Object data) {
+            Object[] valueAndProbe = (Object[]) data;
+            if (valueAndProbe[0] != null) {
+                long key = toKey(valueAndProbe[0]);
+                values.add(key);
+                changeLog.recordAdd(key, values.size());
+            }
+            return rank(valueAndProbe[1]);
+        }
+
+        @Override public Object processRemove(Object obj) {
+            Object[] valueAndProbe = (Object[]) obj;
+            if (valueAndProbe[0] != null) {
+                long key = toKey(valueAndProbe[0]);
+                if (values.remove(key)) {
+                    changeLog.recordRemove(key, values.size());
+                }
+            }
+            return rank(valueAndProbe[1]);
+        }
+
+        private Object rank(Object probe) {
+            if (probe == null) {
+                lastRank = null;
+            } else if (values.isEmpty()) {
+                lastRank = 0.0;
+            } else {
+                lastRank = 100.0 * values.countAtMost(toProbeKey(probe)) / values.size();
+            }
+            return lastRank;
+        }
+
+        @Override public Object reset() {
+            values.clear();
+            changeLog.clear();
+            lastRank = 0.0;
+            return 0.0;
+        }
+
+        @Override public Object currentValue() {
+            return lastRank;
+        }
+
+        @Override public boolean canDestroy() {
+            return values.isEmpty();
+        }
+
+        @Override public Map<String, Object> snapshot() {
+            if (changeLog.isBaseRequired()) {
+                return Collections.singletonMap(VALUES_LIST, changeLog.snapshotBase(values.encode()));
+            }
+            return Collections.singletonMap(VALUES_LIST, changeLog.snapshotChanges());
+        }
+
+        @Override public void restore(Map<String, Object> map) {
+            changeLog.clear();
+            for (Snapshot snapshot : SortedValuesChangeLog.toSnapshots(map.get(VALUES_LIST))) {
+                if (!snapshot.isIncrementalSnapshot()) {
+                    values = AdaptiveSortedLongList.decode((byte[]) snapshot.getState());
+                    changeLog.restoredBase();
+                } else {
+                    for (long key : changeLog.restoredAdded(snapshot.getState())) {
+                        values.add(key);
+                    }
+                    for (long key : changeLog.restoredRemoved(snapshot.getState())) {
+                        values.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private static class DoublePercentRankAttributeState extends PercentRankAttributeState {
+
+        @Override protected long toKey(Object data) {
+            // Adding 0.0 turns -0.0 into 0.0, so that both zeros are ranked as equal.
+            return SortedValuesCodec.toSortableLong(((Number) data).doubleValue() + 0.0);
+        }
+
+        @Override protected long toProbeKey(Object probe) {
+            return toKey(probe);
+        }
+    }
+
+    private static class LongPercentRankAttributeState extends PercentRankAttributeState {
+
+        @Override protected long toKey(Object data) {
+            return ((Number) data).longValue();
+        }
+
+        @Override protected long toProbeKey(Object probe) {
+            if (probe instanceof Double || probe instanceof Float) {
+                // The cast saturates at the long range, hence out of range probes rank all or none of the values.
+                return (long) Math.floor(((Number) probe).doubleValue());
+            }
+            return ((Number) probe).longValue();
+        }
+    }
+}
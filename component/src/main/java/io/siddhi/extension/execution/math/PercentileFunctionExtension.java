@@ -23,6 +23,7 @@ import io.siddhi.annotation.Extension;
 import io.siddhi.annotation.Parameter;
 import io.siddhi.annotation.ParameterOverload;
 import io.siddhi.annotation.ReturnAttribute;
+import io.siddhi.annotation.SystemParameter;
 import io.siddhi.annotation.util.DataType;
 import io.siddhi.core.config.SiddhiQueryContext;
 import io.siddhi.core.exception.OperationNotSupportedException;
@@ -31,26 +32,46 @@ import io.siddhi.core.executor.ExpressionExecutor;
 import io.siddhi.core.query.processor.ProcessingMode;
 import io.siddhi.core.query.selector.attribute.aggregator.AttributeAggregatorExecutor;
 import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.Snapshot;
 import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.core.util.timestamp.TimestampGenerator;
+import io.siddhi.extension.execution.math.util.CachedPercentileAttributeState;
+import io.siddhi.extension.execution.math.util.DecayingQuantileSketch;
+import io.siddhi.extension.execution.math.util.GkSummary;
+import io.siddhi.extension.execution.math.util.HdrHistogram;
+import io.siddhi.extension.execution.math.util.KllSketch;
+import io.siddhi.extension.execution.math.util.OffHeapSortedLongList;
 import io.siddhi.extension.execution.math.util.PercentileAttributeState;
+import io.siddhi.extension.execution.math.util.PercentileMemoryBudget;
+import io.siddhi.extension.execution.math.util.QuantileSketch;
+import io.siddhi.extension.execution.math.util.ReservoirSample;
+import io.siddhi.extension.execution.math.util.SortedDoubleList;
+import io.siddhi.extension.execution.math.util.SortedDoubleValuesAttributeState;
+import io.siddhi.extension.execution.math.util.SortedLongValuesAttributeState;
+import io.siddhi.extension.execution.math.util.SortedValuesChangeLog;
+import io.siddhi.extension.execution.math.util.SortedValuesCodec;
+import io.siddhi.extension.execution.math.util.TDigest;
 import io.siddhi.query.api.definition.Attribute;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
+import static io.siddhi.extension.execution.math.util.MathUtil.convertToDouble;
+
 /**
  * AttributeAggregator which implements the following function.
- * <code>percentile(value, p)</code>
+ * <code>percentile(value, p)</code> or <code>percentile(value, p, mode, ...)</code>
  * Returns an estimate for the pth percentile of the stored values.
- * Accept Type(s): value: FLOAT,INT,LONG,DOUBLE / p: DOUBLE
+ * Accept Type(s): value: FLOAT,INT,LONG,DOUBLE / p: DOUBLE / mode: STRING
  * Return Type: DOUBLE
  */
 @Extension(
         name = "percentile",
         namespace = "math",
-        description = "This functions returns the pth percentile value of a given argument.",
+        description = "This functions returns the pth percentile value of a given argument. By default the " +
+                "percentile is calculated exactly by retaining all the values, optionally a bounded size sketch " +
+                "can be used to approximate the percentile with constant memory.",
         parameters = {
                 @Parameter(
                         name = "arg",
@@ -62,39 +83,219 @@ import java.util.Map;
                         description = "Estimate of the percentile to be found (pth percentile) " +
                                 "where p is any number greater than 0 or lesser than or equal to 100.",
                         type = {DataType.DOUBLE},
-                        dynamic = true)
+                        dynamic = true),
+                @Parameter(
+                        name = "mode",
+                        description = "The calculation mode. `exact` retains every value. `tdigest` keeps a " +
+                                "t-digest of bounded size; it cannot remove values, hence it cannot be used with " +
+                                "sliding windows. Its error is expressed in rank, and it is smallest at the tails " +
+                                "(for example, p99 is within about 0.05% in rank when compression is 100). " +
+                                "`hdr` keeps a high dynamic range histogram of INT or LONG values with a fixed " +
+                                "number of significant digits; it supports sliding windows, and its memory depends " +
+                                "only on the highest trackable value and the significant digits. `kll` keeps a " +
+                                "KLL sketch, whose rank error shrinks as 'k' grows and is about 1.65% at k = 200; " +
+                                "it cannot be used with sliding windows, but the same sketch can be exported and " +
+                                "merged with `math:sketch` and `math:sketchMerge`. " +
+                                "`decay` keeps a t-digest in which the weight of each value halves every " +
+                                "'half.life' since its 'timestamp', hence recent values dominate the percentile " +
+                                "without a window, and values older than about 32 half-lives no longer count, not " +
+                                "even as the minimum or maximum; it cannot be used with sliding windows either. " +
+                                "`gk` keeps a Greenwald-Khanna summary, whose result is guaranteed to be within " +
+                                "'epsilon' times the number of values of the requested rank, with at most " +
+                                "(11 / (2 * epsilon)) * log(2 * epsilon * n) tuples for n values; it cannot be used " +
+                                "with sliding windows. Queries using " +
+                                "`tdigest`, `kll`, `decay` or `gk` with a sliding window fail when they are " +
+                                "created. `offheap` " +
+                                "returns the same results as `exact`, but keeps the values in direct memory outside " +
+                                "of the Java heap, so that very large windows do not lengthen the garbage " +
+                                "collection pauses; its direct memory is limited by the -XX:MaxDirectMemorySize " +
+                                "JVM option. `reservoir` keeps a uniform random sample of 'size' values of the " +
+                                "window and returns the percentile of the sample; it supports sliding windows, and " +
+                                "its rank error is in the order of 1 / sqrt(size). To remove expired duplicates with " +
+                                "the right probability it also counts the occurrences of the sampled values, which " +
+                                "takes memory in the order of 'size'.",
+                        type = {DataType.STRING},
+                        optional = true,
+                        defaultValue = "exact"),
+                @Parameter(
+                        name = "compression",
+                        description = "The compression of the `tdigest` mode. Higher values are more accurate " +
+                                "and keep more centroids, up to about 1.6 times the compression.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        optional = true,
+                        defaultValue = "100"),
+                @Parameter(
+                        name = "half.life",
+                        description = "The time in milliseconds after which the weight of a value halves in the " +
+                                "`decay` mode.",
+                        type = {DataType.INT, DataType.LONG},
+                        optional = true,
+                        defaultValue = "300000"),
+                @Parameter(
+                        name = "timestamp",
+                        description = "The time of the value in milliseconds in the `decay` mode, usually " +
+                                "`eventTimestamp()`. Values whose timestamp is older than that of the latest " +
+                                "values get a smaller weight. When it is not given, or it is null for an event, the " +
+                                "current time of the Siddhi app is used, which is the arrival time of the events " +
+                                "unless playback is enabled.",
+                        type = {DataType.LONG},
+                        dynamic = true,
+                        optional = true,
+                        defaultValue = "current time"),
+                @Parameter(
+                        name = "epsilon",
+                        description = "The largest rank error of the `gk` mode, as a fraction of the number of " +
+                                "values, greater than 0 and less than 1.",
+                        type = {DataType.DOUBLE},
+                        optional = true,
+                        defaultValue = "0.001"),
+                @Parameter(
+                        name = "size",
+                        description = "The number of values sampled by the `reservoir` mode.",
+                        type = {DataType.INT},
+                        optional = true,
+                        defaultValue = "1024"),
+                @Parameter(
+                        name = "highest.trackable.value",
+                        description = "The highest value tracked by the `hdr` mode. Larger values are recorded as " +
+                                "this value and negative values are recorded as 0.",
+                        type = {DataType.INT, DataType.LONG},
+                        optional = true,
+                        defaultValue = "3600000000"),
+                @Parameter(
+                        name = "significant.digits",
+                        description = "The number of significant decimal digits preserved by the `hdr` mode, " +
+                                "between 0 and 5.",
+                        type = {DataType.INT},
+                        optional = true,
+                        defaultValue = "3"),
+                @Parameter(
+                        name = "k",
+                        description = "The size parameter of the `kll` mode. The sketch retains about 3k values.",
+                        type = {DataType.INT},
+                        optional = true,
+                        defaultValue = "200")
         },
         parameterOverloads = {
-                @ParameterOverload(parameterNames = {"arg", "p"})
+                @ParameterOverload(parameterNames = {"arg", "p"}),
+                @ParameterOverload(parameterNames = {"arg", "p", "mode"}),
+                @ParameterOverload(parameterNames = {"arg", "p", "mode", "compression"}),
+                @ParameterOverload(parameterNames = {"arg", "p", "mode", "highest.trackable.value",
+                        "significant.digits"}),
+                @ParameterOverload(parameterNames = {"arg", "p", "mode", "k"}),
+                @ParameterOverload(parameterNames = {"arg", "p", "mode", "half.life"}),
+                @ParameterOverload(parameterNames = {"arg", "p", "mode", "half.life", "compression"}),
+                @ParameterOverload(parameterNames = {"arg", "p", "mode", "half.life", "timestamp"}),
+                @ParameterOverload(parameterNames = {"arg", "p", "mode", "half.life", "compression", "timestamp"}),
+                @ParameterOverload(parameterNames = {"arg", "p", "mode", "epsilon"}),
+                @ParameterOverload(parameterNames = {"arg", "p", "mode", "size"})
+        },
+        systemParameter = {
+                @SystemParameter(
+                        name = "max.state.bytes",
+                        description = "The largest estimated memory, in bytes, of the values retained by a single " +
+                                "state of the `exact` mode, such as one group. FLOAT and DOUBLE values are estimated " +
+                                "as 8 bytes each. INT and LONG values are estimated as 16 bytes per distinct value " +
+                                "while they have at most 1024 distinct values, and as 8 bytes each beyond. " +
+                                "0 means unlimited.",
+                        defaultValue = "0",
+                        possibleParameters = "Any non negative long value"),
+                @SystemParameter(
+                        name = "max.total.bytes",
+                        description = "The largest estimated memory, in bytes, of the values retained by all the " +
+                                "states of the `exact` mode of a single percentile function. 0 means unlimited.",
+                        defaultValue = "0",
+                        possibleParameters = "Any non negative long value"),
+                @SystemParameter(
+                        name = "memory.budget.policy",
+                        description = "What a state does when it would exceed a memory budget, until it is reset. " +
+                                "`reject` fails the event. `sample` keeps a uniform random sample of the values, " +
+                                "of the size reached at the budget. `sketch` summarises the values in a t-digest " +
+                                "of compression 100, which no longer removes expired events.",
+                        defaultValue = "reject",
+                        possibleParameters = {"reject", "sample", "sketch"})
         },
         returnAttributes = @ReturnAttribute(
                 description = "Estimate of the 'p'th percentile value of the 'arg' values.",
                 type = {DataType.DOUBLE}),
-        examples = @Example(
-
-                syntax = "define stream InValueStream (sensorId int, temperature double); \n" +
-                        "from InValueStream \n" +
-                        "select math:percentile(temperature, 97.0) as percentile \n" +
-                        "insert into OutMediationStream;",
-                description = "This function returns the percentile value based on the argument given." +
-                        " For example, math:percentile(temperature, 97.0) returns the 97th percentile " +
-                        "value of all the temperature events."
-        )
+        examples = {
+                @Example(
+                        syntax = "define stream InValueStream (sensorId int, temperature double); \n" +
+                                "from InValueStream \n" +
+                                "select math:percentile(temperature, 97.0) as percentile \n" +
+                                "insert into OutMediationStream;",
+                        description = "This function returns the percentile value based on the argument given." +
+                                " For example, math:percentile(temperature, 97.0) returns the 97th percentile " +
+                                "value of all the temperature events."
+                ),
+                @Example(
+                        syntax = "define stream LatencyStream (service string, latency double); \n" +
+                                "from LatencyStream \n" +
+                                "select service, math:percentile(latency, 99.0, 'tdigest', 100) as p99 \n" +
+                                "group by service \n" +
+                                "insert into OutMediationStream;",
+                        description = "This returns an estimate of the 99th percentile latency of each service " +
+                                "since the start, using a t-digest with compression 100 per service instead of " +
+                                "retaining every latency value."
+                ),
+                @Example(
+                        syntax = "define stream LatencyStream (service string, latencyInMicros long); \n" +
+                                "from LatencyStream#window.time(10 min) \n" +
+                                "select service, math:percentile(latencyInMicros, 99.9, 'hdr', 60000000L, 3) " +
+                                "as p999 \n" +
+                                "group by service \n" +
+                                "insert into OutMediationStream;",
+                        description = "This returns the 99.9th percentile latency of each service over the last " +
+                                "10 minutes with 3 significant digits, tracking latencies up to one minute."
+                ),
+                @Example(
+                        syntax = "define stream LatencyStream (service string, latency double); \n" +
+                                "from LatencyStream \n" +
+                                "select service, math:percentile(latency, 95.0, 'decay', 10 min, eventTimestamp()) " +
+                                "as p95 \n" +
+                                "group by service \n" +
+                                "insert into OutMediationStream;",
+                        description = "This returns an estimate of the 95th percentile latency of each service, " +
+                                "where the latencies of events timestamped 10 minutes ago count half as much as " +
+                                "the latest ones, those of 20 minutes ago a quarter, and so on."
+                )
+        }
 )
 public class PercentileFunctionExtension extends AttributeAggregatorExecutor<PercentileAttributeState> {
 
     private static final String VALUES_LIST = "VALUES_LIST";
-    private PercentileAttributeState percentileAttributeState;
+    private static final String MODE_EXACT = "exact";
+    private static final String MODE_TDIGEST = "tdigest";
+    private static final String MODE_HDR = "hdr";
+    private static final String MODE_KLL = "kll";
+    private static final String MODE_DECAY = "decay";
+    private static final String MODE_GK = "gk";
+    private static final String MODE_OFFHEAP = "offheap";
+    private static final String MODE_RESERVOIR = "reservoir";
+    private static final double DEFAULT_COMPRESSION = 100;
+    private static final long DEFAULT_HIGHEST_TRACKABLE_VALUE = 3600000000L;
+    private static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+    private static final int DEFAULT_K = 200;
+    private static final long DEFAULT_HALF_LIFE = 300000;
+    private static final double DEFAULT_EPSILON = 0.001;
+    private static final int DEFAULT_RESERVOIR_SIZE = 1024;
+    private static final int MIN_K = 8;
     private double percentileValue;
-    private List<Double> valuesList;
+    private String mode;
+    private boolean outputExpectsExpiredEvents;
+    private int timestampIndex = -1;
+    private PercentileMemoryBudget budget;
 
     @Override
     protected StateFactory<PercentileAttributeState> init(ExpressionExecutor[] expressionExecutors,
-                                                          ProcessingMode processingMode, boolean b,
+                                                          ProcessingMode processingMode,
+                                                          boolean outputExpectsExpiredEvents,
                                 ConfigReader configReader, SiddhiQueryContext siddhiQueryContext) {
-        if (attributeExpressionExecutors.length != 2) {
-            throw new OperationNotSupportedException("Percentile function has to have exactly 2 parameter, currently "
-                                                             + attributeExpressionExecutors.length +
+        this.outputExpectsExpiredEvents = outputExpectsExpiredEvents;
+        this.budget = PercentileMemoryBudget.fromConfig(configReader, siddhiQueryContext.getName());
+        if (attributeExpressionExecutors.length < 2) {
+            throw new OperationNotSupportedException("Percentile function has to have at least 2 parameters, " +
+                                                             "currently " + attributeExpressionExecutors.length +
                                                              " parameters provided.");
         }
 
@@ -114,24 +315,171 @@ public class PercentileFunctionExtension extends AttributeAggregatorExecutor<Per
             throw new OperationNotSupportedException(
                     "Percentile value should be in 0 < p <= 100 range. But found " + percentileValue);
         }
-        valuesList = new ArrayList<>();
         Attribute.Type attributeType = attributeExpressionExecutors[0].getReturnType();
+        if (attributeType != Attribute.Type.INT && attributeType != Attribute.Type.LONG
+                && attributeType != Attribute.Type.FLOAT && attributeType != Attribute.Type.DOUBLE) {
+            throw new OperationNotSupportedException("Percentile not supported for " + attributeType);
+        }
 
-        // This approach is used to avoid per event type check as it has a negative performance impact.
-        return () -> {
-            switch (attributeType) {
-                case FLOAT:
-                    return new FloatPercentileAttributeState();
-                case INT:
-                    return new IntPercentileAttributeState();
-                case LONG:
-                    return new LongPercentileAttributeState();
-                case DOUBLE:
-                    return new DoublePercentileAttributeState();
-                default:
-                    throw new OperationNotSupportedException("Percentile not supported for " + attributeType);
+        mode = MODE_EXACT;
+        if (attributeExpressionExecutors.length > 2) {
+            if (!(attributeExpressionExecutors[2] instanceof ConstantExpressionExecutor)
+                    || attributeExpressionExecutors[2].getReturnType() != Attribute.Type.STRING) {
+                throw new OperationNotSupportedException("Percentile mode has to be a constant string.");
             }
-        };
+            mode = ((String) attributeExpressionExecutors[2].execute(null)).toLowerCase(Locale.ENGLISH);
+        }
+        switch (mode) {
+            case MODE_EXACT:
+                validateParameterCount(3);
+                return createExactStateFactory(attributeType);
+            case MODE_TDIGEST:
+                validateParameterCount(4);
+                validateNotSliding(processingMode);
+                double compression = attributeExpressionExecutors.length == 4 ?
+                        readPositiveConstant(3, "compression") : DEFAULT_COMPRESSION;
+                return () -> new SketchPercentileAttributeState(new TDigest(compression));
+            case MODE_HDR:
+                validateParameterCount(5);
+                if (attributeType != Attribute.Type.INT && attributeType != Attribute.Type.LONG) {
+                    throw new OperationNotSupportedException("Percentile in '" + MODE_HDR + "' mode only supports " +
+                                                                     Attribute.Type.INT + " and " +
+                                                                     Attribute.Type.LONG + " values. But found " +
+                                                                     attributeType);
+                }
+                long highestTrackableValue = attributeExpressionExecutors.length > 3 ?
+                        (long) readNumericConstant(3, "highest.trackable.value") : DEFAULT_HIGHEST_TRACKABLE_VALUE;
+                int significantDigits = attributeExpressionExecutors.length > 4 ?
+                        (int) readNumericConstant(4, "significant.digits") : DEFAULT_SIGNIFICANT_DIGITS;
+                if (highestTrackableValue < 2) {
+                    throw new OperationNotSupportedException("Percentile parameter 'highest.trackable.value' " +
+                                                                     "should be at least 2. But found " +
+                                                                     highestTrackableValue);
+                }
+                if (significantDigits < 0 || significantDigits > 5) {
+                    throw new OperationNotSupportedException("Percentile parameter 'significant.digits' should " +
+                                                                     "be between 0 and 5. But found " +
+                                                                     significantDigits);
+                }
+                return () -> new SketchPercentileAttributeState(
+                        new HdrHistogram(highestTrackableValue, significantDigits));
+            case MODE_KLL:
+                validateParameterCount(4);
+                validateNotSliding(processingMode);
+                int k = attributeExpressionExecutors.length == 4 ? (int) readNumericConstant(3, "k") : DEFAULT_K;
+                if (k < MIN_K) {
+                    throw new OperationNotSupportedException("Percentile parameter 'k' should be at least " + MIN_K +
+                                                                     ". But found " + k);
+                }
+                return () -> new SketchPercentileAttributeState(new KllSketch(k));
+            case MODE_DECAY:
+                validateParameterCount(6);
+                validateNotSliding(processingMode);
+                int constantCount = attributeExpressionExecutors.length;
+                ExpressionExecutor lastExecutor = attributeExpressionExecutors[constantCount - 1];
+                if (constantCount > 4 && !(lastExecutor instanceof ConstantExpressionExecutor)) {
+                    if (lastExecutor.getReturnType() != Attribute.Type.LONG) {
+                        throw new OperationNotSupportedException("Percentile parameter 'timestamp' should be of " +
+                                                                         "type " + Attribute.Type.LONG +
+                                                                         ". But found " +
+                                                                         lastExecutor.getReturnType());
+                    }
+                    timestampIndex = --constantCount;
+                }
+                double halfLife = constantCount > 3 ? readPositiveConstant(3, "half.life") : DEFAULT_HALF_LIFE;
+                double decayCompression = constantCount > 4 ?
+                        readPositiveConstant(4, "compression") : DEFAULT_COMPRESSION;
+                TimestampGenerator timestampGenerator =
+                        siddhiQueryContext.getSiddhiAppContext().getTimestampGenerator();
+                return () -> new DecayPercentileAttributeState(
+                        new DecayingQuantileSketch(decayCompression, halfLife, timestampGenerator::currentTime));
+            case MODE_GK:
+                validateParameterCount(4);
+                validateNotSliding(processingMode);
+                double epsilon = attributeExpressionExecutors.length == 4 ?
+                        readPositiveConstant(3, "epsilon") : DEFAULT_EPSILON;
+                if (epsilon >= 1) {
+                    throw new OperationNotSupportedException("Percentile parameter 'epsilon' should be less " +
+                                                                     "than 1. But found " + epsilon);
+                }
+                return () -> new SketchPercentileAttributeState(new GkSummary(epsilon));
+            case MODE_OFFHEAP:
+                validateParameterCount(3);
+                if (attributeType == Attribute.Type.FLOAT || attributeType == Attribute.Type.DOUBLE) {
+                    return DoubleOffHeapPercentileAttributeState::new;
+                }
+                return LongOffHeapPercentileAttributeState::new;
+            case MODE_RESERVOIR:
+                validateParameterCount(4);
+                int reservoirSize = attributeExpressionExecutors.length == 4 ?
+                        (int) readPositiveConstant(3, "size") : DEFAULT_RESERVOIR_SIZE;
+                return () -> new SketchPercentileAttributeState(new ReservoirSample(reservoirSize));
+            default:
+                throw new OperationNotSupportedException("Percentile mode should be one of '" + MODE_EXACT +
+                                                                 "', '" + MODE_TDIGEST + "', '" + MODE_HDR +
+                                                                 "', '" + MODE_KLL + "', '" + MODE_DECAY +
+                                                                 "', '" + MODE_GK + "', '" + MODE_OFFHEAP +
+                                                                 "' or '" + MODE_RESERVOIR + "'. But found '" +
+                                                                 mode + "'.");
+        }
+    }
+
+    private StateFactory<PercentileAttributeState> createExactStateFactory(Attribute.Type attributeType) {
+        // This approach is used to avoid per event type check as it has a negative performance impact.
+        switch (attributeType) {
+            case FLOAT:
+            case DOUBLE:
+                return DoublePercentileAttributeState::new;
+            case INT:
+            case LONG:
+                return LongPercentileAttributeState::new;
+            default:
+                throw new OperationNotSupportedException("Percentile not supported for " + attributeType);
+        }
+    }
+
+    private void validateParameterCount(int maxParameterCount) {
+        if (attributeExpressionExecutors.length > maxParameterCount) {
+            throw new OperationNotSupportedException("Percentile function in '" + mode + "' mode can have at most " +
+                                                             maxParameterCount + " parameters, currently " +
+                                                             attributeExpressionExecutors.length +
+                                                             " parameters provided.");
+        }
+    }
+
+    /**
+     * Rejects the modes which cannot remove values in queries which would remove the expired values one by one.
+     */
+    private void validateNotSliding(ProcessingMode processingMode) {
+        if (processingMode == ProcessingMode.SLIDE) {
+            throw new OperationNotSupportedException("Percentile in '" + mode + "' mode cannot remove expired " +
+                                                             "events, use the '" + MODE_EXACT + "', '" + MODE_HDR +
+                                                             "', '" + MODE_OFFHEAP + "' or '" + MODE_RESERVOIR +
+                                                             "' mode with sliding windows.");
+        }
+    }
+
+    private double readPositiveConstant(int index, String name) {
+        double value = readNumericConstant(index, name);
+        if (value <= 0) {
+            throw new OperationNotSupportedException("Percentile parameter '" + name + "' should be positive. " +
+                                                             "But found " + value);
+        }
+        return value;
+    }
+
+    private double readNumericConstant(int index, String name) {
+        ExpressionExecutor executor = attributeExpressionExecutors[index];
+        if (!(executor instanceof ConstantExpressionExecutor)) {
+            throw new OperationNotSupportedException("Percentile parameter '" + name + "' has to be a constant.");
+        }
+        Attribute.Type type = executor.getReturnType();
+        if (type != Attribute.Type.INT && type != Attribute.Type.LONG
+                && type != Attribute.Type.FLOAT && type != Attribute.Type.DOUBLE) {
+            throw new OperationNotSupportedException("Percentile parameter '" + name + "' should be numeric. " +
+                                                             "But found " + type);
+        }
+        return convertToDouble(executor.execute(null));
     }
 
     @Override
@@ -144,6 +492,9 @@ public class PercentileFunctionExtension extends AttributeAggregatorExecutor<Per
         if (data == null) {
             return state.currentValue();
         }
+        if (timestampIndex > 0) {
+            return ((DecayPercentileAttributeState) state).processAdd(data[0], data[timestampIndex]);
+        }
         return state.processAdd(data[0]);
 
     }
@@ -164,222 +515,237 @@ public class PercentileFunctionExtension extends AttributeAggregatorExecutor<Per
         return state.reset();
     }
 
+    @Override public Attribute.Type getReturnType() {
+        return Attribute.Type.DOUBLE;
+    }
+
     /**
-     * Percentile calculation method.
-     * <p>
-     * To calculate the pth percentile (where p is any number greater than 0 or less than or equal to 100), do the
-     * following steps:
-     * 1. Order all the values in the data set from smallest to largest.
-     * 2. Multiply p percent by the total number of values, n. This number is called the index.
-     * 3. If the index obtained in Step 2 is not a whole number, round it up to the nearest whole number and go to Step
-     * 4a. If the index obtained in Step 2 is a whole number, go to Step 4b.
-     * 4a. Count the values in your data set from left to right (from the smallest to the largest value) until you reach
-     * the number indicated by Step 3. The corresponding value in your data set is the pth percentile.
-     * 4b. Count the values in your data set from left to right until you reach the number indicated by Step 2.
-     * The pth percentile is the average of that corresponding value in your data set and the value that directly
-     * follows it.
-     *
-     * @param valuesList values list
-     * @param percentile percentile (p)
-     * @return pth percentile value
+     * Exact percentile state of FLOAT and DOUBLE values.
      */
-    private double getPercentileValue(List<Double> valuesList, double percentile) {
+    private class DoublePercentileAttributeState extends SortedDoubleValuesAttributeState {
 
-        double percentileIndexTemp;
-        int percentileIndex;
-
-        // calculating percentile index
-        percentileIndexTemp = percentile * valuesList.size() / 100;
-
-        if (percentileIndexTemp % 1 == 0) {
-            percentileIndex = (int) percentileIndexTemp;
-            if (percentileIndex == valuesList.size()) {
-                return valuesList.get(percentileIndex - 1);
-            } else {
-                return (valuesList.get(percentileIndex - 1) + valuesList.get(percentileIndex)) / 2;
-            }
-        } else {
-            percentileIndex = (int) Math.round(percentileIndexTemp);
-            if (percentileIndex == 0) {
-                return valuesList.get(percentileIndex);
-            } else {
-                return valuesList.get(percentileIndex - 1);
-            }
+        private DoublePercentileAttributeState() {
+            super(budget, PercentileFunctionExtension.this.outputExpectsExpiredEvents);
         }
-    }
 
-    /**
-     * Adding values to the sorted ArrayList.
-     *
-     * @param arrayList sorted ArrayList
-     * @param value     new value
-     */
-    private void sortedArrayListAdd(List<Double> arrayList, double value) {
+        @Override public Object reset() {
+            clear();
+            return 0.0;
+        }
 
-        int insertIndex = Collections.binarySearch(arrayList, value);
-        if (insertIndex < 0) {
-            arrayList.add(-insertIndex - 1, value);
-        } else {
-            arrayList.add(insertIndex + 1, value);
+        @Override protected Object computeValue() {
+            return percentile(percentileValue);
         }
     }
 
     /**
-     * Removing values from the sorted ArrayList.
-     *
-     * @param arrayList Sorted ArrayList
-     * @param value     expired value
+     * Exact percentile state of INT and LONG values.
      */
-    private void sortedArrayListRemove(List<Double> arrayList, double value) {
-        int removeIndex = Collections.binarySearch(arrayList, value);
-        arrayList.remove(removeIndex);
-    }
-
-    @Override public Attribute.Type getReturnType() {
-        return Attribute.Type.DOUBLE;
-    }
-
-    private class DoublePercentileAttributeState extends PercentileAttributeState {
-
-        @Override public Object processAdd(Object data) {
-            double value = (Double) data;
-            sortedArrayListAdd(valuesList, value);
-            return getPercentileValue(valuesList, percentileValue);
-        }
+    private class LongPercentileAttributeState extends SortedLongValuesAttributeState {
 
-        @Override public Object processRemove(Object obj) {
-            double value = (Double) obj;
-            sortedArrayListRemove(valuesList, value);
-            return getPercentileValue(valuesList, percentileValue);
+        private LongPercentileAttributeState() {
+            super(budget, PercentileFunctionExtension.this.outputExpectsExpiredEvents);
         }
 
         @Override public Object reset() {
-            valuesList.clear();
+            clear();
             return 0.0;
         }
 
-        @Override public Object currentValue() {
-            return getPercentileValue(valuesList, percentileValue);
+        @Override protected Object computeValue() {
+            return percentile(percentileValue);
         }
+    }
 
-        @Override public boolean canDestroy() {
-            return valuesList.isEmpty();
-        }
+    /**
+     * State backed by an approximate, bounded size sketch.
+     */
+    private class SketchPercentileAttributeState extends CachedPercentileAttributeState {
 
-        @Override public Map<String, Object> snapshot() {
-            return Collections.singletonMap(VALUES_LIST, valuesList);
-        }
+        private final QuantileSketch sketch;
 
-        @Override public void restore(Map<String, Object> map) {
-            valuesList = (List<Double>) map.get(VALUES_LIST);
+        private SketchPercentileAttributeState(QuantileSketch sketch) {
+            this.sketch = sketch;
         }
-    }
-
-    private class FloatPercentileAttributeState extends PercentileAttributeState {
 
         @Override public Object processAdd(Object data) {
-            float value = (Float) data;
-            sortedArrayListAdd(valuesList, value);
-            return getPercentileValue(valuesList, percentileValue);
+            sketch.add(((Number) data).doubleValue());
+            changed();
+            return currentValue();
         }
 
         @Override public Object processRemove(Object obj) {
-            double value = (Float) obj;
-            sortedArrayListRemove(valuesList, value);
-            return getPercentileValue(valuesList, percentileValue);
+            try {
+                sketch.remove(((Number) obj).doubleValue());
+            } catch (UnsupportedOperationException e) {
+                throw new OperationNotSupportedException("Percentile in '" + mode + "' mode cannot remove " +
+                                                                 "expired events, use the '" + MODE_EXACT +
+                                                                 "' mode with sliding windows.");
+            }
+            changed();
+            return expiredValue(outputExpectsExpiredEvents);
         }
 
         @Override public Object reset() {
-            valuesList.clear();
+            sketch.clear();
+            changed();
             return 0.0;
         }
 
-        @Override public Object currentValue() {
-            return getPercentileValue(valuesList, percentileValue);
+        @Override protected Object computeValue() {
+            return sketch.percentile(percentileValue);
         }
 
         @Override public boolean canDestroy() {
-            return valuesList.isEmpty();
+            return sketch.isEmpty();
         }
 
         @Override public Map<String, Object> snapshot() {
-            return Collections.singletonMap(VALUES_LIST, valuesList);
+            return sketch.snapshot();
         }
 
         @Override public void restore(Map<String, Object> map) {
-            valuesList = (List<Double>) map.get(VALUES_LIST);
+            sketch.restore(map);
+            changed();
         }
     }
 
-    private class IntPercentileAttributeState extends PercentileAttributeState {
+    /**
+     * Base of the exact percentile states which keep their values off the Java heap. The values are kept as order
+     * preserving longs, which the subclasses convert from and to the attribute values.
+     */
+    private abstract class OffHeapPercentileAttributeState extends CachedPercentileAttributeState {
+
+        private final OffHeapSortedLongList values = new OffHeapSortedLongList();
+        private final SortedValuesChangeLog changeLog = new SortedValuesChangeLog();
+
+        protected abstract long toKey(Object data);
+
+        protected abstract double toValue(long key);
 
         @Override public Object processAdd(Object data) {
-            float value = (Integer) data;
-            sortedArrayListAdd(valuesList, value);
-            return getPercentileValue(valuesList, percentileValue);
+            long key = toKey(data);
+            values.add(key);
+            changed();
+            changeLog.recordAdd(key, values.size());
+            return currentValue();
         }
 
         @Override public Object processRemove(Object obj) {
-            double value = (Integer) obj;
-            sortedArrayListRemove(valuesList, value);
-            return getPercentileValue(valuesList, percentileValue);
+            long key = toKey(obj);
+            if (values.remove(key)) {
+                changed();
+                changeLog.recordRemove(key, values.size());
+            }
+            return expiredValue(outputExpectsExpiredEvents);
         }
 
         @Override public Object reset() {
-            valuesList.clear();
+            values.clear();
+            changeLog.clear();
+            changed();
             return 0.0;
         }
 
-        @Override public Object currentValue() {
-            return getPercentileValue(valuesList, percentileValue);
+        /**
+         * Same calculation as {@link SortedDoubleList#percentile(double)}.
+         */
+        @Override protected Object computeValue() {
+            int size = values.size();
+            if (size == 0) {
+                return 0.0;
+            }
+            double percentileIndexTemp = percentileValue * size / 100;
+            int percentileIndex;
+            if (percentileIndexTemp % 1 == 0) {
+                percentileIndex = (int) percentileIndexTemp;
+                if (percentileIndex == size) {
+                    return toValue(values.get(percentileIndex - 1));
+                } else {
+                    return (toValue(values.get(percentileIndex - 1)) + toValue(values.get(percentileIndex))) / 2;
+                }
+            } else {
+                percentileIndex = (int) Math.round(percentileIndexTemp);
+                if (percentileIndex == 0) {
+                    return toValue(values.get(percentileIndex));
+                } else {
+                    return toValue(values.get(percentileIndex - 1));
+                }
+            }
         }
 
         @Override public boolean canDestroy() {
-            return valuesList.isEmpty();
+            return values.isEmpty();
         }
 
         @Override public Map<String, Object> snapshot() {
-            return Collections.singletonMap(VALUES_LIST, valuesList);
+            if (changeLog.isBaseRequired()) {
+                return Collections.singletonMap(VALUES_LIST,
+                        changeLog.snapshotBase(SortedValuesCodec.encode(values.toArray())));
+            }
+            return Collections.singletonMap(VALUES_LIST, changeLog.snapshotChanges());
         }
 
         @Override public void restore(Map<String, Object> map) {
-            valuesList = (List<Double>) map.get(VALUES_LIST);
+            changeLog.clear();
+            changed();
+            for (Snapshot snapshot : SortedValuesChangeLog.toSnapshots(map.get(VALUES_LIST))) {
+                if (!snapshot.isIncrementalSnapshot()) {
+                    values.load(SortedValuesCodec.decodeLongs((byte[]) snapshot.getState()));
+                    changeLog.restoredBase();
+                } else {
+                    for (long key : changeLog.restoredAdded(snapshot.getState())) {
+                        values.add(key);
+                    }
+                    for (long key : changeLog.restoredRemoved(snapshot.getState())) {
+                        values.remove(key);
+                    }
+                }
+            }
         }
     }
 
-    private class LongPercentileAttributeState extends PercentileAttributeState {
+    /**
+     * State backed by a decaying sketch, which weighs the values by the timestamps given with them, if any.
+     */
+    private class DecayPercentileAttributeState extends SketchPercentileAttributeState {
+
+        private final DecayingQuantileSketch decayingSketch;
 
-        @Override public Object processAdd(Object data) {
-            float value = (Long) data;
-            sortedArrayListAdd(valuesList, value);
-            return getPercentileValue(valuesList, percentileValue);
+        private DecayPercentileAttributeState(DecayingQuantileSketch sketch) {
+            super(sketch);
+            this.decayingSketch = sketch;
         }
 
-        @Override public Object processRemove(Object obj) {
-            double value = (Long) obj;
-            sortedArrayListRemove(valuesList, value);
-            return getPercentileValue(valuesList, percentileValue);
+        private Object processAdd(Object data, Object timestamp) {
+            if (timestamp == null) {
+                return processAdd(data);
+            }
+            decayingSketch.add(((Number) data).doubleValue(), (Long) timestamp);
+            changed();
+            return currentValue();
         }
+    }
 
-        @Override public Object reset() {
-            valuesList.clear();
-            return 0.0;
-        }
+    private class DoubleOffHeapPercentileAttributeState extends OffHeapPercentileAttributeState {
 
-        @Override public Object currentValue() {
-            return getPercentileValue(valuesList, percentileValue);
+        @Override protected long toKey(Object data) {
+            return SortedValuesCodec.toSortableLong(((Number) data).doubleValue());
         }
 
-        @Override public boolean canDestroy() {
-            return valuesList.isEmpty();
+        @Override protected double toValue(long key) {
+            return SortedValuesCodec.fromSortableLong(key);
         }
+    }
 
-        @Override public Map<String, Object> snapshot() {
-            return Collections.singletonMap(VALUES_LIST, valuesList);
+    private class LongOffHeapPercentileAttributeState extends OffHeapPercentileAttributeState {
+
+        @Override protected long toKey(Object data) {
+            return ((Number) data).longValue();
         }
 
-        @Override public void restore(Map<String, Object> map) {
-            valuesList = (List<Double>) map.get(VALUES_LIST);
+        @Override protected double toValue(long key) {
+            return key;
         }
     }
 
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.ParameterOverload;
+import io.siddhi.annotation.ReturnAttribute;
+import io.siddhi.annotation.SystemParameter;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.exception.OperationNotSupportedException;
+import io.siddhi.core.executor.ConstantExpressionExecutor;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.query.processor.ProcessingMode;
+import io.siddhi.core.query.selector.attribute.aggregator.AttributeAggregatorExecutor;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.extension.execution.math.util.PercentileAttributeState;
+import io.siddhi.extension.execution.math.util.PercentileMemoryBudget;
+import io.siddhi.extension.execution.math.util.SortedDoubleValuesAttributeState;
+import io.siddhi.extension.execution.math.util.SortedLongValuesAttributeState;
+import io.siddhi.extension.execution.math.util.SortedValuesAttributeState;
+import io.siddhi.query.api.definition.Attribute;
+
+/**
+ * AttributeAggregator which implements the following function.
+ * <code>percentiles(value, p1, p2, ...)</code>
+ * Returns the p1th, p2th, ... percentiles of the stored values, calculated from a single sorted copy of the values.
+ * Accept Type(s): value: FLOAT,INT,LONG,DOUBLE / p1, p2, ...: DOUBLE
+ * Return Type: OBJECT (double[])
+ */
+@Extension(
+        name = "percentiles",
+        namespace = "math",
+        description = "This function returns several percentiles of a given argument at once, as a double array " +
+                "in the order in which the percentiles are given. All the percentiles are calculated from a single " +
+                "sorted copy of the values, hence it is cheaper than using `math:percentile` once per percentile.",
+        parameters = {
+                @Parameter(
+                        name = "arg",
+                        description = "The value of the parameter whose percentiles should be found.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        dynamic = true),
+                @Parameter(
+                        name = "p",
+                        description = "A percentile to be found, where p is any number greater than 0 or lesser " +
+                                "than or equal to 100. At least one percentile should be given.",
+                        type = {DataType.DOUBLE})
+        },
+        parameterOverloads = {
+                @ParameterOverload(parameterNames = {"arg", "p", "..."})
+        },
+        systemParameter = {
+                @SystemParameter(
+                        name = "max.state.bytes",
+                        description = "The largest estimated memory, in bytes, of the values retained by a single " +
+                                "state, such as one group. FLOAT and DOUBLE values are estimated as 8 bytes each. " +
+                                "INT and LONG values are estimated as 16 bytes per distinct value while they have " +
+                                "at most 1024 distinct values, and as 8 bytes each beyond. 0 means unlimited.",
+                        defaultValue = "0",
+                        possibleParameters = "Any non negative long value"),
+                @SystemParameter(
+                        name = "max.total.bytes",
+                        description = "The largest estimated memory, in bytes, of the values retained by all the " +
+                                "states of a single percentiles function. 0 means unlimited.",
+                        defaultValue = "0",
+                        possibleParameters = "Any non negative long value"),
+                @SystemParameter(
+                        name = "memory.budget.policy",
+                        description = "What a state does when it would exceed a memory budget, until it is reset. " +
+                                "`reject` fails the event. `sample` keeps a uniform random sample of the values, " +
+                                "of the size reached at the budget. `sketch` summarises the values in a t-digest " +
+                                "of compression 100, which no longer removes expired events.",
+                        defaultValue = "reject",
+                        possibleParameters = {"reject", "sample", "sketch"})
+        },
+        returnAttributes = @ReturnAttribute(
+                description = "A double array holding the requested percentiles of the 'arg' values.",
+                type = {DataType.OBJECT}),
+        examples = @Example(
+                syntax = "define stream LatencyStream (service string, latency double); \n" +
+                        "from LatencyStream#window.time(1 min) \n" +
+                        "select service, math:percentiles(latency, 50.0, 90.0, 99.0, 99.9) as latencyPercentiles \n" +
+                        "group by service \n" +
+                        "insert into OutMediationStream;",
+                description = "This returns a double array with the 50th, 90th, 99th and 99.9th percentile " +
+                        "latencies of each service over the last minute."
+        )
+)
+public class PercentilesFunctionExtension extends AttributeAggregatorExecutor<PercentileAttributeState> {
+
+    private double[] percentileValues;
+    private boolean outputExpectsExpiredEvents;
+    private PercentileMemoryBudget budget;
+
+    @Override
+    protected StateFactory<PercentileAttributeState> init(ExpressionExecutor[] expressionExecutors,
+                                                          ProcessingMode processingMode,
+                                                          boolean outputExpectsExpiredEvents,
+                                                          ConfigReader configReader,
+                                                          SiddhiQueryContext siddhiQueryContext) {
+        this.outputExpectsExpiredEvents = outputExpectsExpiredEvents;
+        this.budget = PercentileMemoryBudget.fromConfig(configReader, siddhiQueryContext.getName());
+        if (attributeExpressionExecutors.length < 2) {
+            throw new OperationNotSupportedException("Percentiles function has to have at least 2 parameters, " +
+                                                             "currently " + attributeExpressionExecutors.length +
+                                                             " parameters provided.");
+        }
+        percentileValues = new double[attributeExpressionExecutors.length - 1];
+        for (int i = 1; i < attributeExpressionExecutors.length; i++) {
+            if (!(attributeExpressionExecutors[i] instanceof ConstantExpressionExecutor)) {
+                throw new OperationNotSupportedException("Percentile values have to be constants.");
+            }
+            Object percentileValueObject = attributeExpressionExecutors[i].execute(null);
+            if (!(percentileValueObject instanceof Double)) {
+                throw new OperationNotSupportedException("Percentile values should be of type double. But found "
+                                                                 + attributeExpressionExecutors[i].getReturnType());
+            }
+            double percentileValue = (Double) percentileValueObject;
+            if (percentileValue <= 0 || percentileValue > 100) {
+                throw new OperationNotSupportedException(
+                        "Percentile values should be in 0 < p <= 100 range. But found " + percentileValue);
+            }
+            percentileValues[i - 1] = percentileValue;
+        }
+        Attribute.Type attributeType = attributeExpressionExecutors[0].getReturnType();
+
+        // This approach is used to avoid per event type check as it has a negative performance impact.
+        switch (attributeType) {
+            case FLOAT:
+            case DOUBLE:
+                return DoublePercentilesAttributeState::new;
+            case INT:
+            case LONG:
+                return LongPercentilesAttributeState::new;
+            default:
+                throw new OperationNotSupportedException("Percentiles not supported for " + attributeType);
+        }
+    }
+
+    @Override
+    public Object processAdd(Object data, PercentileAttributeState state) {
+        // will not occur
+        return new IllegalStateException("Percentiles need multiple input, but found " + data);
+    }
+
+    @Override public Object processAdd(Object[] data, PercentileAttributeState state) {
+        if (data == null) {
+            return state.currentValue();
+        }
+        return state.processAdd(data[0]);
+    }
+
+    @Override public Object processRemove(Object data, PercentileAttributeState state) {
+        // will not occur
+        return new IllegalStateException("Percentiles need multiple input, but found " + data);
+    }
+
+    @Override public Object processRemove(Object[] data, PercentileAttributeState state) {
+        if (data == null) {
+            return state.currentValue();
+        }
+        return state.processRemove(data[0]);
+    }
+
+    @Override public Object reset(PercentileAttributeState state) {
+        return state.reset();
+    }
+
+    @Override public Attribute.Type getReturnType() {
+        return Attribute.Type.OBJECT;
+    }
+
+    private double[] percentiles(SortedValuesAttributeState state) {
+        double[] result = new double[percentileValues.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = state.percentile(percentileValues[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Percentiles state of FLOAT and DOUBLE values.
+     */
+    private class DoublePercentilesAttributeState extends SortedDoubleValuesAttributeState {
+
+        private DoublePercentilesAttributeState() {
+            super(budget, PercentilesFunctionExtension.this.outputExpectsExpiredEvents);
+        }
+
+        @Override public Object reset() {
+            clear();
+            return new double[percentileValues.length];
+        }
+
+        @Override protected Object computeValue() {
+            return percentiles(this);
+        }
+    }
+
+    /**
+     * Percentiles state of INT and LONG values, kept as run lengths while they have few distinct values.
+     */
+    private class LongPercentilesAttributeState extends SortedLongValuesAttributeState {
+
+        private LongPercentilesAttributeState() {
+            super(budget, PercentilesFunctionExtension.this.outputExpectsExpiredEvents);
+        }
+
+        @Override public Object reset() {
+            clear();
+            return new double[percentileValues.length];
+        }
+
+        @Override protected Object computeValue() {
+            return percentiles(this);
+        }
+    }
+}
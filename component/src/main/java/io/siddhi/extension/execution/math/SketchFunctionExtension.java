@@ -0,0 +1,161 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.ParameterOverload;
+import io.siddhi.annotation.ReturnAttribute;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.exception.OperationNotSupportedException;
+import io.siddhi.core.executor.ConstantExpressionExecutor;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.query.processor.ProcessingMode;
+import io.siddhi.core.query.selector.attribute.aggregator.AttributeAggregatorExecutor;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.extension.execution.math.util.KllSketchAttributeState;
+import io.siddhi.query.api.definition.Attribute;
+
+/**
+ * AttributeAggregator which implements the following function.
+ * <code>sketch(value)</code> or <code>sketch(value, k)</code>
+ * Returns a KLL quantile sketch of the values in its compact binary form.
+ * Accept Type(s): value: FLOAT,INT,LONG,DOUBLE / k: INT
+ * Return Type: OBJECT (byte[])
+ */
+@Extension(
+        name = "sketch",
+        namespace = "math",
+        description = "This function summarises the given argument into a KLL quantile sketch and returns it in a " +
+                "compact binary form. The sketch can be sent to other nodes through streams, merged with " +
+                "`math:sketchMerge`, and queried with `math:sketchPercentile`. The sketch cannot forget values, " +
+                "hence it cannot be used with sliding windows. Every event returns a new byte array of about 8 " +
+                "bytes per retained value, up to about 3k values; only the lowest level of the sketch is encoded " +
+                "for each event, the other levels are copied from their binary form cached since the last " +
+                "compaction.",
+        parameters = {
+                @Parameter(
+                        name = "arg",
+                        description = "The value to be summarised.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        dynamic = true),
+                @Parameter(
+                        name = "k",
+                        description = "The size parameter of the sketch. The sketch retains about 3k values, and " +
+                                "its rank error shrinks as k grows, being about 1.65% at k = 200. Sketches can " +
+                                "only be merged with sketches of the same k.",
+                        type = {DataType.INT},
+                        optional = true,
+                        defaultValue = "200")
+        },
+        parameterOverloads = {
+                @ParameterOverload(parameterNames = {"arg"}),
+                @ParameterOverload(parameterNames = {"arg", "k"})
+        },
+        returnAttributes = @ReturnAttribute(
+                description = "The KLL sketch of the 'arg' values as a byte array.",
+                type = {DataType.OBJECT}),
+        examples = @Example(
+                syntax = "define stream LatencyStream (service string, latency double); \n" +
+                        "from LatencyStream#window.timeBatch(1 min) \n" +
+                        "select service, math:sketch(latency) as latencySketch \n" +
+                        "group by service \n" +
+                        "output last every 1 min \n" +
+                        "insert into LatencySketchStream;",
+                description = "This emits a KLL sketch of the latencies of each service every minute, which can be " +
+                        "merged with the sketches of the other nodes instead of sending every latency event."
+        )
+)
+public class SketchFunctionExtension extends AttributeAggregatorExecutor<KllSketchAttributeState> {
+
+    private static final int DEFAULT_K = 200;
+    private static final int MIN_K = 8;
+
+    @Override
+    protected StateFactory<KllSketchAttributeState> init(ExpressionExecutor[] expressionExecutors,
+                                                         ProcessingMode processingMode, boolean b,
+                                                         ConfigReader configReader,
+                                                         SiddhiQueryContext siddhiQueryContext) {
+        if (attributeExpressionExecutors.length < 1 || attributeExpressionExecutors.length > 2) {
+            throw new OperationNotSupportedException("Sketch function has to have 1 or 2 parameters, currently " +
+                                                             attributeExpressionExecutors.length +
+                                                             " parameters provided.");
+        }
+        Attribute.Type attributeType = attributeExpressionExecutors[0].getReturnType();
+        if (attributeType != Attribute.Type.INT && attributeType != Attribute.Type.LONG
+                && attributeType != Attribute.Type.FLOAT && attributeType != Attribute.Type.DOUBLE) {
+            throw new OperationNotSupportedException("Sketch not supported for " + attributeType);
+        }
+        int k = DEFAULT_K;
+        if (attributeExpressionExecutors.length == 2) {
+            if (!(attributeExpressionExecutors[1] instanceof ConstantExpressionExecutor)
+                    || attributeExpressionExecutors[1].getReturnType() != Attribute.Type.INT) {
+                throw new OperationNotSupportedException("Sketch parameter 'k' has to be a constant int.");
+            }
+            k = (Integer) attributeExpressionExecutors[1].execute(null);
+            if (k < MIN_K) {
+                throw new OperationNotSupportedException("Sketch parameter 'k' should be at least " + MIN_K +
+                                                                 ". But found " + k);
+            }
+        }
+        int sketchK = k;
+        return () -> new KllSketchAttributeState(sketchK);
+    }
+
+    @Override
+    public Object processAdd(Object data, KllSketchAttributeState state) {
+        if (data != null) {
+            state.add(((Number) data).doubleValue());
+        }
+        return state.toBytes();
+    }
+
+    @Override
+    public Object processAdd(Object[] data, KllSketchAttributeState state) {
+        if (data == null) {
+            return state.toBytes();
+        }
+        return processAdd(data[0], state);
+    }
+
+    @Override
+    public Object processRemove(Object data, KllSketchAttributeState state) {
+        throw new OperationNotSupportedException("Sketch cannot remove expired events, hence it cannot be used " +
+                                                         "with sliding windows.");
+    }
+
+    @Override
+    public Object processRemove(Object[] data, KllSketchAttributeState state) {
+        return processRemove((Object) data, state);
+    }
+
+    @Override
+    public Object reset(KllSketchAttributeState state) {
+        state.clear();
+        return null;
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return Attribute.Type.OBJECT;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.ParameterOverload;
+import io.siddhi.annotation.ReturnAttribute;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.query.selector.attribute.aggregator.incremental.IncrementalAttributeAggregator;
+import io.siddhi.query.api.definition.Attribute;
+import io.siddhi.query.api.expression.Expression;
+
+/**
+ * Incremental aggregator which keeps a mergeable KLL sketch of the values, so that the percentiles of the
+ * larger durations of a 'define aggregation' are computed from the sketches of the smaller durations.
+ * Each event is converted into a sketch with math:createSketch(), the sketches are merged with
+ * math:sketchMerge(), and the merged sketch is the value of the aggregation. The per event sketches hold a single
+ * value, which math:sketchMerge() adds to its sketch without restoring them.
+ */
+@Extension(
+        name = "sketch",
+        namespace = "incrementalAggregator",
+        description = "Keeps a KLL quantile sketch of the given argument in an incremental aggregation " +
+                "('define aggregation'). The sketches of the smaller durations are merged to build the sketches " +
+                "of the larger durations, instead of rescanning the raw events. The percentiles can be " +
+                "retrieved from the aggregated sketch with `math:sketchPercentile`. Each event costs a 42 byte " +
+                "array holding its value, and a new byte array of the sketch of its smallest duration, which is " +
+                "about 8 bytes per retained value, up to about 3k values.",
+        parameters = {
+                @Parameter(
+                        name = "arg",
+                        description = "The value to be summarised.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        dynamic = true)
+        },
+        parameterOverloads = {
+                @ParameterOverload(parameterNames = {"arg"})
+        },
+        returnAttributes = @ReturnAttribute(
+                description = "The KLL sketch of the 'arg' values as a byte array.",
+                type = {DataType.OBJECT}),
+        examples = @Example(
+                syntax = "define stream LatencyStream (service string, latency double, timestamp long); \n" +
+                        "define aggregation LatencyAggregation \n" +
+                        "from LatencyStream \n" +
+                        "select service, math:sketch(latency) as latencySketch \n" +
+                        "group by service \n" +
+                        "aggregate by timestamp every sec...year; \n" +
+                        "\n" +
+                        "from LatencyAggregation within \"2026-**-** **:**:**\" per \"hours\" \n" +
+                        "select service, math:sketchPercentile(latencySketch, 99.0) as p99;",
+                description = "This keeps the latency sketch of each service for every duration from seconds " +
+                        "to years, and retrieves the hourly 99th percentile latencies, which are merged from the " +
+                        "minute level sketches."
+        )
+)
+public class SketchIncrementalAttributeAggregator extends IncrementalAttributeAggregator {
+
+    private Attribute[] baseAttributes;
+    private Expression[] baseAttributesInitialValues;
+
+    @Override
+    public void init(String attributeName, Attribute.Type attributeType) {
+        if (attributeName == null) {
+            throw new SiddhiAppCreationException("Sketch aggregator cannot be used without an attribute.");
+        }
+        if (attributeType != Attribute.Type.INT && attributeType != Attribute.Type.LONG
+                && attributeType != Attribute.Type.FLOAT && attributeType != Attribute.Type.DOUBLE) {
+            throw new SiddhiAppCreationException("Sketch aggregator is not supported for " + attributeType +
+                    " attribute '" + attributeName + "'.");
+        }
+        Attribute sketch = new Attribute("AGG_SKETCH_".concat(attributeName), Attribute.Type.OBJECT);
+        Expression sketchInitialValue = Expression.function("math", "createSketch",
+                Expression.variable(attributeName));
+        this.baseAttributes = new Attribute[]{sketch};
+        this.baseAttributesInitialValues = new Expression[]{sketchInitialValue};
+    }
+
+    @Override
+    public Expression aggregate() {
+        return Expression.variable(baseAttributes[0].getName());
+    }
+
+    @Override
+    public Attribute[] getBaseAttributes() {
+        return baseAttributes;
+    }
+
+    @Override
+    public Expression[] getBaseAttributeInitialValues() {
+        return baseAttributesInitialValues;
+    }
+
+    @Override
+    public Expression[] getBaseAggregators() {
+        Expression sketchAggregator = Expression.function("math", "sketchMerge",
+                Expression.variable(baseAttributes[0].getName()));
+        return new Expression[]{sketchAggregator};
+    }
+}
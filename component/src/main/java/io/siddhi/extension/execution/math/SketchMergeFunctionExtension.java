@@ -0,0 +1,148 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.ParameterOverload;
+import io.siddhi.annotation.ReturnAttribute;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.exception.OperationNotSupportedException;
+import io.siddhi.core.exception.SiddhiAppRuntimeException;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.query.processor.ProcessingMode;
+import io.siddhi.core.query.selector.attribute.aggregator.AttributeAggregatorExecutor;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.extension.execution.math.util.KllSketch;
+import io.siddhi.extension.execution.math.util.KllSketchAttributeState;
+import io.siddhi.query.api.definition.Attribute;
+
+/**
+ * AttributeAggregator which implements the following function.
+ * <code>sketchMerge(sketch)</code>
+ * Merges the KLL sketches created by math:sketch and returns the merged sketch in its compact binary form.
+ * Accept Type(s): sketch: OBJECT (byte[])
+ * Return Type: OBJECT (byte[])
+ */
+@Extension(
+        name = "sketchMerge",
+        namespace = "math",
+        description = "This function merges the KLL sketches created by `math:sketch` (or by this function) into " +
+                "a single sketch summarising all their values, and returns it in the same compact binary form. All " +
+                "the merged sketches should be created with the same 'k', otherwise the event fails. " +
+                "Merged sketches cannot forget values, hence it cannot be used with sliding windows.",
+        parameters = {
+                @Parameter(
+                        name = "sketch",
+                        description = "The binary form of a KLL sketch.",
+                        type = {DataType.OBJECT},
+                        dynamic = true)
+        },
+        parameterOverloads = {
+                @ParameterOverload(parameterNames = {"sketch"})
+        },
+        returnAttributes = @ReturnAttribute(
+                description = "The merged KLL sketch as a byte array.",
+                type = {DataType.OBJECT}),
+        examples = @Example(
+                syntax = "define stream LatencySketchStream (node string, service string, latencySketch object); " +
+                        "\n" +
+                        "from LatencySketchStream#window.timeBatch(1 min) \n" +
+                        "select service, math:sketchPercentile(math:sketchMerge(latencySketch), 99.0) as p99 \n" +
+                        "group by service \n" +
+                        "insert into OutMediationStream;",
+                description = "This merges the per node latency sketches of each service every minute, and " +
+                        "returns the 99th percentile latency across all the nodes."
+        )
+)
+public class SketchMergeFunctionExtension extends AttributeAggregatorExecutor<KllSketchAttributeState> {
+
+    private static final int DEFAULT_K = 200;
+
+    @Override
+    protected StateFactory<KllSketchAttributeState> init(ExpressionExecutor[] expressionExecutors,
+                                                         ProcessingMode processingMode, boolean b,
+                                                         ConfigReader configReader,
+                                                         SiddhiQueryContext siddhiQueryContext) {
+        if (attributeExpressionExecutors.length != 1) {
+            throw new OperationNotSupportedException("SketchMerge function has to have exactly 1 parameter, " +
+                                                             "currently " + attributeExpressionExecutors.length +
+                                                             " parameters provided.");
+        }
+        if (attributeExpressionExecutors[0].getReturnType() != Attribute.Type.OBJECT) {
+            throw new OperationNotSupportedException("SketchMerge function only supports sketches of type " +
+                                                             Attribute.Type.OBJECT + ". But found " +
+                                                             attributeExpressionExecutors[0].getReturnType());
+        }
+        return () -> new KllSketchAttributeState(DEFAULT_K);
+    }
+
+    @Override
+    public Object processAdd(Object data, KllSketchAttributeState state) {
+        if (data instanceof byte[] && state.addSingleValue((byte[]) data)) {
+            // Sketches of a single value, such as the per event sketches of math:sketch() in incremental
+            // aggregations, are added as values without restoring them.
+            return state.toBytes();
+        }
+        if (data != null) {
+            KllSketch incoming = KllSketch.fromAttribute(data, "math:sketchMerge()");
+            if (!state.getSketch().isEmpty() && incoming.getK() != state.getSketch().getK()) {
+                // The rank error of a merged sketch depends on its k, hence sketches of different sizes are not
+                // merged silently.
+                throw new SiddhiAppRuntimeException("SketchMerge can only merge sketches of the same k, but found " +
+                                                            "a sketch of k " + incoming.getK() + " while merging " +
+                                                            "sketches of k " + state.getSketch().getK() + ".");
+            }
+            state.merge(incoming);
+        }
+        return state.toBytes();
+    }
+
+    @Override
+    public Object processAdd(Object[] data, KllSketchAttributeState state) {
+        // will not occur
+        return new IllegalStateException("SketchMerge need a single input, but found " + data);
+    }
+
+    @Override
+    public Object processRemove(Object data, KllSketchAttributeState state) {
+        throw new OperationNotSupportedException("SketchMerge cannot remove expired sketches, hence it cannot " +
+                                                         "be used with sliding windows.");
+    }
+
+    @Override
+    public Object processRemove(Object[] data, KllSketchAttributeState state) {
+        // will not occur
+        return new IllegalStateException("SketchMerge need a single input, but found " + data);
+    }
+
+    @Override
+    public Object reset(KllSketchAttributeState state) {
+        state.clear();
+        return null;
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return Attribute.Type.OBJECT;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.ParameterOverload;
+import io.siddhi.annotation.ReturnAttribute;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.exception.SiddhiAppRuntimeException;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.executor.function.FunctionExecutor;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.State;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.extension.execution.math.util.KllSketch;
+import io.siddhi.query.api.definition.Attribute;
+import io.siddhi.query.api.exception.SiddhiAppValidationException;
+
+/**
+ * sketchPercentile(sketch, p);
+ * Returns an estimate of the pth percentile of the values summarised by a KLL sketch.
+ * Accept Type(s): sketch: OBJECT (byte[]) / p: DOUBLE
+ * Return Type(s): DOUBLE
+ */
+@Extension(
+        name = "sketchPercentile",
+        namespace = "math",
+        description = "This function returns an estimate of the pth percentile of the values summarised by a KLL " +
+                "sketch created by `math:sketch` or `math:sketchMerge`.",
+        parameters = {
+                @Parameter(
+                        name = "sketch",
+                        description = "The binary form of a KLL sketch.",
+                        type = {DataType.OBJECT},
+                        dynamic = true),
+                @Parameter(
+                        name = "p",
+                        description = "Estimate of the percentile to be found (pth percentile) " +
+                                "where p is any number greater than 0 or lesser than or equal to 100.",
+                        type = {DataType.DOUBLE},
+                        dynamic = true)
+        },
+        parameterOverloads = {
+                @ParameterOverload(parameterNames = {"sketch", "p"})
+        },
+        returnAttributes = @ReturnAttribute(
+                description = "Estimate of the 'p'th percentile of the values summarised by the sketch.",
+                type = {DataType.DOUBLE}),
+        examples = @Example(
+                syntax = "define stream LatencySketchStream (service string, latencySketch object); \n" +
+                        "from LatencySketchStream \n" +
+                        "select service, math:sketchPercentile(latencySketch, 99.0) as p99 \n" +
+                        "insert into OutMediationStream;",
+                description = "This returns an estimate of the 99th percentile of the latencies summarised by " +
+                        "each incoming sketch."
+        )
+)
+public class SketchPercentileFunctionExtension extends FunctionExecutor {
+
+    @Override
+    protected StateFactory init(ExpressionExecutor[] expressionExecutors, ConfigReader configReader,
+                                SiddhiQueryContext siddhiQueryContext) {
+        if (attributeExpressionExecutors.length != 2) {
+            throw new SiddhiAppValidationException("Invalid no of arguments passed to math:sketchPercentile() " +
+                    "function, required 2, but found " + attributeExpressionExecutors.length);
+        }
+        Attribute.Type attributeType = attributeExpressionExecutors[0].getReturnType();
+        if (attributeType != Attribute.Type.OBJECT) {
+            throw new SiddhiAppValidationException("Invalid parameter type found for the first argument of " +
+                    "math:sketchPercentile() function, required " + Attribute.Type.OBJECT + ", but found " +
+                    attributeType.toString());
+        }
+        attributeType = attributeExpressionExecutors[1].getReturnType();
+        if (attributeType != Attribute.Type.DOUBLE) {
+            throw new SiddhiAppValidationException("Invalid parameter type found for the second argument of " +
+                    "math:sketchPercentile() function, required " + Attribute.Type.DOUBLE + ", but found " +
+                    attributeType.toString());
+        }
+        return null;
+    }
+
+    @Override
+    protected Object execute(Object[] data, State state) {
+        if (data[0] != null && data[1] != null) {
+            double percentile = (Double) data[1];
+            if (percentile <= 0 || percentile > 100) {
+                throw new SiddhiAppRuntimeException("The percentile argument supplied to the " +
+                        "math:sketchPercentile() function should be in 0 < p <= 100 range, but found " + percentile);
+            }
+            return KllSketch.fromAttribute(data[0], "math:sketchPercentile()").percentile(percentile);
+        }
+        return null;
+    }
+
+    @Override
+    protected Object execute(Object data, State state) {
+        return null;    // This method won't get called. Hence, unimplemented.
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return Attribute.Type.DOUBLE;
+    }
+
+}
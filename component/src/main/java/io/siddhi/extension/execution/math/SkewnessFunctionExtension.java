@@ -0,0 +1,143 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.ParameterOverload;
+import io.siddhi.annotation.ReturnAttribute;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.exception.OperationNotSupportedException;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.query.processor.ProcessingMode;
+import io.siddhi.core.query.selector.attribute.aggregator.AttributeAggregatorExecutor;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.extension.execution.math.util.HigherMomentsAttributeState;
+import io.siddhi.query.api.definition.Attribute;
+
+/**
+ * AttributeAggregator which implements the following function.
+ * <code>skewness(value)</code>
+ * Returns the population skewness of the stored values.
+ * Accept Type(s): value: FLOAT,INT,LONG,DOUBLE
+ * Return Type: DOUBLE
+ */
+@Extension(
+        name = "skewness",
+        namespace = "math",
+        description = "This function returns the population skewness of a given argument, which measures the " +
+                "asymmetry of the values around their mean: it is positive when the values have a longer tail " +
+                "above the mean and negative when they have a longer tail below it. The second and third central " +
+                "moments are updated with Terriberry's online algorithm, so each event is processed in constant " +
+                "time and values leaving a window are removed without keeping the values. The function returns " +
+                "null while the skewness is undefined, i.e. when all the values are the same.",
+        parameters = {
+                @Parameter(
+                        name = "arg",
+                        description = "The value of the parameter whose skewness should be found.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        dynamic = true)
+        },
+        parameterOverloads = {
+                @ParameterOverload(parameterNames = {"arg"})
+        },
+        returnAttributes = @ReturnAttribute(
+                description = "The population skewness of the 'arg' values.",
+                type = {DataType.DOUBLE}),
+        examples = @Example(
+                syntax = "define stream InValueStream (sensorId int, temperature double); \n" +
+                        "from InValueStream#window.length(100) \n" +
+                        "select sensorId, math:skewness(temperature) as temperatureSkewness \n" +
+                        "group by sensorId \n" +
+                        "insert into OutMediationStream;",
+                description = "This function returns the skewness of the last 100 temperature values of each " +
+                        "sensor."
+        )
+)
+public class SkewnessFunctionExtension extends AttributeAggregatorExecutor<HigherMomentsAttributeState> {
+
+    @Override
+    protected StateFactory<HigherMomentsAttributeState> init(ExpressionExecutor[] expressionExecutors,
+                                                             ProcessingMode processingMode, boolean b,
+                                                             ConfigReader configReader,
+                                                             SiddhiQueryContext siddhiQueryContext) {
+        if (attributeExpressionExecutors.length != 1) {
+            throw new OperationNotSupportedException("Skewness function has to have exactly 1 parameter, " +
+                                                             "currently " + attributeExpressionExecutors.length +
+                                                             " parameters provided.");
+        }
+        Attribute.Type attributeType = attributeExpressionExecutors[0].getReturnType();
+        switch (attributeType) {
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return HigherMomentsAttributeState::new;
+            default:
+                throw new OperationNotSupportedException("Skewness not supported for " + attributeType);
+        }
+    }
+
+    @Override
+    public Object processAdd(Object data, HigherMomentsAttributeState state) {
+        if (data != null) {
+            state.add(((Number) data).doubleValue());
+        }
+        return currentValue(state);
+    }
+
+    @Override
+    public Object processAdd(Object[] data, HigherMomentsAttributeState state) {
+        // will not occur
+        return new IllegalStateException("Skewness need a single input, but found " + data);
+    }
+
+    @Override
+    public Object processRemove(Object data, HigherMomentsAttributeState state) {
+        if (data != null) {
+            state.remove(((Number) data).doubleValue());
+        }
+        return currentValue(state);
+    }
+
+    @Override
+    public Object processRemove(Object[] data, HigherMomentsAttributeState state) {
+        // will not occur
+        return new IllegalStateException("Skewness need a single input, but found " + data);
+    }
+
+    @Override
+    public Object reset(HigherMomentsAttributeState state) {
+        state.clear();
+        return null;
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return Attribute.Type.DOUBLE;
+    }
+
+    private static Object currentValue(HigherMomentsAttributeState state) {
+        double skewness = state.skewness();
+        return Double.isNaN(skewness) ? null : skewness;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.ParameterOverload;
+import io.siddhi.annotation.ReturnAttribute;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.extension.execution.math.util.MomentsAggregatorExecutor;
+import io.siddhi.extension.execution.math.util.MomentsAttributeState;
+
+/**
+ * AttributeAggregator which implements the following function.
+ * <code>stdDev(value)</code>
+ * Returns the population standard deviation of the stored values.
+ * Accept Type(s): value: FLOAT,INT,LONG,DOUBLE
+ * Return Type: DOUBLE
+ */
+@Extension(
+        name = "stdDev",
+        namespace = "math",
+        description = "This function returns the population standard deviation of a given argument, which is the " +
+                "square root of `math:variance(arg)`. It is updated with Welford's algorithm in a single " +
+                "aggregator, so it stays accurate for values far from zero where combining `sum(x)`, `sum(x*x)` " +
+                "and `count()` loses precision, and values leaving a window are removed without keeping the " +
+                "values. The function returns 0.0 when there are no values.",
+        parameters = {
+                @Parameter(
+                        name = "arg",
+                        description = "The value of the parameter whose standard deviation should be found.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        dynamic = true)
+        },
+        parameterOverloads = {
+                @ParameterOverload(parameterNames = {"arg"})
+        },
+        returnAttributes = @ReturnAttribute(
+                description = "The population standard deviation of the 'arg' values.",
+                type = {DataType.DOUBLE}),
+        examples = @Example(
+                syntax = "define stream InValueStream (sensorId int, temperature double); \n" +
+                        "from InValueStream#window.length(100) \n" +
+                        "select sensorId, math:stdDev(temperature) as temperatureStdDev \n" +
+                        "group by sensorId \n" +
+                        "insert into OutMediationStream;",
+                description = "This function returns the standard deviation of the last 100 temperature values of " +
+                        "each sensor."
+        )
+)
+public class StdDevFunctionExtension extends MomentsAggregatorExecutor {
+
+    public StdDevFunctionExtension() {
+        super("Standard deviation");
+    }
+
+    @Override
+    protected double result(MomentsAttributeState state) {
+        return Math.sqrt(state.variance());
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.ParameterOverload;
+import io.siddhi.annotation.ReturnAttribute;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.exception.OperationNotSupportedException;
+import io.siddhi.core.exception.SiddhiAppRuntimeException;
+import io.siddhi.core.executor.ConstantExpressionExecutor;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.query.processor.ProcessingMode;
+import io.siddhi.core.query.selector.attribute.aggregator.AttributeAggregatorExecutor;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.extension.execution.math.util.CachedPercentileAttributeState;
+import io.siddhi.extension.execution.math.util.PercentileAttributeState;
+import io.siddhi.extension.execution.math.util.SortedValuesCodec;
+import io.siddhi.extension.execution.math.util.WeightedSortedLongs;
+import io.siddhi.query.api.definition.Attribute;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * AttributeAggregator which implements the following function.
+ * <code>weightedPercentile(value, weight, p)</code>
+ * Returns the pth percentile of the stored values, where each value counts as many times as its weight.
+ * Accept Type(s): value: FLOAT,INT,LONG,DOUBLE / weight: FLOAT,INT,LONG,DOUBLE / p: DOUBLE
+ * Return Type: DOUBLE
+ */
+@Extension(
+        name = "weightedPercentile",
+        namespace = "math",
+        description = "This function returns the pth percentile value of a given argument, where each value is " +
+                "counted as many times as its weight, such as pre-aggregated events carrying a value and the " +
+                "number of its occurrences. With whole number weights the result is the same as " +
+                "`math:percentile` of the values repeated by their weights, without materialising the " +
+                "repetitions. Expired events remove their weight, hence it can be used with sliding windows.",
+        parameters = {
+                @Parameter(
+                        name = "arg",
+                        description = "The value of the parameter whose percentile should be found.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        dynamic = true),
+                @Parameter(
+                        name = "weight",
+                        description = "The non negative weight of the value, such as its number of occurrences.",
+                        type = {DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE},
+                        dynamic = true),
+                @Parameter(
+                        name = "p",
+                        description = "Estimate of the percentile to be found (pth percentile) " +
+                                "where p is any number greater than 0 or lesser than or equal to 100.",
+                        type = {DataType.DOUBLE})
+        },
+        parameterOverloads = {
+                @ParameterOverload(parameterNames = {"arg", "weight", "p"})
+        },
+        returnAttributes = @ReturnAttribute(
+                description = "The weighted 'p'th percentile value of the 'arg' values.",
+                type = {DataType.DOUBLE}),
+        examples = @Example(
+                syntax = "define stream LatencySummaryStream (collector string, latency long, count long); \n" +
+                        "from LatencySummaryStream#window.time(5 min) \n" +
+                        "select math:weightedPercentile(latency, count, 99.0) as p99 \n" +
+                        "insert into OutMediationStream;",
+                description = "This returns the 99th percentile latency of the last 5 minutes, from the latency " +
+                        "and occurrence count pairs reported by the edge collectors."
+        )
+)
+public class WeightedPercentileFunctionExtension extends AttributeAggregatorExecutor<PercentileAttributeState> {
+
+    private static final String VALUES = "VALUES";
+    private static final String WEIGHTS = "WEIGHTS";
+    private static final String COUNTS = "COUNTS";
+    private double percentileValue;
+    private boolean outputExpectsExpiredEvents;
+
+    @Override
+    protected StateFactory<PercentileAttributeState> init(ExpressionExecutor[] expressionExecutors,
+                                                          ProcessingMode processingMode,
+                                                          boolean outputExpectsExpiredEvents,
+                                                          ConfigReader configReader,
+                                                          SiddhiQueryContext siddhiQueryContext) {
+        this.outputExpectsExpiredEvents = outputExpectsExpiredEvents;
+        if (attributeExpressionExecutors.length != 3) {
+            throw new OperationNotSupportedException("WeightedPercentile function has to have exactly 3 " +
+                                                             "parameters, currently " +
+                                                             attributeExpressionExecutors.length +
+                                                             " parameters provided.");
+        }
+        for (int i = 0; i < 2; i++) {
+            Attribute.Type type = attributeExpressionExecutors[i].getReturnType();
+            if (type != Attribute.Type.INT && type != Attribute.Type.LONG
+                    && type != Attribute.Type.FLOAT && type != Attribute.Type.DOUBLE) {
+                throw new OperationNotSupportedException("WeightedPercentile not supported for " + type);
+            }
+        }
+        if (!(attributeExpressionExecutors[2] instanceof ConstantExpressionExecutor)) {
+            throw new OperationNotSupportedException("Percentile value has to be a constant.");
+        }
+        Object percentileValueObject = attributeExpressionExecutors[2].execute(null);
+        if (percentileValueObject instanceof Double) {
+            percentileValue = (Double) percentileValueObject;
+        } else {
+            throw new OperationNotSupportedException("Percentile value should be of type double. But found "
+                                                             + attributeExpressionExecutors[2].getReturnType());
+        }
+        if (percentileValue <= 0 || percentileValue > 100) {
+            throw new OperationNotSupportedException(
+                    "Percentile value should be in 0 < p <= 100 range. But found " + percentileValue);
+        }
+        // This approach is used to avoid per event type check as it has a negative performance impact.
+        switch (attributeExpressionExecutors[0].getReturnType()) {
+            case FLOAT:
+            case DOUBLE:
+                return DoubleWeightedPercentileAttributeState::new;
+            default:
+                return LongWeightedPercentileAttributeState::new;
+        }
+    }
+
+    @Override
+    public Object processAdd(Object data, PercentileAttributeState state) {
+        // will not occur
+        return new IllegalStateException("WeightedPercentile need multiple input, but found " + data);
+    }
+
+    @Override
+    public Object processAdd(Object[] data, PercentileAttributeState state) {
+        if (data == null || data[0] == null || data[1] == null) {
+            return state.currentValue();
+        }
+        return state.processAdd(data);
+    }
+
+    @Override
+    public Object processRemove(Object data, PercentileAttributeState state) {
+        // will not occur
+        return new IllegalStateException("WeightedPercentile need multiple input, but found " + data);
+    }
+
+    @Override
+    public Object processRemove(Object[] data, PercentileAttributeState state) {
+        if (data == null || data[0] == null || data[1] == null) {
+            return state.currentValue();
+        }
+        return state.processRemove(data);
+    }
+
+    @Override
+    public Object reset(PercentileAttributeState state) {
+        return state.reset();
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return Attribute.Type.DOUBLE;
+    }
+
+    /**
+     * Base of the weighted percentile states. The values are kept as order preserving longs, which the subclasses
+     * convert from and to the attribute values.
+     */
+    private abstract class WeightedPercentileAttributeState extends CachedPercentileAttributeState {
+
+        private WeightedSortedLongs values = new WeightedSortedLongs();
+
+        protected abstract long toKey(Object data);
+
+        protected abstract double toValue(long key);
+
+        @Override public Object processAdd(Object data) {
+            Object[] valueAndWeight = (Object[]) data;
+            values.add(toKey(valueAndWeight[0]), readWeight(valueAndWeight[1]));
+            changed();
+            return currentValue();
+        }
+
+        @Override public Object processRemove(Object obj) {
+            Object[] valueAndWeight = (Object[]) obj;
+            if (values.remove(toKey(valueAndWeight[0]), readWeight(valueAndWeight[1]))) {
+                changed();
+            }
+            return expiredValue(outputExpectsExpiredEvents);
+        }
+
+        @Override public Object reset() {
+            values.clear();
+            changed();
+            return 0.0;
+        }
+
+        /**
+         * Same calculation as {@link io.siddhi.extension.execution.math.util.SortedDoubleList#percentile(double)},
+         * with the cumulative weights in place of the positions.
+         */
+        @Override protected Object computeValue() {
+            double totalWeight = values.totalWeight();
+            if (totalWeight <= 0) {
+                return 0.0;
+            }
+            double percentileWeight = percentileValue * totalWeight / 100;
+            if (percentileWeight % 1 == 0) {
+                double value = toValue(values.valueAtWeight(percentileWeight));
+                if (percentileWeight >= totalWeight) {
+                    return value;
+                }
+                return (value + toValue(values.valueAfterWeight(percentileWeight))) / 2;
+            }
+            long percentileIndex = Math.round(percentileWeight);
+            if (percentileIndex == 0) {
+                return toValue(values.valueAfterWeight(0));
+            }
+            return toValue(values.valueAtWeight(percentileIndex));
+        }
+
+        @Override public boolean canDestroy() {
+            return values.isEmpty();
+        }
+
+        @Override public Map<String, Object> snapshot() {
+            Map<String, Object> state = new HashMap<>();
+            state.put(VALUES, SortedValuesCodec.encode(values.distinctValues()));
+            state.put(WEIGHTS, values.distinctWeights());
+            state.put(COUNTS, values.distinctCounts());
+            return state;
+        }
+
+        @Override public void restore(Map<String, Object> state) {
+            values = WeightedSortedLongs.fromDistinct(SortedValuesCodec.decodeLongs((byte[]) state.get(VALUES)),
+                    (double[]) state.get(WEIGHTS), (int[]) state.get(COUNTS));
+            changed();
+        }
+
+        private double readWeight(Object weight) {
+            double value = ((Number) weight).doubleValue();
+            if (!(value >= 0)) {
+                throw new SiddhiAppRuntimeException("The weight supplied to math:weightedPercentile() should " +
+                                                            "not be negative, but found " + value);
+            }
+            return value;
+        }
+    }
+
+    private class DoubleWeightedPercentileAttributeState extends WeightedPercentileAttributeState {
+
+        @Override protected long toKey(Object data) {
+            return SortedValuesCodec.toSortableLong(((Number) data).doubleValue());
+        }
+
+        @Override protected double toValue(long key) {
+            return SortedValuesCodec.fromSortableLong(key);
+        }
+    }
+
+    private class LongWeightedPercentileAttributeState extends WeightedPercentileAttributeState {
+
+        @Override protected long toKey(Object data) {
+            return ((Number) data).longValue();
+        }
+
+        @Override protected double toValue(long key) {
+            return key;
+        }
+    }
+}
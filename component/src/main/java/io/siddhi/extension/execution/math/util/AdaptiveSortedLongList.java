@@ -0,0 +1,186 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+/**
+ * Sorted multiset of long values which keeps the values as run lengths in a {@link SortedLongCounts} while they have
+ * few distinct values, and switches to a {@link SortedLongList} holding every occurrence once the distinct values
+ * exceed {@link #MAX_DISTINCT_COUNTS}. It switches back to run lengths only when it is cleared, as counting the
+ * distinct values of the list would cost as much as keeping them.
+ * <p>
+ * The percentiles are the same in both representations.
+ */
+public class AdaptiveSortedLongList {
+
+    /**
+     * Largest number of distinct values kept as run lengths. Adding a new distinct value to the run lengths is O(d),
+     * hence the limit also bounds the cost of the adds.
+     */
+    public static final int MAX_DISTINCT_COUNTS = 1024;
+
+    /**
+     * Estimated bytes of a distinct value kept as run length: the value, its count and its Fenwick tree entry.
+     */
+    public static final int RUN_BYTES = Long.BYTES + 2 * Integer.BYTES;
+
+    private SortedLongCounts counts = new SortedLongCounts();
+    private SortedLongList list;
+
+    /**
+     * Creates a list from values which are already sorted in ascending order.
+     *
+     * @param sortedValues sorted values
+     * @return sorted list
+     */
+    public static AdaptiveSortedLongList fromSorted(long[] sortedValues) {
+        AdaptiveSortedLongList result = new AdaptiveSortedLongList();
+        int distinctCount = 0;
+        for (int i = 0; i < sortedValues.length && distinctCount <= MAX_DISTINCT_COUNTS; i++) {
+            if (i == 0 || sortedValues[i] != sortedValues[i - 1]) {
+                distinctCount++;
+            }
+        }
+        if (distinctCount > MAX_DISTINCT_COUNTS) {
+            result.counts = null;
+            result.list = SortedLongList.fromSorted(sortedValues);
+        } else {
+            result.counts = SortedLongCounts.fromSorted(sortedValues);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a list from its binary form. Run lengths are kept as such while they have few distinct values.
+     *
+     * @param bytes binary form created by {@link #encode()} or by {@link SortedValuesCodec#encode(long[])}
+     * @return sorted list
+     */
+    public static AdaptiveSortedLongList decode(byte[] bytes) {
+        if (SortedValuesCodec.isRunLength(bytes) && SortedValuesCodec.runCount(bytes) <= MAX_DISTINCT_COUNTS) {
+            AdaptiveSortedLongList result = new AdaptiveSortedLongList();
+            result.counts = SortedLongCounts.decode(bytes);
+            return result;
+        }
+        return fromSorted(SortedValuesCodec.decodeLongs(bytes));
+    }
+
+    public void add(long value) {
+        if (list != null) {
+            list.add(value);
+            return;
+        }
+        counts.add(value);
+        if (counts.distinctCount() > MAX_DISTINCT_COUNTS) {
+            list = SortedLongList.fromSorted(counts.toArray());
+            counts = null;
+        }
+    }
+
+    /**
+     * Removes a single occurrence of the given value.
+     *
+     * @param value value to be removed
+     * @return true if the value was found and removed
+     */
+    public boolean remove(long value) {
+        return list != null ? list.remove(value) : counts.remove(value);
+    }
+
+    /**
+     * @param index position in ascending order, starting from 0
+     * @return value at the given position
+     */
+    public long get(int index) {
+        return list != null ? list.get(index) : counts.get(index);
+    }
+
+    /**
+     * @param value value to be ranked
+     * @return number of stored values which are less than or equal to the given value
+     */
+    public int countAtMost(long value) {
+        return list != null ? list.countAtMost(value) : counts.countAtMost(value);
+    }
+
+    public int size() {
+        return list != null ? list.size() : counts.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return estimated bytes of the stored values, which depend on the number of distinct values while they are kept
+     * as run lengths
+     */
+    public long estimatedBytes() {
+        return list != null ? (long) list.size() * Long.BYTES : (long) counts.distinctCount() * RUN_BYTES;
+    }
+
+    public void clear() {
+        list = null;
+        counts = new SortedLongCounts();
+    }
+
+    /**
+     * @return a copy of the stored values in ascending order
+     */
+    public long[] toArray() {
+        return list != null ? list.toArray() : counts.toArray();
+    }
+
+    /**
+     * @return compact binary form of the values, written as run lengths while they are kept as such
+     */
+    public byte[] encode() {
+        return list != null ? SortedValuesCodec.encode(list.toArray()) : counts.encode();
+    }
+
+    /**
+     * @param percentile percentile (p)
+     * @return pth percentile value as calculated by {@link SortedLongList#percentile(double)}, or 0.0 when the list
+     * is empty
+     */
+    public double percentile(double percentile) {
+        if (list != null) {
+            return list.percentile(percentile);
+        }
+        int size = counts.size();
+        if (size == 0) {
+            return 0.0;
+        }
+        double percentileIndexTemp = percentile * size / 100;
+        int percentileIndex;
+        if (percentileIndexTemp % 1 == 0) {
+            percentileIndex = (int) percentileIndexTemp;
+            if (percentileIndex == size) {
+                return (double) counts.get(percentileIndex - 1);
+            } else {
+                return ((double) counts.get(percentileIndex - 1) + (double) counts.get(percentileIndex)) / 2;
+            }
+        } else {
+            percentileIndex = (int) Math.round(percentileIndexTemp);
+            if (percentileIndex == 0) {
+                return (double) counts.get(percentileIndex);
+            } else {
+                return (double) counts.get(percentileIndex - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+/**
+ * Percentile state which computes its result only when the result is read after a change, and returns the same
+ * result until the next change.
+ */
+public abstract class CachedPercentileAttributeState extends PercentileAttributeState {
+
+    private Object value;
+    private boolean dirty = true;
+
+    /**
+     * @return result computed from the current values of the state
+     */
+    protected abstract Object computeValue();
+
+    /**
+     * Marks that the values of the state have been changed, hence the result has to be recomputed when read.
+     */
+    protected void changed() {
+        dirty = true;
+    }
+
+    @Override
+    public Object currentValue() {
+        if (dirty) {
+            value = computeValue();
+            dirty = false;
+        }
+        return value;
+    }
+
+    /**
+     * Results of expired events are dropped by the selector unless the output expects expired events, hence the
+     * result is not recomputed for them in that case.
+     *
+     * @param outputExpectsExpiredEvents whether the results of expired events are emitted
+     * @return result for an expired event
+     */
+    protected Object expiredValue(boolean outputExpectsExpiredEvents) {
+        return outputExpectsExpiredEvents ? currentValue() : value;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math.util;
+
+import io.siddhi.core.util.snapshot.state.State;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running co-moments of a group of value pairs, used by the covariance and correlation aggregators: the count, the
+ * means of both values, their sums of squared deviations and the sum of the products of their deviations.
+ * <p>
+ * Pairs are added with the bivariate form of Welford's update and removed with its exact inverse, so sliding windows
+ * are supported in constant time without keeping the pairs. As with {@link MomentsAttributeState}, only primitive
+ * fields are updated and the state restarts from zero when the group becomes empty. The removals leave rounding errors
+ * in the sums of squared deviations, hence a value is taken as constant when its sum is too small to be told apart
+ * from them, see {@link MathUtil#isRoundingError(double, double)}.
+ */
+public class CoMomentsAttributeState extends State {
+
+    private static final String COUNT = "COUNT";
+    private static final String MEAN_X = "MEAN_X";
+    private static final String MEAN_Y = "MEAN_Y";
+    private static final String M2_X = "M2_X";
+    private static final String M2_Y = "M2_Y";
+    private static final String C_XY = "C_XY";
+    private static final String MAX_M2_X = "MAX_M2_X";
+    private static final String MAX_M2_Y = "MAX_M2_Y";
+
+    private long count;
+    private double meanX;
+    private double meanY;
+    private double m2X;
+    private double m2Y;
+    private double cXY;
+    // Largest m2X and m2Y since the group last held at most one pair, which bound the rounding errors of the removals.
+    private double maxM2X;
+    private double maxM2Y;
+
+    public void add(double x, double y) {
+        count++;
+        double deltaX = x - meanX;
+        double deltaY = y - meanY;
+        meanX += deltaX / count;
+        meanY += deltaY / count;
+        m2X += deltaX * (x - meanX);
+        m2Y += deltaY * (y - meanY);
+        cXY += deltaX * (y - meanY);
+        if (m2X > maxM2X) {
+            maxM2X = m2X;
+        }
+        if (m2Y > maxM2Y) {
+            maxM2Y = m2Y;
+        }
+    }
+
+    public void remove(double x, double y) {
+        if (count <= 1) {
+            clear();
+            return;
+        }
+        count--;
+        double deltaX = x - meanX;
+        double deltaY = y - meanY;
+        meanX -= deltaX / count;
+        meanY -= deltaY / count;
+        m2X -= deltaX * (x - meanX);
+        m2Y -= deltaY * (y - meanY);
+        cXY -= deltaX * (y - meanY);
+        if (count == 1) {
+            m2X = 0;
+            m2Y = 0;
+            cXY = 0;
+            maxM2X = 0;
+            maxM2Y = 0;
+        } else {
+            m2X = Math.max(m2X, 0);
+            m2Y = Math.max(m2Y, 0);
+        }
+    }
+
+    public void clear() {
+        count = 0;
+        meanX = 0;
+        meanY = 0;
+        m2X = 0;
+        m2Y = 0;
+        cXY = 0;
+        maxM2X = 0;
+        maxM2Y = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanX() {
+        return meanX;
+    }
+
+    public double getMeanY() {
+        return meanY;
+    }
+
+    /**
+     * Returns the sum of the squared deviations of the x values from their mean.
+     *
+     * @return sum of squared deviations of x
+     */
+    public double getM2X() {
+        return m2X;
+    }
+
+    /**
+     * Returns the sum of the squared deviations of the y values from their mean.
+     *
+     * @return sum of squared deviations of y
+     */
+    public double getM2Y() {
+        return m2Y;
+    }
+
+    /**
+     * Returns the sum of the products of the deviations of the x and y values from their means.
+     *
+     * @return sum of products of deviations
+     */
+    public double getCXY() {
+        return cXY;
+    }
+
+    /**
+     * @return true if the x values are all equal, or there are no pairs
+     */
+    public boolean isConstantX() {
+        return MathUtil.isRoundingError(m2X, maxM2X);
+    }
+
+    /**
+     * @return true if the y values are all equal, or there are no pairs
+     */
+    public boolean isConstantY() {
+        return MathUtil.isRoundingError(m2Y, maxM2Y);
+    }
+
+    /**
+     * Returns the population covariance of the pairs, which is 0 when there are no pairs or either value is constant.
+     *
+     * @return population covariance
+     */
+    public double covariance() {
+        return count == 0 || isConstantX() || isConstantY() ? 0.0 : cXY / count;
+    }
+
+    /**
+     * Returns the Pearson correlation coefficient of the pairs, or NaN when it is undefined, i.e. when there are
+     * fewer than two pairs or either value is constant.
+     *
+     * @return correlation coefficient between -1 and 1, or NaN
+     */
+    public double correlation() {
+        if (isConstantX() || isConstantY()) {
+            return Double.NaN;
+        }
+        double correlation = cXY / (Math.sqrt(m2X) * Math.sqrt(m2Y));
+        return Math.max(-1.0, Math.min(1.0, correlation));
+    }
+
+    @Override
+    public boolean canDestroy() {
+        return count == 0;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> state = new HashMap<>();
+        state.put(COUNT, count);
+        state.put(MEAN_X, meanX);
+        state.put(MEAN_Y, meanY);
+        state.put(M2_X, m2X);
+        state.put(M2_Y, m2Y);
+        state.put(C_XY, cXY);
+        state.put(MAX_M2_X, maxM2X);
+        state.put(MAX_M2_Y, maxM2Y);
+        return state;
+    }
+
+    @Override
+    public void restore(Map<String, Object> state) {
+        count = (Long) state.get(COUNT);
+        meanX = (Double) state.get(MEAN_X);
+        meanY = (Double) state.get(MEAN_Y);
+        m2X = (Double) state.get(M2_X);
+        m2Y = (Double) state.get(M2_Y);
+        cXY = (Double) state.get(C_XY);
+        maxM2X = (Double) state.get(MAX_M2_X);
+        maxM2Y = (Double) state.get(MAX_M2_Y);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Quantile sketch in which the weight of a value halves every half-life, so that recent values dominate the
+ * percentiles without retaining a time window of raw values.
+ * <p>
+ * Forward decay (Cormode et al.) is used: instead of decreasing the weight of every stored value as time passes,
+ * a value arriving at time t gets the weight {@code 2^((t - landmark) / halfLife)}, which grows with time. Only the
+ * ratios of the weights matter to the percentiles, hence this is equivalent to backward decay while each update
+ * stays O(1). Before the weights grow large, the landmark is moved forward and the stored weights are scaled down
+ * once. The values which are {@link #RENORMALISATION_EXPONENT} half-lives older than the landmark are then dropped,
+ * and the minimum and maximum are recomputed from the remaining values, hence an old outlier stops affecting the
+ * extreme percentiles. The values are summarised by a {@link TDigest}, hence the memory is bounded by its
+ * compression.
+ */
+public class DecayingQuantileSketch implements QuantileSketch {
+
+    private static final String LANDMARK = "LANDMARK";
+    /**
+     * Number of half-lives after which the landmark is moved. Values that many half-lives older than the moved
+     * landmark weigh less than a billionth of a new value, and are dropped.
+     */
+    private static final int RENORMALISATION_EXPONENT = 32;
+    private static final double MIN_WEIGHT = Math.pow(2, -RENORMALISATION_EXPONENT);
+
+    private final TDigest digest;
+    private final double halfLife;
+    private final LongSupplier clock;
+    private long landmark;
+    private boolean landmarkSet;
+
+    /**
+     * @param compression compression of the underlying t-digest
+     * @param halfLife    time after which the weight of a value halves, in the units of the clock
+     * @param clock       source of the current time of the values added without a timestamp, such as the current
+     *                    time of the Siddhi app
+     */
+    public DecayingQuantileSketch(double compression, double halfLife, LongSupplier clock) {
+        this.digest = new TDigest(compression);
+        this.halfLife = halfLife;
+        this.clock = clock;
+    }
+
+    @Override
+    public void add(double value) {
+        add(value, clock.getAsLong());
+    }
+
+    /**
+     * @param value     value
+     * @param timestamp time of the value, in the units of the half-life
+     */
+    public void add(double value, long timestamp) {
+        if (!landmarkSet) {
+            landmark = timestamp;
+            landmarkSet = true;
+        }
+        double exponent = (timestamp - landmark) / halfLife;
+        if (exponent > RENORMALISATION_EXPONENT) {
+            // Moves the landmark by a whole number of half-lives, so that the scaling is exact.
+            long halfLives = (long) Math.floor(exponent);
+            double factor = Math.pow(2, -halfLives);
+            if (factor > 0) {
+                digest.scaleWeights(factor);
+                digest.dropLighterThan(MIN_WEIGHT);
+            } else {
+                // Every stored value has decayed below the smallest double, hence none of them is left.
+                digest.clear();
+            }
+            landmark += (long) (halfLives * halfLife);
+            exponent = (timestamp - landmark) / halfLife;
+        }
+        // Values whose timestamp is older than that of the latest values get a smaller weight, as if they had
+        // decayed since their timestamp.
+        digest.add(value, Math.pow(2, exponent));
+    }
+
+    @Override
+    public void remove(double value) {
+        throw new UnsupportedOperationException("decaying sketch does not support removing values");
+    }
+
+    @Override
+    public double percentile(double percentile) {
+        return digest.percentile(percentile);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return digest.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        digest.clear();
+        landmarkSet = false;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> state = digest.snapshot();
+        if (landmarkSet) {
+            state.put(LANDMARK, landmark);
+        }
+        return state;
+    }
+
+    @Override
+    public void restore(Map<String, Object> state) {
+        digest.restore(state);
+        Object restoredLandmark = state.get(LANDMARK);
+        landmarkSet = restoredLandmark != null;
+        if (landmarkSet) {
+            landmark = (Long) restoredLandmark;
+        }
+    }
+}
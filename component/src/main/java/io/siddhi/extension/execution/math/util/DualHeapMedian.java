@@ -0,0 +1,348 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import java.util.Arrays;
+
+/**
+ * Multiset of long values which keeps its middle values at hand, used by the median states.
+ * <p>
+ * The lower half of the values is kept in a max-heap and the upper half in a min-heap, both in primitive arrays, so
+ * the middle values are the heap tops and adding a value is O(log n). Removed values are not searched for; they are
+ * counted as pending removals and dropped once they reach the top of a heap (lazy deletion). When the pending values
+ * outnumber the live values, the heaps are rebuilt without them, which bounds the memory to a constant factor of the
+ * live values even when removed values never surface, e.g. with steadily increasing values. The live occurrences of
+ * each distinct value are counted as well, so that removing a value which is not present is detected and ignored.
+ * <p>
+ * FLOAT and DOUBLE values are kept through {@link SortedValuesCodec#toSortableLong(double)}, which keeps their order.
+ */
+public class DualHeapMedian {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MIN_PENDING_BEFORE_REBUILD = 64;
+
+    private long[] lower = new long[INITIAL_CAPACITY];
+    private int lowerHeapSize;
+    private int lowerSize;
+    private long[] upper = new long[INITIAL_CAPACITY];
+    private int upperHeapSize;
+    private int upperSize;
+    private final CountTable live = new CountTable();
+    private final CountTable pending = new CountTable();
+
+    /**
+     * Creates a median from values which are already sorted in ascending order.
+     *
+     * @param sortedValues sorted values
+     * @return median of the values
+     */
+    public static DualHeapMedian fromSorted(long[] sortedValues) {
+        DualHeapMedian median = new DualHeapMedian();
+        int lowerCount = (sortedValues.length + 1) / 2;
+        median.lower = new long[Math.max(INITIAL_CAPACITY, lowerCount)];
+        median.upper = new long[Math.max(INITIAL_CAPACITY, sortedValues.length - lowerCount)];
+        // Descending values form a max-heap and ascending values a min-heap as they are.
+        for (int i = 0; i < lowerCount; i++) {
+            median.lower[i] = sortedValues[lowerCount - 1 - i];
+        }
+        System.arraycopy(sortedValues, lowerCount, median.upper, 0, sortedValues.length - lowerCount);
+        median.lowerHeapSize = lowerCount;
+        median.lowerSize = lowerCount;
+        median.upperHeapSize = sortedValues.length - lowerCount;
+        median.upperSize = sortedValues.length - lowerCount;
+        for (long value : sortedValues) {
+            median.live.increment(value);
+        }
+        return median;
+    }
+
+    public void add(long value) {
+        live.increment(value);
+        if (lowerSize == 0 || value <= lower[0]) {
+            lower = push(lower, lowerHeapSize++, value, true);
+            lowerSize++;
+        } else {
+            upper = push(upper, upperHeapSize++, value, false);
+            upperSize++;
+        }
+        rebalance();
+    }
+
+    /**
+     * Removes a single occurrence of the given value.
+     *
+     * @param value value to be removed
+     * @return true if the value was found and removed
+     */
+    public boolean remove(long value) {
+        if (!live.decrement(value)) {
+            return false;
+        }
+        pending.increment(value);
+        if (value <= lower[0]) {
+            lowerSize--;
+        } else {
+            upperSize--;
+        }
+        prune();
+        rebalance();
+        if (lowerHeapSize + upperHeapSize - size() > Math.max(size(), MIN_PENDING_BEFORE_REBUILD)) {
+            rebuild();
+        }
+        return true;
+    }
+
+    public int size() {
+        return lowerSize + upperSize;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        lower = new long[INITIAL_CAPACITY];
+        upper = new long[INITIAL_CAPACITY];
+        lowerHeapSize = 0;
+        lowerSize = 0;
+        upperHeapSize = 0;
+        upperSize = 0;
+        live.clear(INITIAL_CAPACITY);
+        pending.clear(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return the middle value, or the lower of the two middle values when the size is even
+     */
+    public long lowerMiddle() {
+        return lower[0];
+    }
+
+    /**
+     * @return the middle value, or the upper of the two middle values when the size is even
+     */
+    public long upperMiddle() {
+        return lowerSize > upperSize ? lower[0] : upper[0];
+    }
+
+    /**
+     * @return values in ascending order
+     */
+    public long[] toSortedArray() {
+        rebuild();
+        long[] values = new long[size()];
+        System.arraycopy(lower, 0, values, 0, lowerHeapSize);
+        System.arraycopy(upper, 0, values, lowerHeapSize, upperHeapSize);
+        Arrays.sort(values);
+        return values;
+    }
+
+    private void rebalance() {
+        while (lowerSize > upperSize + 1) {
+            long value = pop(lower, lowerHeapSize--, true);
+            upper = push(upper, upperHeapSize++, value, false);
+            lowerSize--;
+            upperSize++;
+            prune();
+        }
+        while (lowerSize < upperSize) {
+            long value = pop(upper, upperHeapSize--, false);
+            lower = push(lower, lowerHeapSize++, value, true);
+            upperSize--;
+            lowerSize++;
+            prune();
+        }
+    }
+
+    /**
+     * Drops the pending removals from the heap tops, so that the tops are always live values.
+     */
+    private void prune() {
+        while (lowerHeapSize > 0 && pending.decrement(lower[0])) {
+            pop(lower, lowerHeapSize--, true);
+        }
+        while (upperHeapSize > 0 && pending.decrement(upper[0])) {
+            pop(upper, upperHeapSize--, false);
+        }
+    }
+
+    /**
+     * Drops all pending removals from the heaps. As every lower value is at most every upper value, a pending value
+     * found in both heaps can be dropped from either of them.
+     */
+    private void rebuild() {
+        lowerHeapSize = dropPending(lower, lowerHeapSize);
+        upperHeapSize = dropPending(upper, upperHeapSize);
+        lowerSize = lowerHeapSize;
+        upperSize = upperHeapSize;
+        heapify(lower, lowerHeapSize, true);
+        heapify(upper, upperHeapSize, false);
+        pending.clear(INITIAL_CAPACITY);
+        rebalance();
+    }
+
+    private int dropPending(long[] heap, int heapSize) {
+        int size = 0;
+        for (int i = 0; i < heapSize; i++) {
+            if (!pending.decrement(heap[i])) {
+                heap[size++] = heap[i];
+            }
+        }
+        return size;
+    }
+
+    private static long[] push(long[] heap, int heapSize, long value, boolean max) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize << 1);
+        }
+        int i = heapSize;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (max ? heap[parent] >= value : heap[parent] <= value) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+        return heap;
+    }
+
+    private static long pop(long[] heap, int heapSize, boolean max) {
+        long top = heap[0];
+        siftDown(heap, heapSize - 1, 0, heap[heapSize - 1], max);
+        return top;
+    }
+
+    private static void heapify(long[] heap, int heapSize, boolean max) {
+        for (int i = (heapSize >>> 1) - 1; i >= 0; i--) {
+            siftDown(heap, heapSize, i, heap[i], max);
+        }
+    }
+
+    private static void siftDown(long[] heap, int heapSize, int i, long value, boolean max) {
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = (i << 1) + 1;
+            int right = child + 1;
+            if (right < heapSize && (max ? heap[right] > heap[child] : heap[right] < heap[child])) {
+                child = right;
+            }
+            if (max ? value >= heap[child] : value <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (heapSize > 0) {
+            heap[i] = value;
+        }
+    }
+
+    /**
+     * Open addressing table of the number of occurrences of long values. Values whose count drops to 0 keep their
+     * slot until the table is resized.
+     */
+    private static class CountTable {
+
+        private long[] keys;
+        private int[] counts;
+        private boolean[] used;
+        private int usedSlots;
+
+        private CountTable() {
+            clear(INITIAL_CAPACITY);
+        }
+
+        private void increment(long value) {
+            if ((usedSlots + 1) << 1 > keys.length) {
+                resize();
+            }
+            int slot = slot(value);
+            if (!used[slot]) {
+                used[slot] = true;
+                keys[slot] = value;
+                usedSlots++;
+            }
+            counts[slot]++;
+        }
+
+        /**
+         * @return true if the value was counted, in which case its count is decremented
+         */
+        private boolean decrement(long value) {
+            if (usedSlots == 0) {
+                return false;
+            }
+            int slot = slot(value);
+            if (!used[slot] || counts[slot] == 0) {
+                return false;
+            }
+            counts[slot]--;
+            return true;
+        }
+
+        /**
+         * @return the slot of the value, or the free slot where it belongs
+         */
+        private int slot(long value) {
+            int mask = keys.length - 1;
+            int slot = Long.hashCode(value * 0x9E3779B97F4A7C15L) & mask;
+            while (used[slot] && keys[slot] != value) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Rehashes the table without the values whose count is 0, growing it only when needed.
+         */
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+            boolean[] oldUsed = used;
+            int live = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i] && oldCounts[i] > 0) {
+                    live++;
+                }
+            }
+            int capacity = INITIAL_CAPACITY;
+            while (capacity < (live + 1) << 2) {
+                capacity <<= 1;
+            }
+            clear(capacity);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i] && oldCounts[i] > 0) {
+                    int slot = slot(oldKeys[i]);
+                    used[slot] = true;
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                    usedSlots++;
+                }
+            }
+        }
+
+        private void clear(int capacity) {
+            keys = new long[capacity];
+            counts = new int[capacity];
+            used = new boolean[capacity];
+            usedSlots = 0;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Greenwald-Khanna quantile summary with a deterministic rank error.
+ * <p>
+ * The summary keeps sorted tuples (v, g, delta), where g is the difference between the smallest possible rank of
+ * v and that of the previous tuple, and delta is the uncertainty of the rank of v. Tuples are merged as long as
+ * g + delta stays within {@code 2 * epsilon * n}, hence the rank of every returned value is guaranteed to be within
+ * {@code epsilon * n} of the requested rank. As in the paper, a tuple is only merged together with the tuples
+ * inserted after it (its descendants, which have a smaller delta band) into a neighbour whose band is not smaller,
+ * which bounds the summary to {@code (11 / (2 * epsilon)) * log(2 * epsilon * n)} tuples.
+ * <p>
+ * Incoming values are buffered, sorted and merged into the tuples in batches of about {@code 1 / (2 * epsilon)},
+ * followed by a compression, so that the amortised cost of an update is O(log(1 / epsilon)).
+ */
+public class GkSummary implements QuantileSketch {
+
+    private static final String VALUES = "VALUES";
+    private static final String GAPS = "GAPS";
+    private static final String DELTAS = "DELTAS";
+    private static final String COUNT = "COUNT";
+    private static final int MIN_BUFFER_CAPACITY = 16;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final double epsilon;
+    private double[] values = new double[INITIAL_CAPACITY];
+    private long[] gaps = new long[INITIAL_CAPACITY];
+    private long[] deltas = new long[INITIAL_CAPACITY];
+    private int tupleCount;
+    private long count;
+
+    // Arrays the buffered values are merged into, swapped with the tuple arrays after each merge.
+    private double[] spareValues = new double[0];
+    private long[] spareGaps = new long[0];
+    private long[] spareDeltas = new long[0];
+    // Band, first descendant and total gap with the descendants of each tuple, used while compressing.
+    private int[] bands = new int[0];
+    private int[] subtreeStarts = new int[0];
+    private long[] subtreeGaps = new long[0];
+
+    private final double[] buffer;
+    private int bufferCount;
+
+    public GkSummary(double epsilon) {
+        this.epsilon = epsilon;
+        this.buffer = new double[Math.max(MIN_BUFFER_CAPACITY, (int) Math.min(1 << 16, 1 / (2 * epsilon)))];
+    }
+
+    @Override
+    public void add(double value) {
+        if (bufferCount == buffer.length) {
+            flush();
+        }
+        buffer[bufferCount++] = value;
+    }
+
+    @Override
+    public void remove(double value) {
+        throw new UnsupportedOperationException("GK summary does not support removing values");
+    }
+
+    /**
+     * Finds the stored value whose rank range lies within {@code epsilon * n} of the rank {@code p * n / 100}.
+     */
+    @Override
+    public double percentile(double percentile) {
+        if (bufferCount > 0) {
+            flush();
+        }
+        if (tupleCount == 0) {
+            return 0.0;
+        }
+        double rank = Math.max(1, Math.ceil(percentile * count / 100));
+        double allowedError = epsilon * count;
+        long minRank = 0;
+        for (int i = 0; i < tupleCount; i++) {
+            minRank += gaps[i];
+            long maxRank = minRank + deltas[i];
+            if (rank - minRank <= allowedError && maxRank - rank <= allowedError) {
+                return values[i];
+            }
+        }
+        return values[tupleCount - 1];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0 && bufferCount == 0;
+    }
+
+    @Override
+    public void clear() {
+        values = new double[INITIAL_CAPACITY];
+        gaps = new long[INITIAL_CAPACITY];
+        deltas = new long[INITIAL_CAPACITY];
+        spareValues = new double[0];
+        spareGaps = new long[0];
+        spareDeltas = new long[0];
+        bands = new int[0];
+        subtreeStarts = new int[0];
+        subtreeGaps = new long[0];
+        tupleCount = 0;
+        count = 0;
+        bufferCount = 0;
+    }
+
+    /**
+     * @return number of tuples retained by the summary, excluding the buffered values
+     */
+    public int getTupleCount() {
+        return tupleCount;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        if (bufferCount > 0) {
+            flush();
+        }
+        Map<String, Object> state = new HashMap<>();
+        state.put(VALUES, Arrays.copyOf(values, tupleCount));
+        state.put(GAPS, Arrays.copyOf(gaps, tupleCount));
+        state.put(DELTAS, Arrays.copyOf(deltas, tupleCount));
+        state.put(COUNT, count);
+        return state;
+    }
+
+    @Override
+    public void restore(Map<String, Object> state) {
+        double[] restoredValues = (double[]) state.get(VALUES);
+        tupleCount = restoredValues.length;
+        int capacity = Math.max(INITIAL_CAPACITY, tupleCount);
+        values = Arrays.copyOf(restoredValues, capacity);
+        gaps = Arrays.copyOf((long[]) state.get(GAPS), capacity);
+        deltas = Arrays.copyOf((long[]) state.get(DELTAS), capacity);
+        count = (Long) state.get(COUNT);
+        bufferCount = 0;
+    }
+
+    /**
+     * Merges the sorted buffer into the tuples and compresses the result.
+     */
+    private void flush() {
+        Arrays.sort(buffer, 0, bufferCount);
+        int mergedCapacity = tupleCount + bufferCount;
+        if (spareValues.length < mergedCapacity) {
+            // Grows ahead of the tuples, so that the spare arrays are rarely reallocated.
+            int capacity = Math.max(mergedCapacity, values.length + buffer.length);
+            spareValues = new double[capacity];
+            spareGaps = new long[capacity];
+            spareDeltas = new long[capacity];
+        }
+        double[] mergedValues = spareValues;
+        long[] mergedGaps = spareGaps;
+        long[] mergedDeltas = spareDeltas;
+        int mergedCount = 0;
+        int tupleIndex = 0;
+        for (int bufferIndex = 0; bufferIndex < bufferCount; bufferIndex++) {
+            double value = buffer[bufferIndex];
+            while (tupleIndex < tupleCount && values[tupleIndex] <= value) {
+                mergedValues[mergedCount] = values[tupleIndex];
+                mergedGaps[mergedCount] = gaps[tupleIndex];
+                mergedDeltas[mergedCount] = deltas[tupleIndex];
+                mergedCount++;
+                tupleIndex++;
+            }
+            count++;
+            mergedValues[mergedCount] = value;
+            mergedGaps[mergedCount] = 1;
+            // A new minimum or maximum knows its exact rank, any other value may be off by the allowed error.
+            boolean isExtreme = mergedCount == 0 || tupleIndex == tupleCount && bufferIndex == bufferCount - 1;
+            mergedDeltas[mergedCount] = isExtreme ? 0 : Math.max(0, (long) Math.floor(2 * epsilon * count) - 1);
+            mergedCount++;
+        }
+        while (tupleIndex < tupleCount) {
+            mergedValues[mergedCount] = values[tupleIndex];
+            mergedGaps[mergedCount] = gaps[tupleIndex];
+            mergedDeltas[mergedCount] = deltas[tupleIndex];
+            mergedCount++;
+            tupleIndex++;
+        }
+        spareValues = values;
+        spareGaps = gaps;
+        spareDeltas = deltas;
+        values = mergedValues;
+        gaps = mergedGaps;
+        deltas = mergedDeltas;
+        tupleCount = mergedCount;
+        bufferCount = 0;
+        compress();
+    }
+
+    /**
+     * Merges each tuple, together with its descendants, into its right neighbour when the band of the neighbour is
+     * not smaller and the merged tuple keeps g + delta within {@code 2 * epsilon * n}. The descendants of a tuple
+     * are the tuples on its left with a smaller band. The first and the last tuples, which hold the exact minimum
+     * and maximum, are kept.
+     */
+    private void compress() {
+        if (tupleCount < 3) {
+            return;
+        }
+        long threshold = (long) Math.floor(2 * epsilon * count);
+        if (bands.length < tupleCount) {
+            bands = new int[values.length];
+            subtreeStarts = new int[values.length];
+            subtreeGaps = new long[values.length];
+        }
+        // The descendants of a tuple are the subtrees of the tuples on its left with smaller bands, which are
+        // skipped as a whole.
+        for (int i = 1; i < tupleCount; i++) {
+            int band = band(deltas[i], threshold);
+            bands[i] = band;
+            int start = i;
+            long subtreeGap = gaps[i];
+            while (start > 1 && bands[start - 1] < band) {
+                subtreeGap += subtreeGaps[start - 1];
+                start = subtreeStarts[start - 1];
+            }
+            subtreeStarts[i] = start;
+            subtreeGaps[i] = subtreeGap;
+        }
+        // Compacts from right to left in place, the kept tuples end up at the tail of the arrays.
+        int target = tupleCount - 1;
+        int targetBand = bands[target];
+        int i = tupleCount - 2;
+        while (i >= 1) {
+            int band = bands[i];
+            if (band <= targetBand && subtreeGaps[i] + gaps[target] + deltas[target] < threshold) {
+                gaps[target] += subtreeGaps[i];
+                i = subtreeStarts[i] - 1;
+                continue;
+            }
+            target--;
+            values[target] = values[i];
+            gaps[target] = gaps[i];
+            deltas[target] = deltas[i];
+            targetBand = band;
+            i--;
+        }
+        target--;
+        values[target] = values[0];
+        gaps[target] = gaps[0];
+        deltas[target] = deltas[0];
+        int keptCount = tupleCount - target;
+        System.arraycopy(values, target, values, 0, keptCount);
+        System.arraycopy(gaps, target, gaps, 0, keptCount);
+        System.arraycopy(deltas, target, deltas, 0, keptCount);
+        tupleCount = keptCount;
+    }
+
+    /**
+     * Band of a delta as defined by Greenwald and Khanna: band 0 holds delta = p, and band a holds the deltas in
+     * {@code (p - 2^a - (p mod 2^a), p - 2^(a - 1) - (p mod 2^(a - 1))]}, hence older tuples, which got their delta
+     * when n was smaller, have larger bands.
+     *
+     * @param delta rank uncertainty of a tuple
+     * @param p     {@code floor(2 * epsilon * n)}
+     * @return band of the delta
+     */
+    private static int band(long delta, long p) {
+        if (delta >= p) {
+            return 0;
+        }
+        // The deltas of the bands below the band of p - delta are too large, hence at most two bands are checked.
+        int band = Math.max(1, 63 - Long.numberOfLeadingZeros(p - delta));
+        while (delta <= p - (1L << band) - (p & ((1L << band) - 1))) {
+            band++;
+        }
+        return band;
+    }
+}
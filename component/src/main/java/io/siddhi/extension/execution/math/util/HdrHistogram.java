@@ -0,0 +1,194 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * High dynamic range histogram of non negative integer values, following the bucket layout of HdrHistogram.
+ * <p>
+ * Values are tracked with a fixed number of significant decimal digits up to the highest trackable value, hence
+ * recording and removing a value is a single array increment or decrement and a percentile lookup is a single
+ * pass over the buckets without any allocation. Values outside [0, highestTrackableValue] are clamped to that range.
+ */
+public class HdrHistogram implements QuantileSketch {
+
+    private static final String INDEXES = "INDEXES";
+    private static final String COUNTS = "COUNTS";
+
+    private final long highestTrackableValue;
+    private final int subBucketHalfCountMagnitude;
+    private final int subBucketHalfCount;
+    private final long subBucketMask;
+    private final long[] counts;
+    private long totalCount;
+
+    /**
+     * @param highestTrackableValue highest value to be tracked, at least 2
+     * @param significantDigits     number of significant decimal digits to be preserved, between 0 and 5
+     */
+    public HdrHistogram(long highestTrackableValue, int significantDigits) {
+        if (highestTrackableValue < 2) {
+            throw new IllegalArgumentException("Highest trackable value should be at least 2, but found " +
+                    highestTrackableValue);
+        }
+        if (significantDigits < 0 || significantDigits > 5) {
+            throw new IllegalArgumentException("Significant digits should be between 0 and 5, but found " +
+                    significantDigits);
+        }
+        this.highestTrackableValue = highestTrackableValue;
+        long largestValueWithSingleUnitResolution = 2 * (long) Math.pow(10, significantDigits);
+        int subBucketCountMagnitude = (int) Math.ceil(Math.log(largestValueWithSingleUnitResolution) / Math.log(2));
+        subBucketHalfCountMagnitude = Math.max(subBucketCountMagnitude, 1) - 1;
+        int subBucketCount = 1 << (subBucketHalfCountMagnitude + 1);
+        subBucketHalfCount = subBucketCount / 2;
+        subBucketMask = subBucketCount - 1;
+
+        long smallestUntrackableValue = subBucketCount;
+        int bucketCount = 1;
+        while (smallestUntrackableValue <= highestTrackableValue) {
+            if (smallestUntrackableValue > Long.MAX_VALUE / 2) {
+                bucketCount++;
+                break;
+            }
+            smallestUntrackableValue <<= 1;
+            bucketCount++;
+        }
+        counts = new long[(bucketCount + 1) * subBucketHalfCount];
+    }
+
+    @Override
+    public void add(double value) {
+        record((long) value);
+    }
+
+    public void record(long value) {
+        counts[countsIndex(value)]++;
+        totalCount++;
+    }
+
+    @Override
+    public void remove(double value) {
+        remove((long) value);
+    }
+
+    /**
+     * Removes a previously recorded value.
+     *
+     * @param value expired value
+     */
+    public void remove(long value) {
+        int index = countsIndex(value);
+        if (counts[index] > 0) {
+            counts[index]--;
+            totalCount--;
+        }
+    }
+
+    /**
+     * @param percentile percentile (p) where 0 < p <= 100
+     * @return highest value equivalent to the pth percentile within the histogram resolution, or 0.0 when empty
+     */
+    @Override
+    public double percentile(double percentile) {
+        if (totalCount == 0) {
+            return 0.0;
+        }
+        long countAtPercentile = Math.max(1, (long) (percentile / 100 * totalCount + 0.5));
+        long countSoFar = 0;
+        for (int i = 0; i < counts.length; i++) {
+            countSoFar += counts[i];
+            if (countSoFar >= countAtPercentile) {
+                return highestEquivalentValue(i);
+            }
+        }
+        return highestEquivalentValue(counts.length - 1);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return totalCount == 0;
+    }
+
+    @Override
+    public void clear() {
+        if (totalCount > 0) {
+            Arrays.fill(counts, 0);
+            totalCount = 0;
+        }
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        int nonZeroCount = 0;
+        for (long count : counts) {
+            if (count != 0) {
+                nonZeroCount++;
+            }
+        }
+        int[] snapshotIndexes = new int[nonZeroCount];
+        long[] snapshotCounts = new long[nonZeroCount];
+        for (int i = 0, j = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                snapshotIndexes[j] = i;
+                snapshotCounts[j] = counts[i];
+                j++;
+            }
+        }
+        Map<String, Object> state = new HashMap<>();
+        state.put(INDEXES, snapshotIndexes);
+        state.put(COUNTS, snapshotCounts);
+        return state;
+    }
+
+    @Override
+    public void restore(Map<String, Object> state) {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        int[] restoredIndexes = (int[]) state.get(INDEXES);
+        long[] restoredCounts = (long[]) state.get(COUNTS);
+        for (int i = 0; i < restoredIndexes.length; i++) {
+            counts[restoredIndexes[i]] = restoredCounts[i];
+            totalCount += restoredCounts[i];
+        }
+    }
+
+    private int countsIndex(long value) {
+        if (value < 0) {
+            value = 0;
+        } else if (value > highestTrackableValue) {
+            value = highestTrackableValue;
+        }
+        int bucketIndex = 64 - Long.numberOfLeadingZeros(value | subBucketMask) - (subBucketHalfCountMagnitude + 1);
+        int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << subBucketHalfCountMagnitude) + (subBucketIndex - subBucketHalfCount);
+    }
+
+    private long highestEquivalentValue(int index) {
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+        if (bucketIndex < 0) {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        long lowestEquivalentValue = ((long) subBucketIndex) << bucketIndex;
+        return Math.min(lowestEquivalentValue + (1L << bucketIndex) - 1, highestTrackableValue);
+    }
+}
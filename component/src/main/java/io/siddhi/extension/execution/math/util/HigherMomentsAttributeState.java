@@ -0,0 +1,160 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math.util;
+
+import io.siddhi.core.util.snapshot.state.State;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running count, mean and second to fourth central moment sums of a group of values, used by the skewness and
+ * kurtosis aggregators.
+ * <p>
+ * Values are added with Terriberry's extension of Welford's update to the higher moments, and removed by applying
+ * that update backwards, which recovers the previous moments exactly up to rounding. As with
+ * {@link MomentsAttributeState}, only primitive fields are updated, the state restarts from zero when the group
+ * becomes empty, and the values are taken as all equal when the sum of squared deviations is too small to be told
+ * apart from the rounding errors of the removals.
+ */
+public class HigherMomentsAttributeState extends State {
+
+    private static final String COUNT = "COUNT";
+    private static final String MEAN = "MEAN";
+    private static final String M2 = "M2";
+    private static final String M3 = "M3";
+    private static final String M4 = "M4";
+    private static final String MAX_M2 = "MAX_M2";
+
+    private long count;
+    private double mean;
+    private double m2;
+    private double m3;
+    private double m4;
+    // Largest m2 since the group last held at most one value, which bounds the rounding errors of the removals.
+    private double maxM2;
+
+    public void add(double value) {
+        long previousCount = count;
+        count++;
+        double delta = value - mean;
+        double deltaN = delta / count;
+        double deltaN2 = deltaN * deltaN;
+        double term = delta * deltaN * previousCount;
+        mean += deltaN;
+        m4 += term * deltaN2 * ((double) count * count - 3 * count + 3) + 6 * deltaN2 * m2 - 4 * deltaN * m3;
+        m3 += term * deltaN * (count - 2) - 3 * deltaN * m2;
+        m2 += term;
+        if (m2 > maxM2) {
+            maxM2 = m2;
+        }
+    }
+
+    public void remove(double value) {
+        if (count <= 1) {
+            clear();
+            return;
+        }
+        long previousCount = count - 1;
+        // The deviation from the mean before the value was added, which the update of add() was based on.
+        double delta = (value - mean) * count / previousCount;
+        double deltaN = delta / count;
+        double deltaN2 = deltaN * deltaN;
+        double term = delta * deltaN * previousCount;
+        m2 -= term;
+        m3 -= term * deltaN * (count - 2) - 3 * deltaN * m2;
+        m4 -= term * deltaN2 * ((double) count * count - 3 * count + 3) + 6 * deltaN2 * m2 - 4 * deltaN * m3;
+        mean -= deltaN;
+        count = previousCount;
+        if (count == 1 || m2 < 0) {
+            m2 = 0;
+            m3 = 0;
+            m4 = 0;
+        }
+        if (count == 1) {
+            maxM2 = 0;
+        }
+    }
+
+    public void clear() {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+        m3 = 0;
+        m4 = 0;
+        maxM2 = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the population skewness of the values, or NaN when it is undefined, i.e. when all the values are the
+     * same.
+     *
+     * @return population skewness, or NaN
+     */
+    public double skewness() {
+        if (MathUtil.isRoundingError(m2, maxM2)) {
+            return Double.NaN;
+        }
+        return Math.sqrt(count) * m3 / (m2 * Math.sqrt(m2));
+    }
+
+    /**
+     * Returns the population excess kurtosis of the values, which is 0 for a normal distribution, or NaN when it is
+     * undefined, i.e. when all the values are the same.
+     *
+     * @return population excess kurtosis, or NaN
+     */
+    public double kurtosis() {
+        if (MathUtil.isRoundingError(m2, maxM2)) {
+            return Double.NaN;
+        }
+        return count * m4 / (m2 * m2) - 3;
+    }
+
+    @Override
+    public boolean canDestroy() {
+        return count == 0;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> state = new HashMap<>();
+        state.put(COUNT, count);
+        state.put(MEAN, mean);
+        state.put(M2, m2);
+        state.put(M3, m3);
+        state.put(M4, m4);
+        state.put(MAX_M2, maxM2);
+        return state;
+    }
+
+    @Override
+    public void restore(Map<String, Object> state) {
+        count = (Long) state.get(COUNT);
+        mean = (Double) state.get(MEAN);
+        m2 = (Double) state.get(M2);
+        m3 = (Double) state.get(M3);
+        m4 = (Double) state.get(M4);
+        maxM2 = (Double) state.get(MAX_M2);
+    }
+}
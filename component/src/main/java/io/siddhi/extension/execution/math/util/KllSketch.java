@@ -0,0 +1,492 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import io.siddhi.core.exception.SiddhiAppRuntimeException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * KLL quantile sketch (Karnin, Lang and Liberty) of double values.
+ * <p>
+ * Values are kept in a hierarchy of compactors where an item at level h stands for 2^h values. When the sketch is
+ * full, the lowest full level is sorted and every other item is promoted to the next level. With parameter k the
+ * sketch retains O(k) items and the rank error shrinks in proportion to 1 / k, being about 1.65% at k = 200 with high
+ * probability, independent of the number of values. Sketches of the same k built from disjoint streams can be merged,
+ * and the sketch can be exported to a compact byte array holding its retained items.
+ * <p>
+ * The levels above 0 only change when the sketch compacts, which happens once every many values, hence their binary
+ * form is cached and exporting the sketch after adding a value only encodes level 0 and copies the cached bytes.
+ */
+public class KllSketch implements QuantileSketch {
+
+    private static final String SKETCH = "SKETCH";
+    private static final byte SERIAL_VERSION = 1;
+    private static final int HEADER_BYTES = 1 + 4 + 8 + 8 + 8 + 1;
+    private static final int SINGLE_VALUE_BYTES = HEADER_BYTES + 4 + 8;
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+    private static final int MIN_LEVEL_CAPACITY = 8;
+
+    private final int k;
+    private double[][] levels;
+    private int[] levelSizes;
+    private int levelCount;
+    private int retainedCount;
+    private int maxRetainedCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    // Sorted view of the levels above 0 with the cumulative weight of each item, rebuilt after compactions.
+    private double[] sortedItems;
+    private long[] cumulativeWeights;
+    private int sortedCount;
+    private boolean sortedViewDirty;
+
+    // Binary form of the levels above 0, rebuilt when they change.
+    private byte[] upperLevelBytes;
+    private boolean upperLevelBytesDirty = true;
+
+    public KllSketch(int k) {
+        if (k < MIN_LEVEL_CAPACITY) {
+            throw new IllegalArgumentException("KLL sketch parameter k should be at least " + MIN_LEVEL_CAPACITY +
+                    ", but found " + k);
+        }
+        this.k = k;
+        levels = new double[4][];
+        levelSizes = new int[4];
+        addLevel();
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void add(double value) {
+        // Level 0 is kept sorted, which makes compactions and percentile lookups cheaper.
+        double[] level = levels[0];
+        int size = levelSizes[0];
+        if (size == level.length) {
+            level = Arrays.copyOf(level, size * 2);
+            levels[0] = level;
+        }
+        int low = 0;
+        int insertIndex = size;
+        while (low < insertIndex) {
+            int mid = (low + insertIndex) >>> 1;
+            if (level[mid] <= value) {
+                low = mid + 1;
+            } else {
+                insertIndex = mid;
+            }
+        }
+        System.arraycopy(level, insertIndex, level, insertIndex + 1, size - insertIndex);
+        level[insertIndex] = value;
+        levelSizes[0]++;
+        retainedCount++;
+        count++;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+        if (retainedCount >= maxRetainedCount) {
+            compress();
+        }
+    }
+
+    @Override
+    public void remove(double value) {
+        throw new UnsupportedOperationException("KLL sketch does not support removing values");
+    }
+
+    /**
+     * Merges the values summarised by the other sketch into this sketch.
+     *
+     * @param other sketch to be merged, which is not modified
+     */
+    public void merge(KllSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        while (levelCount < other.levelCount) {
+            addLevel();
+        }
+        for (int h = 0; h < other.levelCount; h++) {
+            if (other.levelSizes[h] > 0) {
+                appendSorted(h, other.levels[h], other.levelSizes[h]);
+            }
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sortedViewDirty = true;
+        upperLevelBytesDirty = true;
+        while (retainedCount >= maxRetainedCount) {
+            compress();
+        }
+    }
+
+    @Override
+    public double percentile(double percentile) {
+        if (count == 0) {
+            return 0.0;
+        }
+        if (percentile >= 100) {
+            return max;
+        }
+        if (sortedViewDirty) {
+            buildSortedView();
+        }
+        long targetWeight = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        // Merge walk over the sorted level 0 (weight 1) and the sorted view of the upper levels.
+        double[] level0 = levels[0];
+        int size0 = levelSizes[0];
+        int i = 0;
+        int j = 0;
+        long weightSoFar = 0;
+        long upperWeightSoFar = 0;
+        double item = max;
+        while (weightSoFar < targetWeight && (i < size0 || j < sortedCount)) {
+            if (j == sortedCount || (i < size0 && level0[i] <= sortedItems[j])) {
+                item = level0[i++];
+                weightSoFar++;
+            } else {
+                item = sortedItems[j];
+                weightSoFar += cumulativeWeights[j] - upperWeightSoFar;
+                upperWeightSoFar = cumulativeWeights[j];
+                j++;
+            }
+        }
+        return Math.min(Math.max(item, min), max);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(levelSizes, 0);
+        levelCount = 0;
+        retainedCount = 0;
+        count = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        sortedCount = 0;
+        sortedViewDirty = false;
+        addLevel();
+    }
+
+    /**
+     * Serialises the sketch as: version (byte), k (int), count (long), min (double), max (double),
+     * number of levels (byte), and for each level its size (int) followed by its sorted items (double).
+     *
+     * @return compact binary form of the sketch
+     */
+    public byte[] toBytes() {
+        if (upperLevelBytesDirty) {
+            ByteBuffer upperBuffer = ByteBuffer.allocate(4 * (levelCount - 1) + 8 * (retainedCount - levelSizes[0]));
+            for (int h = 1; h < levelCount; h++) {
+                putLevel(upperBuffer, h);
+            }
+            upperLevelBytes = upperBuffer.array();
+            upperLevelBytesDirty = false;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 4 + 8 * levelSizes[0] + upperLevelBytes.length);
+        buffer.put(SERIAL_VERSION);
+        buffer.putInt(k);
+        buffer.putLong(count);
+        buffer.putDouble(min);
+        buffer.putDouble(max);
+        buffer.put((byte) levelCount);
+        putLevel(buffer, 0);
+        buffer.put(upperLevelBytes);
+        return buffer.array();
+    }
+
+    private void putLevel(ByteBuffer buffer, int level) {
+        int size = levelSizes[level];
+        double[] items = levels[level];
+        buffer.putInt(size);
+        for (int i = 0; i < size; i++) {
+            buffer.putDouble(items[i]);
+        }
+    }
+
+    /**
+     * Serialises a sketch holding only the given value, without building the sketch.
+     *
+     * @param k     parameter of the sketch
+     * @param value the only value of the sketch
+     * @return binary form which is equal to the one of a sketch of k, after adding the value
+     */
+    public static byte[] toBytes(int k, double value) {
+        ByteBuffer buffer = ByteBuffer.allocate(SINGLE_VALUE_BYTES);
+        buffer.put(SERIAL_VERSION);
+        buffer.putInt(k);
+        buffer.putLong(1);
+        buffer.putDouble(value);
+        buffer.putDouble(value);
+        buffer.put((byte) 1);
+        buffer.putInt(1);
+        buffer.putDouble(value);
+        return buffer.array();
+    }
+
+    /**
+     * Adds the value of a sketch created by {@link #toBytes(int, double)} without restoring that sketch, which is
+     * how the per event sketches of an incremental aggregation are merged.
+     *
+     * @param bytes binary form of a sketch
+     * @return true if the bytes hold a single value and a k equal to the k of this sketch, and the value was added,
+     * false if nothing was added
+     */
+    public boolean addSingleValue(byte[] bytes) {
+        if (bytes.length != SINGLE_VALUE_BYTES) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.get(0) != SERIAL_VERSION || buffer.getInt(1) != k || buffer.getLong(5) != 1
+                || buffer.get(HEADER_BYTES - 1) != 1 || buffer.getInt(HEADER_BYTES) != 1) {
+            return false;
+        }
+        add(buffer.getDouble(HEADER_BYTES + 4));
+        return true;
+    }
+
+    /**
+     * @param bytes binary form created by {@link #toBytes()}
+     * @return sketch restored from the binary form
+     * @throws IllegalArgumentException if the bytes are not a sketch of this version
+     */
+    public static KllSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            byte version = buffer.get();
+            if (version != SERIAL_VERSION) {
+                throw new IllegalArgumentException("Unsupported KLL sketch serial version " + version);
+            }
+            KllSketch sketch = new KllSketch(buffer.getInt());
+            sketch.count = buffer.getLong();
+            sketch.min = buffer.getDouble();
+            sketch.max = buffer.getDouble();
+            int restoredLevelCount = buffer.get();
+            if (restoredLevelCount < 1) {
+                throw new IllegalArgumentException("KLL sketch should have at least one level, but found " +
+                        restoredLevelCount);
+            }
+            while (sketch.levelCount < restoredLevelCount) {
+                sketch.addLevel();
+            }
+            for (int h = 0; h < restoredLevelCount; h++) {
+                int size = buffer.getInt();
+                if (size < 0 || size > buffer.remaining() / 8) {
+                    throw new IllegalArgumentException("KLL sketch level " + h + " cannot hold " + size + " items");
+                }
+                double[] items = new double[Math.max(size, MIN_LEVEL_CAPACITY)];
+                for (int i = 0; i < size; i++) {
+                    items[i] = buffer.getDouble();
+                }
+                sketch.levels[h] = items;
+                sketch.levelSizes[h] = size;
+                sketch.retainedCount += size;
+            }
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException("KLL sketch has " + buffer.remaining() + " unexpected bytes");
+            }
+            sketch.sortedViewDirty = true;
+            sketch.upperLevelBytesDirty = true;
+            return sketch;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("KLL sketch is truncated at " + bytes.length + " bytes", e);
+        }
+    }
+
+    /**
+     * Reads a sketch given to a function as an attribute of type OBJECT.
+     *
+     * @param data         attribute value
+     * @param functionName name of the function, used in the error message
+     * @return sketch restored from the attribute value
+     * @throws SiddhiAppRuntimeException if the value is not a sketch created by {@code math:sketch}
+     */
+    public static KllSketch fromAttribute(Object data, String functionName) {
+        if (!(data instanceof byte[])) {
+            throw new SiddhiAppRuntimeException("The sketch argument supplied to the " + functionName +
+                    " function should be created by math:sketch(), but found " + data.getClass().getName());
+        }
+        try {
+            return fromBytes((byte[]) data);
+        } catch (IllegalArgumentException e) {
+            throw new SiddhiAppRuntimeException("The sketch argument supplied to the " + functionName +
+                    " function is not a valid sketch created by math:sketch(). " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        return Collections.singletonMap(SKETCH, toBytes());
+    }
+
+    @Override
+    public void restore(Map<String, Object> state) {
+        KllSketch restored = fromBytes((byte[]) state.get(SKETCH));
+        levels = restored.levels;
+        levelSizes = restored.levelSizes;
+        levelCount = restored.levelCount;
+        retainedCount = restored.retainedCount;
+        maxRetainedCount = restored.maxRetainedCount;
+        count = restored.count;
+        min = restored.min;
+        max = restored.max;
+        sortedViewDirty = true;
+        upperLevelBytesDirty = true;
+    }
+
+    private void addLevel() {
+        if (levelCount == levels.length) {
+            levels = Arrays.copyOf(levels, levelCount * 2);
+            levelSizes = Arrays.copyOf(levelSizes, levelCount * 2);
+        }
+        if (levels[levelCount] == null) {
+            levels[levelCount] = new double[MIN_LEVEL_CAPACITY];
+        }
+        levelCount++;
+        upperLevelBytesDirty = true;
+        maxRetainedCount = 0;
+        for (int h = 0; h < levelCount; h++) {
+            maxRetainedCount += capacity(h);
+        }
+    }
+
+    private int capacity(int level) {
+        int depth = levelCount - level - 1;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    /**
+     * Compacts the lowest level which reached its capacity: its sorted items are paired up and a random item of each
+     * pair is promoted to the next level with twice the weight.
+     */
+    private void compress() {
+        for (int h = 0; h < levelCount; h++) {
+            if (levelSizes[h] >= capacity(h)) {
+                if (h + 1 == levelCount) {
+                    addLevel();
+                }
+                double[] level = levels[h];
+                int size = levelSizes[h];
+                // An odd item out stays at this level.
+                int pairedSize = size & ~1;
+                double leftover = level[size - 1];
+                int offset = ThreadLocalRandom.current().nextBoolean() ? 1 : 0;
+                int promotedCount = pairedSize / 2;
+                for (int i = 0; i < promotedCount; i++) {
+                    level[i] = level[2 * i + offset];
+                }
+                appendSorted(h + 1, level, promotedCount);
+                retainedCount -= size;
+                if (pairedSize < size) {
+                    level[0] = leftover;
+                    levelSizes[h] = 1;
+                    retainedCount++;
+                } else {
+                    levelSizes[h] = 0;
+                }
+                sortedViewDirty = true;
+                upperLevelBytesDirty = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Merges sorted items into the sorted items of the given level.
+     */
+    private void appendSorted(int level, double[] items, int itemCount) {
+        double[] target = levels[level];
+        int size = levelSizes[level];
+        double[] merged = target.length >= size + itemCount ? target :
+                new double[Math.max(size + itemCount, target.length * 2)];
+        int i = size - 1;
+        int j = itemCount - 1;
+        int position = size + itemCount - 1;
+        if (merged != target) {
+            System.arraycopy(target, 0, merged, 0, size);
+        }
+        while (j >= 0) {
+            if (i >= 0 && merged[i] > items[j]) {
+                merged[position--] = merged[i--];
+            } else {
+                merged[position--] = items[j--];
+            }
+        }
+        levels[level] = merged;
+        levelSizes[level] = size + itemCount;
+        retainedCount += itemCount;
+    }
+
+    private void buildSortedView() {
+        int upperCount = retainedCount - levelSizes[0];
+        if (sortedItems == null || sortedItems.length < upperCount) {
+            sortedItems = new double[Math.max(upperCount, 2 * k)];
+            cumulativeWeights = new long[sortedItems.length];
+        }
+        // Items of each level are sorted, hence the view is built by repeatedly merging in the next level.
+        sortedCount = 0;
+        for (int h = 1; h < levelCount; h++) {
+            int size = levelSizes[h];
+            if (size == 0) {
+                continue;
+            }
+            long weight = 1L << h;
+            double[] items = levels[h];
+            int i = sortedCount - 1;
+            int j = size - 1;
+            int position = sortedCount + size - 1;
+            // Weights are stored per item while merging and turned into cumulative weights afterwards.
+            while (j >= 0) {
+                if (i >= 0 && sortedItems[i] > items[j]) {
+                    sortedItems[position] = sortedItems[i];
+                    cumulativeWeights[position--] = cumulativeWeights[i--];
+                } else {
+                    sortedItems[position] = items[j--];
+                    cumulativeWeights[position--] = weight;
+                }
+            }
+            sortedCount += size;
+        }
+        for (int i = 1; i < sortedCount; i++) {
+            cumulativeWeights[i] += cumulativeWeights[i - 1];
+        }
+        sortedViewDirty = false;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import io.siddhi.core.util.snapshot.state.State;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * State of the aggregators which build or merge KLL sketches. The binary form of the sketch is built only when it is
+ * read after a change, hence events which do not change the sketch reuse the previous result.
+ */
+public class KllSketchAttributeState extends State {
+
+    private static final String SKETCH = "SKETCH";
+    private KllSketch sketch;
+    private byte[] bytes;
+
+    public KllSketchAttributeState(int k) {
+        sketch = new KllSketch(k);
+    }
+
+    public KllSketch getSketch() {
+        return sketch;
+    }
+
+    public void add(double value) {
+        sketch.add(value);
+        bytes = null;
+    }
+
+    /**
+     * Adds the value of a one-value sketch, see {@link KllSketch#addSingleValue(byte[])}.
+     *
+     * @param incoming binary form of a sketch
+     * @return true if the value was added, false if the sketch should be merged instead
+     */
+    public boolean addSingleValue(byte[] incoming) {
+        if (sketch.addSingleValue(incoming)) {
+            bytes = null;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Merges the given sketch, which is adopted as it is when this sketch is empty.
+     *
+     * @param incoming sketch with the same k as this sketch, unless this sketch is empty
+     */
+    public void merge(KllSketch incoming) {
+        if (sketch.isEmpty()) {
+            sketch = incoming;
+        } else {
+            sketch.merge(incoming);
+        }
+        bytes = null;
+    }
+
+    /**
+     * Removes all the values, keeping the k of the sketch.
+     */
+    public void clear() {
+        sketch = new KllSketch(sketch.getK());
+        bytes = null;
+    }
+
+    /**
+     * @return binary form of the sketch, which must not be modified
+     */
+    public byte[] toBytes() {
+        if (bytes == null) {
+            bytes = sketch.toBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean canDestroy() {
+        return sketch.isEmpty();
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        return Collections.singletonMap(SKETCH, toBytes());
+    }
+
+    @Override
+    public void restore(Map<String, Object> state) {
+        bytes = (byte[]) state.get(SKETCH);
+        sketch = KllSketch.fromBytes(bytes);
+    }
+}
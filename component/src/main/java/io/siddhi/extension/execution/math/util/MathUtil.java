@@ -25,6 +25,14 @@ import io.siddhi.query.api.definition.Attribute;
  */
 public class MathUtil {
 
+    /**
+     * Size, relative to the largest sum of squared deviations of a group of values, below which the sum is taken as
+     * 0. Removing values with the inverse of Welford's update leaves rounding errors in the order of the machine
+     * epsilon times the squared deviations of the removed values, hence a window of equal values would otherwise
+     * report a tiny variance instead of 0.
+     */
+    private static final double ROUNDING_TOLERANCE = 1e-12;
+
     /**
      * Converts the input to double
      *
@@ -47,4 +55,16 @@ public class MathUtil {
                 + ", " + Attribute.Type.LONG + ", " + Attribute.Type.FLOAT + "and " + Attribute.Type.DOUBLE
                 + "types to double.");
     }
+
+    /**
+     * Tells whether a sum of squared deviations updated by adding and removing values is only the rounding error left
+     * by the removed values, i.e. whether the current values are all equal.
+     *
+     * @param m2    sum of squared deviations of the current values from their mean
+     * @param maxM2 largest sum of squared deviations of the values since they were last reset
+     * @return true if the sum should be taken as 0
+     */
+    public static boolean isRoundingError(double m2, double maxM2) {
+        return m2 <= ROUNDING_TOLERANCE * maxM2;
+    }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.exception.OperationNotSupportedException;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.query.processor.ProcessingMode;
+import io.siddhi.core.query.selector.attribute.aggregator.AttributeAggregatorExecutor;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.query.api.definition.Attribute;
+
+/**
+ * Base of the aggregators which return a statistic of the running moments of a single numeric argument, such as the
+ * variance and standard deviation aggregators, kept in a {@link MomentsAttributeState}.
+ */
+public abstract class MomentsAggregatorExecutor extends AttributeAggregatorExecutor<MomentsAttributeState> {
+
+    private final String functionName;
+
+    /**
+     * @param functionName name of the statistic, used in the error messages
+     */
+    protected MomentsAggregatorExecutor(String functionName) {
+        this.functionName = functionName;
+    }
+
+    /**
+     * @param state moments of the current values
+     * @return value of the statistic, 0 when there are no values
+     */
+    protected abstract double result(MomentsAttributeState state);
+
+    @Override
+    protected StateFactory<MomentsAttributeState> init(ExpressionExecutor[] expressionExecutors,
+                                                       ProcessingMode processingMode, boolean b,
+                                                       ConfigReader configReader,
+                                                       SiddhiQueryContext siddhiQueryContext) {
+        if (attributeExpressionExecutors.length != 1) {
+            throw new OperationNotSupportedException(functionName + " function has to have exactly 1 parameter, " +
+                                                             "currently " + attributeExpressionExecutors.length +
+                                                             " parameters provided.");
+        }
+        Attribute.Type attributeType = attributeExpressionExecutors[0].getReturnType();
+        switch (attributeType) {
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return MomentsAttributeState::new;
+            default:
+                throw new OperationNotSupportedException(functionName + " not supported for " + attributeType);
+        }
+    }
+
+    @Override
+    public Object processAdd(Object data, MomentsAttributeState state) {
+        if (data != null) {
+            state.add(((Number) data).doubleValue());
+        }
+        return result(state);
+    }
+
+    @Override
+    public Object processAdd(Object[] data, MomentsAttributeState state) {
+        // will not occur
+        return new IllegalStateException(functionName + " need a single input, but found " + data);
+    }
+
+    @Override
+    public Object processRemove(Object data, MomentsAttributeState state) {
+        if (data != null) {
+            state.remove(((Number) data).doubleValue());
+        }
+        return result(state);
+    }
+
+    @Override
+    public Object processRemove(Object[] data, MomentsAttributeState state) {
+        // will not occur
+        return new IllegalStateException(functionName + " need a single input, but found " + data);
+    }
+
+    @Override
+    public Object reset(MomentsAttributeState state) {
+        state.clear();
+        return 0.0;
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return Attribute.Type.DOUBLE;
+    }
+}
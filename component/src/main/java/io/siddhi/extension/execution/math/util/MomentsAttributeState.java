@@ -0,0 +1,123 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math.util;
+
+import io.siddhi.core.util.snapshot.state.State;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running count, mean and sum of squared deviations of a group of values, used by the variance and standard deviation
+ * aggregators.
+ * <p>
+ * Values are added with Welford's update, which stays accurate where {@code sum(x*x) - sum(x)^2 / n} cancels
+ * catastrophically, and removed with the exact inverse of that update, so sliding windows are supported without
+ * keeping the values. Only primitive fields are kept and updated, so adding and removing values does not allocate.
+ * The removals leave rounding errors in the sum of squared deviations, hence the variance is 0 when the sum is too
+ * small to be told apart from them, see {@link MathUtil#isRoundingError(double, double)}.
+ */
+public class MomentsAttributeState extends State {
+
+    private static final String COUNT = "COUNT";
+    private static final String MEAN = "MEAN";
+    private static final String M2 = "M2";
+    private static final String MAX_M2 = "MAX_M2";
+
+    private long count;
+    private double mean;
+    private double m2;
+    // Largest m2 since the group last held at most one value, which bounds the rounding errors of the removals.
+    private double maxM2;
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        if (m2 > maxM2) {
+            maxM2 = m2;
+        }
+    }
+
+    public void remove(double value) {
+        if (count <= 1) {
+            // Starting afresh keeps rounding errors of the removed values from lingering in an empty group.
+            clear();
+            return;
+        }
+        count--;
+        double delta = value - mean;
+        mean -= delta / count;
+        m2 -= delta * (value - mean);
+        if (count == 1) {
+            m2 = 0;
+            maxM2 = 0;
+        } else if (m2 < 0) {
+            m2 = 0;
+        }
+    }
+
+    public void clear() {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+        maxM2 = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Returns the population variance of the values, which is 0 when there are no values or they are all equal.
+     *
+     * @return population variance
+     */
+    public double variance() {
+        return count == 0 || MathUtil.isRoundingError(m2, maxM2) ? 0.0 : m2 / count;
+    }
+
+    @Override
+    public boolean canDestroy() {
+        return count == 0;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> state = new HashMap<>();
+        state.put(COUNT, count);
+        state.put(MEAN, mean);
+        state.put(M2, m2);
+        state.put(MAX_M2, maxM2);
+        return state;
+    }
+
+    @Override
+    public void restore(Map<String, Object> state) {
+        count = (Long) state.get(COUNT);
+        mean = (Double) state.get(MEAN);
+        m2 = (Double) state.get(M2);
+        maxM2 = (Double) state.get(MAX_M2);
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Always sorted multiset of primitive long values whose values are kept outside of the Java heap.
+ * <p>
+ * This is the {@link SortedLongTree} of {@link SortedLongList}, except that every leaf holds its sorted values in a
+ * direct buffer of {@link SortedLongTree#LEAF_CAPACITY} longs. The heap only holds the branches and a few small
+ * objects per leaf of hundreds of values, hence the heap footprint and the garbage collection pauses do not grow
+ * with the number of stored values as they do with on heap arrays.
+ * <p>
+ * Direct memory is only freed when its buffer is collected, hence the buffers of the leaves which are merged away
+ * are kept in a free list of up to {@link #MAX_FREE_LEAVES} buffers and reused by the following splits, instead of
+ * allocating a new buffer for each of them. {@link #clear()} drops all the buffers but those of the free list, so
+ * that a cleared list only retains a bounded amount of direct memory. The total is bounded by the
+ * {@code -XX:MaxDirectMemorySize} JVM option.
+ * <p>
+ * Double values can be stored through {@link SortedValuesCodec#toSortableLong(double)}, which keeps their order.
+ */
+public class OffHeapSortedLongList {
+
+    /**
+     * Largest number of unused leaf buffers kept for reuse, of 4 KB each.
+     */
+    private static final int MAX_FREE_LEAVES = 16;
+
+    private final SortedLongTree tree = new SortedLongTree(new OffHeapLeafStorage());
+
+    /**
+     * Creates a list from values which are already sorted in ascending order.
+     *
+     * @param sortedValues sorted values
+     * @return sorted list
+     */
+    public static OffHeapSortedLongList fromSorted(long[] sortedValues) {
+        OffHeapSortedLongList list = new OffHeapSortedLongList();
+        list.load(sortedValues);
+        return list;
+    }
+
+    /**
+     * Replaces the stored values by values which are already sorted in ascending order, reusing the buffers of
+     * the current values.
+     *
+     * @param sortedValues sorted values
+     */
+    public void load(long[] sortedValues) {
+        tree.load(sortedValues);
+    }
+
+    public void add(long value) {
+        tree.add(value);
+    }
+
+    /**
+     * Removes a single occurrence of the given value.
+     *
+     * @param value value to be removed
+     * @return true if the value was found and removed
+     */
+    public boolean remove(long value) {
+        return tree.remove(value);
+    }
+
+    /**
+     * @param index position in ascending order, starting from 0
+     * @return value at the given position
+     */
+    public long get(int index) {
+        return tree.get(index);
+    }
+
+    /**
+     * @param value value to be ranked
+     * @return number of stored values which are less than or equal to the given value
+     */
+    public int countAtMost(long value) {
+        return tree.countAtMost(value);
+    }
+
+    public int size() {
+        return tree.size();
+    }
+
+    public boolean isEmpty() {
+        return tree.size() == 0;
+    }
+
+    /**
+     * Removes all the values. The buffers of the leaves go to the free list as far as it has room, and the others
+     * are left to the garbage collector.
+     */
+    public void clear() {
+        tree.clear();
+    }
+
+    /**
+     * @return a copy of the stored values in ascending order
+     */
+    public long[] toArray() {
+        return tree.toArray();
+    }
+
+    /**
+     * Storage of the leaves in direct buffers, which recycles the buffers of released leaves.
+     */
+    private static final class OffHeapLeafStorage extends SortedLongTree.LeafStorage {
+
+        private final ArrayDeque<LongBuffer> freeBuffers = new ArrayDeque<>();
+
+        @Override
+        SortedLongTree.LeafValues allocate(int capacity) {
+            LongBuffer buffer = freeBuffers.pollLast();
+            if (buffer == null) {
+                buffer = ByteBuffer.allocateDirect(SortedLongTree.LEAF_CAPACITY * Long.BYTES)
+                        .order(ByteOrder.nativeOrder()).asLongBuffer();
+            }
+            return new OffHeapLeafValues(buffer);
+        }
+
+        @Override
+        void release(SortedLongTree.LeafValues values) {
+            if (freeBuffers.size() < MAX_FREE_LEAVES) {
+                freeBuffers.addLast(((OffHeapLeafValues) values).values);
+            }
+        }
+    }
+
+    /**
+     * Leaf values in a direct buffer. Only absolute get and put operations are used, which the JIT compiles to plain
+     * memory accesses.
+     */
+    private static final class OffHeapLeafValues extends SortedLongTree.LeafValues {
+
+        private final LongBuffer values;
+
+        private OffHeapLeafValues(LongBuffer values) {
+            this.values = values;
+        }
+
+        @Override
+        int capacity() {
+            return SortedLongTree.LEAF_CAPACITY;
+        }
+
+        @Override
+        long get(int index) {
+            return values.get(index);
+        }
+
+        @Override
+        void set(int index, long value) {
+            values.put(index, value);
+        }
+
+        @Override
+        void move(int from, int to, int count) {
+            if (from < to) {
+                for (int i = count - 1; i >= 0; i--) {
+                    values.put(to + i, values.get(from + i));
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    values.put(to + i, values.get(from + i));
+                }
+            }
+        }
+
+        @Override
+        void copyTo(int from, SortedLongTree.LeafValues target, int to, int count) {
+            LongBuffer targetValues = ((OffHeapLeafValues) target).values;
+            for (int i = 0; i < count; i++) {
+                targetValues.put(to + i, values.get(from + i));
+            }
+        }
+
+        @Override
+        void copyTo(int from, long[] target, int to, int count) {
+            for (int i = 0; i < count; i++) {
+                target[to + i] = values.get(from + i);
+            }
+        }
+
+        @Override
+        void copyFrom(long[] source, int from, int to, int count) {
+            for (int i = 0; i < count; i++) {
+                values.put(to + i, source[from + i]);
+            }
+        }
+
+        @Override
+        int upperBound(int size, long value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (Long.compare(values.get(mid), value) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        @Override
+        int lowerBound(int size, long value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (Long.compare(values.get(mid), value) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.exception.SiddhiAppRuntimeException;
+import io.siddhi.core.util.config.ConfigReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memory budget of the values retained by the exact percentile states of a single extension instance, such as one
+ * {@code math:percentile} or {@code math:percentiles} of a query, shared by all its groups and partitions.
+ * <p>
+ * The retained memory of a state is estimated by the state from the storage of its values, such as
+ * {@link #VALUE_BYTES} per value, or per distinct value and count for values kept as run lengths. A state may retain
+ * values up to the per state budget, as long as all the states of the instance together stay within the total
+ * budget. What happens to a state which would exceed a budget is decided by its {@link Policy}. A budget of 0 is
+ * unlimited, and when both are unlimited nothing is accounted at all.
+ */
+public class PercentileMemoryBudget {
+
+    private static final Logger LOG = LogManager.getLogger(PercentileMemoryBudget.class);
+    public static final String MAX_STATE_BYTES = "max.state.bytes";
+    public static final String MAX_TOTAL_BYTES = "max.total.bytes";
+    public static final String POLICY = "memory.budget.policy";
+    public static final long VALUE_BYTES = Long.BYTES;
+
+    private final long maxStateBytes;
+    private final long maxTotalBytes;
+    private final Policy policy;
+    private final String name;
+    private final boolean unlimited;
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private volatile boolean degradationLogged;
+
+    /**
+     * Action taken when a state reaches its budget.
+     */
+    public enum Policy {
+        /**
+         * Fail the event which would exceed the budget.
+         */
+        REJECT,
+        /**
+         * Keep a uniform random sample of the values, of the size reached when the budget was exceeded.
+         */
+        SAMPLE,
+        /**
+         * Summarise the retained and the following values in a t-digest, which cannot remove expired values.
+         */
+        SKETCH
+    }
+
+    /**
+     * @param maxStateBytes budget of a single state, 0 for unlimited
+     * @param maxTotalBytes budget of all the states, 0 for unlimited
+     * @param policy        action taken when a state reaches a budget
+     * @param name          name of the query, used in the log and error messages
+     */
+    public PercentileMemoryBudget(long maxStateBytes, long maxTotalBytes, Policy policy, String name) {
+        this.maxStateBytes = maxStateBytes;
+        this.maxTotalBytes = maxTotalBytes;
+        this.policy = policy;
+        this.name = name;
+        this.unlimited = maxStateBytes == 0 && maxTotalBytes == 0;
+    }
+
+    /**
+     * Reads the budget from the deployment configuration of the extension.
+     *
+     * @param configReader config reader of the extension
+     * @param name         name of the query
+     * @return budget, which is unlimited unless configured
+     */
+    public static PercentileMemoryBudget fromConfig(ConfigReader configReader, String name) {
+        long maxStateBytes = readBytes(configReader, MAX_STATE_BYTES);
+        long maxTotalBytes = readBytes(configReader, MAX_TOTAL_BYTES);
+        String policyName = configReader.readConfig(POLICY, Policy.REJECT.name());
+        Policy policy;
+        try {
+            policy = Policy.valueOf(policyName.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new SiddhiAppCreationException("Percentile config '" + POLICY + "' should be one of 'reject', " +
+                                                         "'sample' or 'sketch'. But found '" + policyName + "'.");
+        }
+        return new PercentileMemoryBudget(maxStateBytes, maxTotalBytes, policy, name);
+    }
+
+    private static long readBytes(ConfigReader configReader, String name) {
+        String value = configReader.readConfig(name, "0");
+        try {
+            long bytes = Long.parseLong(value.trim());
+            if (bytes < 0) {
+                throw new NumberFormatException();
+            }
+            return bytes;
+        } catch (NumberFormatException e) {
+            throw new SiddhiAppCreationException("Percentile config '" + name + "' should be a non negative " +
+                                                         "number of bytes. But found '" + value + "'.");
+        }
+    }
+
+    /**
+     * @return true if neither the states nor their total are limited, in which case nothing is accounted
+     */
+    public boolean isUnlimited() {
+        return unlimited;
+    }
+
+    /**
+     * Reserves the growth of the memory retained by a state.
+     *
+     * @param stateBytes    bytes reserved so far by the state
+     * @param newStateBytes bytes the state would retain
+     * @return true if the state fits in both budgets, otherwise nothing is reserved
+     */
+    public boolean reserve(long stateBytes, long newStateBytes) {
+        long bytes = newStateBytes - stateBytes;
+        if (unlimited || bytes == 0) {
+            return true;
+        }
+        if (bytes < 0) {
+            retainedBytes.addAndGet(bytes);
+            return true;
+        }
+        if (maxStateBytes > 0 && newStateBytes > maxStateBytes) {
+            return false;
+        }
+        if (retainedBytes.addAndGet(bytes) > maxTotalBytes && maxTotalBytes > 0) {
+            retainedBytes.addAndGet(-bytes);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Accounts memory retained without checking the budgets, such as the values of a restored state.
+     */
+    public void forceReserve(long bytes) {
+        if (!unlimited && bytes != 0) {
+            retainedBytes.addAndGet(bytes);
+        }
+    }
+
+    public void release(long bytes) {
+        if (!unlimited && bytes != 0) {
+            retainedBytes.addAndGet(-bytes);
+        }
+    }
+
+    /**
+     * Logs, only once for all the states, that a state has been degraded as it reached the budget.
+     *
+     * @param replacement description of what replaced the retained values
+     */
+    public void logDegraded(String replacement) {
+        if (!degradationLogged) {
+            degradationLogged = true;
+            LOG.warn("Percentile states of '" + name + "' reached their memory budget of " + maxStateBytes +
+                             " bytes per state and " + maxTotalBytes + " bytes in total, hence they are replaced " +
+                             "by " + replacement + ". This is logged only once.");
+        }
+    }
+
+    /**
+     * @return error of a state which cannot retain more values
+     */
+    public SiddhiAppRuntimeException exceeded() {
+        return new SiddhiAppRuntimeException("Percentile state of '" + name + "' cannot retain more values, as " +
+                                                     "it reached its memory budget of " + maxStateBytes +
+                                                     " bytes per state and " + maxTotalBytes + " bytes in total, " +
+                                                     "with " + retainedBytes.get() + " bytes retained.");
+    }
+
+    public long getMaxStateBytes() {
+        return maxStateBytes;
+    }
+
+    public long getMaxTotalBytes() {
+        return maxTotalBytes;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import java.util.Map;
+
+/**
+ * Bounded size summary of a stream of values which answers approximate percentile queries.
+ */
+public interface QuantileSketch {
+
+    void add(double value);
+
+    /**
+     * Removes a previously added value, for sketches which support sliding windows.
+     *
+     * @param value expired value
+     * @throws UnsupportedOperationException if the sketch cannot forget values
+     */
+    void remove(double value);
+
+    /**
+     * @param percentile percentile (p) where 0 < p <= 100
+     * @return estimate of the pth percentile, or 0.0 when the sketch is empty
+     */
+    double percentile(double percentile);
+
+    boolean isEmpty();
+
+    void clear();
+
+    Map<String, Object> snapshot();
+
+    void restore(Map<String, Object> state);
+}
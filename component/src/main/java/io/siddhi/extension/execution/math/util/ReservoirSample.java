@@ -0,0 +1,253 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fixed size uniform random sample of the values, which estimates percentiles with bounded memory and also supports
+ * removing the values of sliding windows.
+ * <p>
+ * Once the reservoir is full, values are selected with Algorithm L (Li, 1994): instead of drawing a random number
+ * for every value, the number of values to skip before the next replacement is drawn, hence random numbers are only
+ * drawn for the O(k log(n / k)) values which enter the reservoir. The reservoir is kept sorted, so percentiles are
+ * read directly from it without sorting a copy.
+ * <p>
+ * Removals are compensated by random pairing (Gemulla et al., 2006): the values which arrive after removals are
+ * paired with them, and enter the reservoir with the probability that the removed values were in it. Hence the
+ * reservoir stays a uniform sample of the current window, at the cost of a random number per value while there are
+ * removals to compensate.
+ * <p>
+ * A removed value equal to others may be any of their occurrences, of which only some are sampled. Hence an
+ * occurrence is removed from the reservoir with the probability that the removed one was sampled, i.e. the sampled
+ * occurrences over the occurrences in the window. Removing one whenever the reservoir holds the value would
+ * over-represent the other values of windows with heavy duplicates. The occurrences in the window are only counted
+ * for the values in the reservoir, from the time they enter it, which bounds the counts by the capacity. The
+ * occurrences which arrived before a value entered the reservoir are not known, hence the first removals of such a
+ * value still remove it from the reservoir more often than they should.
+ */
+public class ReservoirSample implements QuantileSketch {
+
+    private static final String VALUES = "VALUES";
+    private static final String WINDOW_COUNTS = "WINDOW_COUNTS";
+    private static final String COUNT = "COUNT";
+    private static final String SAMPLED_REMOVALS = "SAMPLED_REMOVALS";
+    private static final String UNSAMPLED_REMOVALS = "UNSAMPLED_REMOVALS";
+    private static final String SKIP = "SKIP";
+    private static final String THRESHOLD = "THRESHOLD";
+
+    private final int capacity;
+    private SortedDoubleList values = new SortedDoubleList();
+    // Number of values in the window, of which the reservoir is a sample.
+    private long count;
+    // Number of occurrences in the window of each distinct value of the reservoir, since it entered the reservoir.
+    private final Map<Double, int[]> windowCounts = new HashMap<>();
+    // Removals not compensated yet, of values which were and were not in the reservoir.
+    private long sampledRemovals;
+    private long unsampledRemovals;
+    // Number of values to skip before the next replacement, once the reservoir is full.
+    private long skip;
+    // Largest random key among the sampled values of Algorithm L.
+    private double threshold;
+
+    public ReservoirSample(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void add(double value) {
+        count++;
+        int[] windowCount = windowCounts.get(value);
+        if (windowCount != null) {
+            windowCount[0]++;
+        }
+        long pendingRemovals = sampledRemovals + unsampledRemovals;
+        if (pendingRemovals > 0) {
+            if (ThreadLocalRandom.current().nextLong(pendingRemovals) < sampledRemovals) {
+                sample(value, windowCount);
+                sampledRemovals--;
+            } else {
+                unsampledRemovals--;
+            }
+            if (sampledRemovals + unsampledRemovals == 0 && values.size() == capacity) {
+                resumeSelection();
+            }
+            return;
+        }
+        if (values.size() < capacity) {
+            sample(value, windowCount);
+            if (values.size() == capacity) {
+                resumeSelection();
+            }
+            return;
+        }
+        if (skip > 0) {
+            skip--;
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double replaced = values.get(random.nextInt(capacity));
+        values.remove(replaced);
+        if (values.count(replaced) == 0) {
+            windowCounts.remove(replaced);
+        }
+        // Looked up again, as the replaced value may have been the last sampled occurrence of this value.
+        sample(value, windowCounts.get(value));
+        // 1 - nextDouble() is in (0, 1], which keeps the logarithm finite.
+        threshold *= Math.exp(Math.log(1 - random.nextDouble()) / capacity);
+        nextSkip();
+    }
+
+    @Override
+    public void remove(double value) {
+        if (count == 0) {
+            return;
+        }
+        count--;
+        int[] windowCount = windowCounts.get(value);
+        if (windowCount == null) {
+            unsampledRemovals++;
+            return;
+        }
+        // The counted occurrences are at least the sampled ones, as every sampled occurrence was counted.
+        int sampledCount = values.count(value);
+        if (ThreadLocalRandom.current().nextInt(windowCount[0]) < sampledCount) {
+            values.remove(value);
+            sampledRemovals++;
+            sampledCount--;
+        } else {
+            unsampledRemovals++;
+        }
+        windowCount[0]--;
+        if (sampledCount == 0) {
+            windowCounts.remove(value);
+        }
+    }
+
+    /**
+     * @return pth percentile of the sampled values as calculated by {@link SortedDoubleList#percentile(double)}
+     */
+    @Override
+    public double percentile(double percentile) {
+        return values.percentile(percentile);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public void clear() {
+        values.clear();
+        windowCounts.clear();
+        count = 0;
+        sampledRemovals = 0;
+        unsampledRemovals = 0;
+        skip = 0;
+        threshold = 0;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> state = new HashMap<>();
+        state.put(VALUES, SortedValuesCodec.encode(values.toArray()));
+        state.put(WINDOW_COUNTS, encodeWindowCounts());
+        state.put(COUNT, count);
+        state.put(SAMPLED_REMOVALS, sampledRemovals);
+        state.put(UNSAMPLED_REMOVALS, unsampledRemovals);
+        state.put(SKIP, skip);
+        state.put(THRESHOLD, threshold);
+        return state;
+    }
+
+    @Override
+    public void restore(Map<String, Object> state) {
+        values = SortedDoubleList.fromSorted(SortedValuesCodec.decodeDoubles((byte[]) state.get(VALUES)));
+        restoreWindowCounts((byte[]) state.get(WINDOW_COUNTS));
+        count = (Long) state.get(COUNT);
+        sampledRemovals = (Long) state.get(SAMPLED_REMOVALS);
+        unsampledRemovals = (Long) state.get(UNSAMPLED_REMOVALS);
+        skip = (Long) state.get(SKIP);
+        threshold = (Double) state.get(THRESHOLD);
+    }
+
+    /**
+     * Adds a value to the reservoir, and starts counting its occurrences in the window if it is not in the reservoir
+     * yet.
+     *
+     * @param value       value entering the reservoir
+     * @param windowCount counted occurrences of the value, null if it is not in the reservoir
+     */
+    private void sample(double value, int[] windowCount) {
+        values.add(value);
+        if (windowCount == null) {
+            windowCounts.put(value, new int[]{1});
+        }
+    }
+
+    /**
+     * @return run lengths of the counted occurrences of the distinct values of the reservoir, see
+     * {@link SortedValuesCodec#encodeRuns(long[], int[], int)}
+     */
+    private byte[] encodeWindowCounts() {
+        long[] keys = new long[windowCounts.size()];
+        int i = 0;
+        for (Double value : windowCounts.keySet()) {
+            keys[i++] = SortedValuesCodec.toSortableLong(value);
+        }
+        Arrays.sort(keys);
+        int[] counts = new int[keys.length];
+        for (i = 0; i < keys.length; i++) {
+            counts[i] = windowCounts.get(SortedValuesCodec.fromSortableLong(keys[i]))[0];
+        }
+        return SortedValuesCodec.encodeRuns(keys, counts, keys.length);
+    }
+
+    private void restoreWindowCounts(byte[] bytes) {
+        windowCounts.clear();
+        int distinctCount = SortedValuesCodec.runCount(bytes);
+        long[] keys = new long[distinctCount];
+        int[] counts = new int[distinctCount];
+        SortedValuesCodec.decodeRuns(bytes, keys, counts);
+        for (int i = 0; i < distinctCount; i++) {
+            windowCounts.put(SortedValuesCodec.fromSortableLong(keys[i]), new int[]{counts[i]});
+        }
+    }
+
+    /**
+     * Starts or resumes Algorithm L on a full reservoir, with the expected largest key of a uniform sample of
+     * capacity values out of the window.
+     */
+    private void resumeSelection() {
+        threshold = (double) capacity / (count + 1);
+        nextSkip();
+    }
+
+    /**
+     * Draws the number of values whose random key would exceed the threshold, which is geometrically distributed.
+     */
+    private void nextSkip() {
+        // 1 - nextDouble() is in (0, 1], which keeps the logarithm finite.
+        double random = 1 - ThreadLocalRandom.current().nextDouble();
+        skip = (long) Math.floor(Math.log(random) / Math.log1p(-threshold));
+    }
+}
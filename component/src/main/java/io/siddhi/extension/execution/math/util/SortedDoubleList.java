@@ -0,0 +1,143 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+/**
+ * Always sorted multiset of primitive double values, used by the percentile states.
+ * <p>
+ * Values are kept in a {@link SortedLongTree} as the order preserving longs of
+ * {@link SortedValuesCodec#toSortableLong(double)}, which sort as {@link Double#compare(double, double)} does. Hence
+ * add, remove and positional lookup are O(log n), while the storage stays close to 8 bytes per value.
+ */
+public class SortedDoubleList {
+
+    private final SortedLongTree tree = new SortedLongTree(SortedLongTree.HEAP);
+
+    /**
+     * Creates a list from values which are already sorted in ascending order.
+     *
+     * @param sortedValues sorted values
+     * @return sorted list
+     */
+    public static SortedDoubleList fromSorted(double[] sortedValues) {
+        long[] keys = new long[sortedValues.length];
+        for (int i = 0; i < sortedValues.length; i++) {
+            keys[i] = SortedValuesCodec.toSortableLong(sortedValues[i]);
+        }
+        SortedDoubleList list = new SortedDoubleList();
+        list.tree.load(keys);
+        return list;
+    }
+
+    public void add(double value) {
+        tree.add(SortedValuesCodec.toSortableLong(value));
+    }
+
+    /**
+     * Removes a single occurrence of the given value.
+     *
+     * @param value value to be removed
+     * @return true if the value was found and removed
+     */
+    public boolean remove(double value) {
+        return tree.remove(SortedValuesCodec.toSortableLong(value));
+    }
+
+    /**
+     * @param index position in ascending order, starting from 0
+     * @return value at the given position
+     */
+    public double get(int index) {
+        return SortedValuesCodec.fromSortableLong(tree.get(index));
+    }
+
+    /**
+     * @param value value to be counted
+     * @return number of occurrences of the given value
+     */
+    public int count(double value) {
+        long key = SortedValuesCodec.toSortableLong(value);
+        return tree.countAtMost(key) - (key == Long.MIN_VALUE ? 0 : tree.countAtMost(key - 1));
+    }
+
+    public int size() {
+        return tree.size();
+    }
+
+    public boolean isEmpty() {
+        return tree.size() == 0;
+    }
+
+    public void clear() {
+        tree.clear();
+    }
+
+    /**
+     * @return a copy of the stored values in ascending order
+     */
+    public double[] toArray() {
+        long[] keys = tree.toArray();
+        double[] result = new double[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            result[i] = SortedValuesCodec.fromSortableLong(keys[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Percentile calculation method.
+     * <p>
+     * To calculate the pth percentile (where p is any number greater than 0 or less than or equal to 100), do the
+     * following steps:
+     * 1. Order all the values in the data set from smallest to largest.
+     * 2. Multiply p percent by the total number of values, n. This number is called the index.
+     * 3. If the index obtained in Step 2 is not a whole number, round it up to the nearest whole number and go to Step
+     * 4a. If the index obtained in Step 2 is a whole number, go to Step 4b.
+     * 4a. Count the values in your data set from left to right (from the smallest to the largest value) until you reach
+     * the number indicated by Step 3. The corresponding value in your data set is the pth percentile.
+     * 4b. Count the values in your data set from left to right until you reach the number indicated by Step 2.
+     * The pth percentile is the average of that corresponding value in your data set and the value that directly
+     * follows it.
+     *
+     * @param percentile percentile (p)
+     * @return pth percentile value, or 0.0 when the list is empty
+     */
+    public double percentile(double percentile) {
+        int size = tree.size();
+        if (size == 0) {
+            return 0.0;
+        }
+        double percentileIndexTemp = percentile * size / 100;
+        int percentileIndex;
+        if (percentileIndexTemp % 1 == 0) {
+            percentileIndex = (int) percentileIndexTemp;
+            if (percentileIndex == size) {
+                return get(percentileIndex - 1);
+            } else {
+                return (get(percentileIndex - 1) + get(percentileIndex)) / 2;
+            }
+        } else {
+            percentileIndex = (int) Math.round(percentileIndexTemp);
+            if (percentileIndex == 0) {
+                return get(percentileIndex);
+            } else {
+                return get(percentileIndex - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import java.util.List;
+
+/**
+ * Base of the exact percentile states of FLOAT and DOUBLE values. Each state owns its sorted values, hence the values
+ * of different groups or partitions never get mixed and an emptied state can be destroyed independently.
+ */
+public abstract class SortedDoubleValuesAttributeState extends SortedValuesAttributeState {
+
+    private SortedDoubleList values = new SortedDoubleList();
+
+    protected SortedDoubleValuesAttributeState(PercentileMemoryBudget budget, boolean outputExpectsExpiredEvents) {
+        super(budget, outputExpectsExpiredEvents);
+    }
+
+    @Override
+    public Object processAdd(Object data) {
+        add(((Number) data).doubleValue());
+        return currentValue();
+    }
+
+    @Override
+    public Object processRemove(Object obj) {
+        remove(((Number) obj).doubleValue());
+        return expiredValue(outputExpectsExpiredEvents);
+    }
+
+    protected void add(double value) {
+        if (!admit(value)) {
+            return;
+        }
+        values.add(value);
+        if (!reserveRetained()) {
+            values.remove(value);
+            degrade();
+            add(value);
+            return;
+        }
+        changed();
+        changeLog.recordAdd(Double.doubleToLongBits(value), values.size());
+    }
+
+    protected void remove(double value) {
+        if (admitRemoval() && values.remove(value)) {
+            releaseRetained();
+            changed();
+            changeLog.recordRemove(Double.doubleToLongBits(value), values.size());
+        }
+    }
+
+    @Override
+    protected int retainedCount() {
+        return values.size();
+    }
+
+    @Override
+    protected long retainedBytes() {
+        return values.size() * PercentileMemoryBudget.VALUE_BYTES;
+    }
+
+    @Override
+    protected void removeRetainedAt(int index) {
+        double value = values.get(index);
+        values.remove(value);
+        releaseRetained();
+        changed();
+        changeLog.recordRemove(Double.doubleToLongBits(value), values.size());
+    }
+
+    @Override
+    protected double[] retainedValues() {
+        return values.toArray();
+    }
+
+    @Override
+    protected void clearRetained() {
+        values.clear();
+        changeLog.clear();
+        changed();
+    }
+
+    @Override
+    protected double retainedPercentile(double percentile) {
+        return values.percentile(percentile);
+    }
+
+    @Override
+    protected byte[] encodeRetained() {
+        return SortedValuesCodec.encode(values.toArray());
+    }
+
+    @Override
+    protected void restoreRetained(byte[] encoded) {
+        values = SortedDoubleList.fromSorted(SortedValuesCodec.decodeDoubles(encoded));
+    }
+
+    @Override
+    protected void restoreAdded(long key) {
+        values.add(Double.longBitsToDouble(key));
+    }
+
+    @Override
+    protected void restoreRemoved(long key) {
+        values.remove(Double.longBitsToDouble(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void restoreLegacy(Object restoredValues) {
+        if (restoredValues instanceof List) {
+            // Snapshots taken before the primitive storage was introduced contain a sorted List<Double>.
+            List<Double> valuesList = (List<Double>) restoredValues;
+            double[] sortedValues = new double[valuesList.size()];
+            for (int i = 0; i < sortedValues.length; i++) {
+                sortedValues[i] = valuesList.get(i);
+            }
+            values = SortedDoubleList.fromSorted(sortedValues);
+        } else if (restoredValues instanceof double[]) {
+            values = SortedDoubleList.fromSorted((double[]) restoredValues);
+        } else {
+            values = SortedDoubleList.fromSorted(SortedValuesCodec.decodeDoubles((byte[]) restoredValues));
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import java.util.Arrays;
+
+/**
+ * Sorted multiset of long values stored as run lengths, i.e. the distinct values in ascending order with the number
+ * of occurrences of each. Used for INT and LONG inputs with few distinct values, such as status codes or retry
+ * counts, where the memory depends on the number of distinct values rather than on the number of occurrences.
+ * <p>
+ * The counts are indexed by a Fenwick tree, hence adding or removing an occurrence of a known value and the
+ * positional lookup are O(log d) for d distinct values. Adding a new distinct value or removing the last occurrence
+ * of one shifts the arrays and rebuilds the tree in O(d).
+ *
+ * @see AdaptiveSortedLongList
+ */
+public class SortedLongCounts {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int[] tree = new int[INITIAL_CAPACITY + 1];
+    private int distinctCount;
+    private int size;
+
+    /**
+     * Creates counts from values which are already sorted in ascending order.
+     *
+     * @param sortedValues sorted values
+     * @return counts of the values
+     */
+    public static SortedLongCounts fromSorted(long[] sortedValues) {
+        SortedLongCounts result = new SortedLongCounts();
+        for (int i = 0; i < sortedValues.length; i++) {
+            if (i == 0 || sortedValues[i] != sortedValues[i - 1]) {
+                result.ensureCapacity(result.distinctCount + 1);
+                result.keys[result.distinctCount++] = sortedValues[i];
+            }
+            result.counts[result.distinctCount - 1]++;
+        }
+        result.size = sortedValues.length;
+        result.rebuildTree();
+        return result;
+    }
+
+    /**
+     * Creates counts from their binary form, without expanding the run lengths.
+     *
+     * @param bytes binary form created by {@link #encode()}
+     * @return counts of the values
+     */
+    public static SortedLongCounts decode(byte[] bytes) {
+        SortedLongCounts result = new SortedLongCounts();
+        int distinctCount = SortedValuesCodec.runCount(bytes);
+        result.ensureCapacity(distinctCount);
+        SortedValuesCodec.decodeRuns(bytes, result.keys, result.counts);
+        result.distinctCount = distinctCount;
+        for (int i = 0; i < distinctCount; i++) {
+            result.size += result.counts[i];
+        }
+        result.rebuildTree();
+        return result;
+    }
+
+    public void add(long value) {
+        int index = Arrays.binarySearch(keys, 0, distinctCount, value);
+        if (index >= 0) {
+            counts[index]++;
+            for (int i = index + 1; i <= distinctCount; i += i & -i) {
+                tree[i]++;
+            }
+        } else {
+            index = -index - 1;
+            ensureCapacity(distinctCount + 1);
+            System.arraycopy(keys, index, keys, index + 1, distinctCount - index);
+            System.arraycopy(counts, index, counts, index + 1, distinctCount - index);
+            keys[index] = value;
+            counts[index] = 1;
+            distinctCount++;
+            rebuildTree();
+        }
+        size++;
+    }
+
+    /**
+     * Removes a single occurrence of the given value.
+     *
+     * @param value value to be removed
+     * @return true if the value was found and removed
+     */
+    public boolean remove(long value) {
+        int index = Arrays.binarySearch(keys, 0, distinctCount, value);
+        if (index < 0) {
+            return false;
+        }
+        if (--counts[index] == 0) {
+            System.arraycopy(keys, index + 1, keys, index, distinctCount - index - 1);
+            System.arraycopy(counts, index + 1, counts, index, distinctCount - index - 1);
+            distinctCount--;
+            rebuildTree();
+        } else {
+            for (int i = index + 1; i <= distinctCount; i += i & -i) {
+                tree[i]--;
+            }
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * @param index position in ascending order, starting from 0
+     * @return value at the given position
+     */
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        // Finds the first distinct value whose cumulative count exceeds the index.
+        int position = 0;
+        int remaining = index + 1;
+        for (int step = Integer.highestOneBit(distinctCount); step > 0; step >>= 1) {
+            if (position + step <= distinctCount && tree[position + step] < remaining) {
+                position += step;
+                remaining -= tree[position];
+            }
+        }
+        return keys[position];
+    }
+
+    /**
+     * @param value value to be ranked
+     * @return number of stored values which are less than or equal to the given value
+     */
+    public int countAtMost(long value) {
+        int index = Arrays.binarySearch(keys, 0, distinctCount, value);
+        int position = index >= 0 ? index + 1 : -index - 1;
+        int count = 0;
+        for (int i = position; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of distinct values
+     */
+    public int distinctCount() {
+        return distinctCount;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        keys = new long[INITIAL_CAPACITY];
+        counts = new int[INITIAL_CAPACITY];
+        tree = new int[INITIAL_CAPACITY + 1];
+        distinctCount = 0;
+        size = 0;
+    }
+
+    /**
+     * @return a copy of the stored values in ascending order, with every occurrence
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int offset = 0;
+        for (int i = 0; i < distinctCount; i++) {
+            Arrays.fill(result, offset, offset + counts[i], keys[i]);
+            offset += counts[i];
+        }
+        return result;
+    }
+
+    /**
+     * @return compact binary form of the run lengths, see {@link SortedValuesCodec#encodeRuns(long[], int[], int)}
+     */
+    public byte[] encode() {
+        return SortedValuesCodec.encodeRuns(keys, counts, distinctCount);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newCapacity = Math.max(capacity, keys.length << 1);
+            keys = Arrays.copyOf(keys, newCapacity);
+            counts = Arrays.copyOf(counts, newCapacity);
+            tree = new int[newCapacity + 1];
+        }
+    }
+
+    private void rebuildTree() {
+        Arrays.fill(tree, 0);
+        for (int i = 1; i <= distinctCount; i++) {
+            tree[i] += counts[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= distinctCount) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
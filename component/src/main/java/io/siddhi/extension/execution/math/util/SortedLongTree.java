@@ -0,0 +1,608 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+/**
+ * Counted B+ tree of long values, shared by {@link SortedLongList}, {@link SortedDoubleList} and
+ * {@link OffHeapSortedLongList}, which only differ in where the leaves keep their values.
+ * <p>
+ * Leaves hold sorted values in a {@link LeafValues} obtained from the {@link LeafStorage} of the tree, and every
+ * branch keeps the element count and the largest value of each child. Hence add, remove, positional lookup and rank
+ * queries are O(log n). Values of leaves which are merged away or cleared are handed back to the storage, which may
+ * reuse them for the following leaves.
+ */
+final class SortedLongTree {
+
+    static final int LEAF_CAPACITY = 512;
+    static final int INITIAL_LEAF_CAPACITY = 16;
+    private static final int BRANCH_CAPACITY = 64;
+
+    /**
+     * Storage of leaves holding their values in primitive arrays, grown on demand up to {@link #LEAF_CAPACITY}.
+     */
+    static final LeafStorage HEAP = new LeafStorage() {
+        @Override
+        LeafValues allocate(int capacity) {
+            return new HeapLeafValues(Math.max(INITIAL_LEAF_CAPACITY, capacity));
+        }
+    };
+
+    private final LeafStorage storage;
+    private Node root;
+    private int size;
+
+    SortedLongTree(LeafStorage storage) {
+        this.storage = storage;
+        root = new Leaf(storage.allocate(INITIAL_LEAF_CAPACITY));
+    }
+
+    /**
+     * Replaces the stored values by values which are already sorted in ascending order.
+     *
+     * @param sortedValues sorted values
+     */
+    void load(long[] sortedValues) {
+        clear();
+        if (sortedValues.length == 0) {
+            return;
+        }
+        storage.release(((Leaf) root).values);
+        // Leaves are filled up to 3/4 so that the following inserts do not split them right away.
+        int leafFill = LEAF_CAPACITY * 3 / 4;
+        Node[] level = new Node[(sortedValues.length + leafFill - 1) / leafFill];
+        for (int i = 0; i < level.length; i++) {
+            int from = i * leafFill;
+            int to = Math.min(from + leafFill, sortedValues.length);
+            Leaf leaf = new Leaf(storage.allocate(to - from));
+            leaf.values.copyFrom(sortedValues, from, 0, to - from);
+            leaf.size = to - from;
+            level[i] = leaf;
+        }
+        int branchFill = BRANCH_CAPACITY * 3 / 4;
+        while (level.length > 1) {
+            Node[] upperLevel = new Node[(level.length + branchFill - 1) / branchFill];
+            for (int i = 0; i < upperLevel.length; i++) {
+                Branch branch = new Branch();
+                for (int j = i * branchFill; j < Math.min((i + 1) * branchFill, level.length); j++) {
+                    branch.insertChild(branch.childCount, level[j]);
+                    branch.size += level[j].size();
+                }
+                upperLevel[i] = branch;
+            }
+            level = upperLevel;
+        }
+        root = level[0];
+        size = sortedValues.length;
+    }
+
+    void add(long value) {
+        Node sibling = root.add(value);
+        if (sibling != null) {
+            Branch newRoot = new Branch();
+            newRoot.insertChild(0, root);
+            newRoot.insertChild(1, sibling);
+            newRoot.size = size + 1;
+            root = newRoot;
+        }
+        size++;
+    }
+
+    /**
+     * Removes a single occurrence of the given value.
+     *
+     * @param value value to be removed
+     * @return true if the value was found and removed
+     */
+    boolean remove(long value) {
+        if (size == 0 || !root.remove(value)) {
+            return false;
+        }
+        size--;
+        while (root instanceof Branch && ((Branch) root).childCount == 1) {
+            root = ((Branch) root).children[0];
+        }
+        return true;
+    }
+
+    /**
+     * @param index position in ascending order, starting from 0
+     * @return value at the given position
+     */
+    long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return root.get(index);
+    }
+
+    /**
+     * @param value value to be ranked
+     * @return number of stored values which are less than or equal to the given value
+     */
+    int countAtMost(long value) {
+        return size == 0 ? 0 : root.countAtMost(value);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes all the values, handing the values of every leaf back to the storage.
+     */
+    void clear() {
+        if (size == 0 && root instanceof Leaf) {
+            return;
+        }
+        root.release();
+        root = new Leaf(storage.allocate(INITIAL_LEAF_CAPACITY));
+        size = 0;
+    }
+
+    /**
+     * @return a copy of the stored values in ascending order
+     */
+    long[] toArray() {
+        long[] result = new long[size];
+        root.copyTo(result, 0);
+        return result;
+    }
+
+    /**
+     * @return index of the first element in the sorted array range which is greater than the given value
+     */
+    static int upperBound(long[] values, int size, long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compare(values[mid], value) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return index of the first element in the sorted array range which is greater than or equal to the given value
+     */
+    static int lowerBound(long[] values, int size, long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compare(values[mid], value) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Provides the values of the leaves of a tree.
+     */
+    abstract static class LeafStorage {
+
+        /**
+         * @param capacity number of values the leaf needs to hold, at most {@link #LEAF_CAPACITY}
+         * @return values of a new leaf, which may hold more than the given capacity
+         */
+        abstract LeafValues allocate(int capacity);
+
+        /**
+         * Takes back the values of a leaf which is no longer part of the tree.
+         *
+         * @param values values of the leaf
+         */
+        void release(LeafValues values) {
+        }
+    }
+
+    /**
+     * Fixed capacity storage of the values of a leaf, of which the leaf keeps a sorted prefix.
+     */
+    abstract static class LeafValues {
+
+        abstract int capacity();
+
+        abstract long get(int index);
+
+        abstract void set(int index, long value);
+
+        /**
+         * Moves values within these values, with the semantics of {@link System#arraycopy}.
+         */
+        abstract void move(int from, int to, int count);
+
+        /**
+         * Copies values to values of the same storage.
+         */
+        abstract void copyTo(int from, LeafValues target, int to, int count);
+
+        abstract void copyTo(int from, long[] target, int to, int count);
+
+        abstract void copyFrom(long[] source, int from, int to, int count);
+
+        /**
+         * @return index of the first of the given number of values which is greater than the given value
+         */
+        abstract int upperBound(int size, long value);
+
+        /**
+         * @return index of the first of the given number of values which is greater than or equal to the given value
+         */
+        abstract int lowerBound(int size, long value);
+    }
+
+    /**
+     * Leaf values in a primitive array.
+     */
+    private static final class HeapLeafValues extends LeafValues {
+
+        private final long[] values;
+
+        private HeapLeafValues(int capacity) {
+            values = new long[capacity];
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        long get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void set(int index, long value) {
+            values[index] = value;
+        }
+
+        @Override
+        void move(int from, int to, int count) {
+            System.arraycopy(values, from, values, to, count);
+        }
+
+        @Override
+        void copyTo(int from, LeafValues target, int to, int count) {
+            System.arraycopy(values, from, ((HeapLeafValues) target).values, to, count);
+        }
+
+        @Override
+        void copyTo(int from, long[] target, int to, int count) {
+            System.arraycopy(values, from, target, to, count);
+        }
+
+        @Override
+        void copyFrom(long[] source, int from, int to, int count) {
+            System.arraycopy(source, from, values, to, count);
+        }
+
+        @Override
+        int upperBound(int size, long value) {
+            return SortedLongTree.upperBound(values, size, value);
+        }
+
+        @Override
+        int lowerBound(int size, long value) {
+            return SortedLongTree.lowerBound(values, size, value);
+        }
+    }
+
+    /**
+     * Node of the counted B+ tree.
+     */
+    private abstract static class Node {
+
+        abstract int size();
+
+        /**
+         * @return largest value in this non empty node
+         */
+        abstract long max();
+
+        /**
+         * @return newly created right sibling when this node had to be split, otherwise null
+         */
+        abstract Node add(long value);
+
+        abstract boolean remove(long value);
+
+        abstract long get(int index);
+
+        abstract int countAtMost(long value);
+
+        abstract int copyTo(long[] target, int offset);
+
+        /**
+         * Hands the values of the leaves under this node back to the storage.
+         */
+        abstract void release();
+    }
+
+    /**
+     * Leaf holding a sorted prefix of its values, which are replaced by larger ones on demand up to
+     * {@link #LEAF_CAPACITY}.
+     */
+    private final class Leaf extends Node {
+
+        private LeafValues values;
+        private int size;
+
+        private Leaf(LeafValues values) {
+            this.values = values;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        long max() {
+            return values.get(size - 1);
+        }
+
+        @Override
+        Node add(long value) {
+            int insertIndex = values.upperBound(size, value);
+            if (size < LEAF_CAPACITY) {
+                insert(insertIndex, value);
+                return null;
+            }
+            int half = size >>> 1;
+            Leaf right = new Leaf(storage.allocate(LEAF_CAPACITY));
+            values.copyTo(half, right.values, 0, size - half);
+            right.size = size - half;
+            size = half;
+            if (insertIndex <= half) {
+                insert(insertIndex, value);
+            } else {
+                right.insert(insertIndex - half, value);
+            }
+            return right;
+        }
+
+        private void insert(int insertIndex, long value) {
+            if (size == values.capacity()) {
+                LeafValues grown = storage.allocate(Math.min(LEAF_CAPACITY,
+                        size + Math.max(INITIAL_LEAF_CAPACITY, size >> 1)));
+                values.copyTo(0, grown, 0, size);
+                storage.release(values);
+                values = grown;
+            }
+            values.move(insertIndex, insertIndex + 1, size - insertIndex);
+            values.set(insertIndex, value);
+            size++;
+        }
+
+        @Override
+        boolean remove(long value) {
+            int removeIndex = values.lowerBound(size, value);
+            if (removeIndex == size || values.get(removeIndex) != value) {
+                return false;
+            }
+            values.move(removeIndex + 1, removeIndex, size - removeIndex - 1);
+            size--;
+            return true;
+        }
+
+        @Override
+        long get(int index) {
+            return values.get(index);
+        }
+
+        @Override
+        int countAtMost(long value) {
+            return values.upperBound(size, value);
+        }
+
+        @Override
+        int copyTo(long[] target, int offset) {
+            values.copyTo(0, target, offset, size);
+            return offset + size;
+        }
+
+        @Override
+        void release() {
+            storage.release(values);
+            values = null;
+        }
+
+        /**
+         * Appends the values of the right neighbour, which only happens when both fit in a single leaf, and hands
+         * the values of the neighbour back to the storage.
+         */
+        private void appendAll(Leaf other) {
+            if (size + other.size > values.capacity()) {
+                LeafValues grown = storage.allocate(size + other.size);
+                values.copyTo(0, grown, 0, size);
+                storage.release(values);
+                values = grown;
+            }
+            other.values.copyTo(0, values, size, other.size);
+            size += other.size;
+            other.release();
+        }
+    }
+
+    /**
+     * Branch keeping the element count and the largest value of each child, used for routing by value and by rank.
+     */
+    private final class Branch extends Node {
+
+        private final Node[] children = new Node[BRANCH_CAPACITY + 1];
+        private final int[] counts = new int[BRANCH_CAPACITY + 1];
+        private final long[] maxValues = new long[BRANCH_CAPACITY + 1];
+        private int childCount;
+        private int size;
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        long max() {
+            return maxValues[childCount - 1];
+        }
+
+        @Override
+        Node add(long value) {
+            // Values equal to an existing one go after it, hence route to the first child having a larger value.
+            int childIndex = Math.min(upperBound(maxValues, childCount, value), childCount - 1);
+            Node child = children[childIndex];
+            Node sibling = child.add(value);
+            counts[childIndex] = child.size();
+            maxValues[childIndex] = child.max();
+            size++;
+            if (sibling == null) {
+                return null;
+            }
+            insertChild(childIndex + 1, sibling);
+            if (childCount <= BRANCH_CAPACITY) {
+                return null;
+            }
+            int half = childCount >>> 1;
+            Branch right = new Branch();
+            for (int i = half; i < childCount; i++) {
+                right.insertChild(right.childCount, children[i]);
+                right.size += counts[i];
+                size -= counts[i];
+                children[i] = null;
+            }
+            childCount = half;
+            return right;
+        }
+
+        @Override
+        boolean remove(long value) {
+            int childIndex = lowerBound(maxValues, childCount, value);
+            if (childIndex == childCount) {
+                return false;
+            }
+            Node child = children[childIndex];
+            if (!child.remove(value)) {
+                return false;
+            }
+            size--;
+            if (child.size() == 0) {
+                // The only child of a branch is kept, so that an emptied tree keeps its last leaf as the root.
+                if (childCount > 1) {
+                    child.release();
+                    removeChild(childIndex);
+                } else {
+                    counts[childIndex] = 0;
+                }
+                return true;
+            }
+            counts[childIndex] = child.size();
+            maxValues[childIndex] = child.max();
+            if (child instanceof Leaf && child.size() < LEAF_CAPACITY / 4) {
+                mergeLeaves(childIndex);
+            }
+            return true;
+        }
+
+        /**
+         * Merges a sparse leaf with one of its neighbours when they fit comfortably in a single leaf.
+         */
+        private void mergeLeaves(int childIndex) {
+            int leftIndex;
+            if (childIndex + 1 < childCount && counts[childIndex] + counts[childIndex + 1] <= LEAF_CAPACITY / 2) {
+                leftIndex = childIndex;
+            } else if (childIndex > 0 && counts[childIndex - 1] + counts[childIndex] <= LEAF_CAPACITY / 2) {
+                leftIndex = childIndex - 1;
+            } else {
+                return;
+            }
+            Leaf left = (Leaf) children[leftIndex];
+            left.appendAll((Leaf) children[leftIndex + 1]);
+            int mergedSize = left.size();
+            long mergedMax = maxValues[leftIndex + 1];
+            removeChild(leftIndex + 1);
+            counts[leftIndex] = mergedSize;
+            maxValues[leftIndex] = mergedMax;
+        }
+
+        @Override
+        long get(int index) {
+            int childIndex = 0;
+            while (index >= counts[childIndex]) {
+                index -= counts[childIndex];
+                childIndex++;
+            }
+            return children[childIndex].get(index);
+        }
+
+        @Override
+        int countAtMost(long value) {
+            // Children before the first one having a larger value are counted as a whole.
+            int childIndex = upperBound(maxValues, childCount, value);
+            int count = 0;
+            for (int i = 0; i < childIndex; i++) {
+                count += counts[i];
+            }
+            if (childIndex < childCount) {
+                count += children[childIndex].countAtMost(value);
+            }
+            return count;
+        }
+
+        @Override
+        int copyTo(long[] target, int offset) {
+            for (int i = 0; i < childCount; i++) {
+                offset = children[i].copyTo(target, offset);
+            }
+            return offset;
+        }
+
+        @Override
+        void release() {
+            for (int i = 0; i < childCount; i++) {
+                children[i].release();
+            }
+        }
+
+        private void insertChild(int index, Node child) {
+            int moved = childCount - index;
+            System.arraycopy(children, index, children, index + 1, moved);
+            System.arraycopy(counts, index, counts, index + 1, moved);
+            System.arraycopy(maxValues, index, maxValues, index + 1, moved);
+            children[index] = child;
+            counts[index] = child.size();
+            maxValues[index] = child.max();
+            childCount++;
+        }
+
+        private void removeChild(int index) {
+            int moved = childCount - index - 1;
+            System.arraycopy(children, index + 1, children, index, moved);
+            System.arraycopy(counts, index + 1, counts, index, moved);
+            System.arraycopy(maxValues, index + 1, maxValues, index, moved);
+            childCount--;
+            children[childCount] = null;
+        }
+    }
+}
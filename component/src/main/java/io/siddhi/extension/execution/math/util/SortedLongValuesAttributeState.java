@@ -0,0 +1,147 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import java.util.List;
+
+/**
+ * Base of the exact percentile states of INT and LONG values, which are kept and compared as longs. Values with few
+ * distinct values are kept as run lengths, see {@link AdaptiveSortedLongList}.
+ */
+public abstract class SortedLongValuesAttributeState extends SortedValuesAttributeState {
+
+    private AdaptiveSortedLongList values = new AdaptiveSortedLongList();
+
+    protected SortedLongValuesAttributeState(PercentileMemoryBudget budget, boolean outputExpectsExpiredEvents) {
+        super(budget, outputExpectsExpiredEvents);
+    }
+
+    @Override
+    public Object processAdd(Object data) {
+        add(((Number) data).longValue());
+        return currentValue();
+    }
+
+    @Override
+    public Object processRemove(Object obj) {
+        remove(((Number) obj).longValue());
+        return expiredValue(outputExpectsExpiredEvents);
+    }
+
+    protected void add(long value) {
+        if (!admit(value)) {
+            return;
+        }
+        values.add(value);
+        if (!reserveRetained()) {
+            values.remove(value);
+            degrade();
+            add(value);
+            return;
+        }
+        changed();
+        changeLog.recordAdd(value, values.size());
+    }
+
+    protected void remove(long value) {
+        if (admitRemoval() && values.remove(value)) {
+            releaseRetained();
+            changed();
+            changeLog.recordRemove(value, values.size());
+        }
+    }
+
+    @Override
+    protected int retainedCount() {
+        return values.size();
+    }
+
+    @Override
+    protected long retainedBytes() {
+        return values.estimatedBytes();
+    }
+
+    @Override
+    protected void removeRetainedAt(int index) {
+        long value = values.get(index);
+        values.remove(value);
+        releaseRetained();
+        changed();
+        changeLog.recordRemove(value, values.size());
+    }
+
+    @Override
+    protected double[] retainedValues() {
+        long[] retained = values.toArray();
+        double[] result = new double[retained.length];
+        for (int i = 0; i < retained.length; i++) {
+            result[i] = retained[i];
+        }
+        return result;
+    }
+
+    @Override
+    protected void clearRetained() {
+        values.clear();
+        changeLog.clear();
+        changed();
+    }
+
+    @Override
+    protected double retainedPercentile(double percentile) {
+        return values.percentile(percentile);
+    }
+
+    @Override
+    protected byte[] encodeRetained() {
+        return values.encode();
+    }
+
+    @Override
+    protected void restoreRetained(byte[] encoded) {
+        values = AdaptiveSortedLongList.decode(encoded);
+    }
+
+    @Override
+    protected void restoreAdded(long key) {
+        values.add(key);
+    }
+
+    @Override
+    protected void restoreRemoved(long key) {
+        values.remove(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void restoreLegacy(Object restoredValues) {
+        if (restoredValues instanceof List) {
+            // Snapshots taken before the primitive storage was introduced contain a sorted List<Double>.
+            List<Double> valuesList = (List<Double>) restoredValues;
+            long[] sortedValues = new long[valuesList.size()];
+            for (int i = 0; i < sortedValues.length; i++) {
+                sortedValues[i] = valuesList.get(i).longValue();
+            }
+            values = AdaptiveSortedLongList.fromSorted(sortedValues);
+        } else if (restoredValues instanceof long[]) {
+            values = AdaptiveSortedLongList.fromSorted((long[]) restoredValues);
+        } else {
+            values = AdaptiveSortedLongList.decode((byte[]) restoredValues);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import io.siddhi.core.util.snapshot.state.Snapshot;
+import io.siddhi.core.util.snapshot.state.SnapshotStateList;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Base of the exact percentile states, which retain every value of the window in sorted order and compute any
+ * percentile of them. Used by both {@code math:percentile} and {@code math:percentiles}, which only differ in the
+ * percentiles computed from the values.
+ * <p>
+ * The memory of the retained values is kept within a {@link PercentileMemoryBudget}. A state which would exceed the
+ * budget either fails the event, samples its values or summarises them in a t-digest, as configured by the policy of
+ * the budget, until it is reset.
+ */
+public abstract class SortedValuesAttributeState extends CachedPercentileAttributeState {
+
+    private static final String VALUES_LIST = "VALUES_LIST";
+    private static final String SKETCH = "SKETCH";
+    private static final String SAMPLE_CAPACITY = "SAMPLE_CAPACITY";
+    private static final String SAMPLED_COUNT = "SAMPLED_COUNT";
+    private static final double SKETCH_COMPRESSION = 100;
+
+    protected final SortedValuesChangeLog changeLog = new SortedValuesChangeLog();
+    protected final boolean outputExpectsExpiredEvents;
+    private final PercentileMemoryBudget budget;
+    private long reservedBytes;
+    private int sampleCapacity;
+    private long sampledCount;
+    private TDigest sketch;
+
+    protected SortedValuesAttributeState(PercentileMemoryBudget budget, boolean outputExpectsExpiredEvents) {
+        this.budget = budget;
+        this.outputExpectsExpiredEvents = outputExpectsExpiredEvents;
+    }
+
+    protected abstract int retainedCount();
+
+    /**
+     * @return estimated bytes of the retained values, as kept by their storage
+     */
+    protected abstract long retainedBytes();
+
+    /**
+     * Removes the value at the given position of the retained values, in ascending order.
+     */
+    protected abstract void removeRetainedAt(int index);
+
+    protected abstract double[] retainedValues();
+
+    protected abstract void clearRetained();
+
+    /**
+     * @param percentile percentile (p)
+     * @return pth percentile of the retained values
+     */
+    protected abstract double retainedPercentile(double percentile);
+
+    /**
+     * @return retained values encoded for a full snapshot
+     */
+    protected abstract byte[] encodeRetained();
+
+    /**
+     * Replaces the retained values with the values of a full snapshot.
+     */
+    protected abstract void restoreRetained(byte[] encoded);
+
+    /**
+     * Replays a value added after a full snapshot, as recorded in the change log.
+     */
+    protected abstract void restoreAdded(long key);
+
+    /**
+     * Replays a value removed after a full snapshot, as recorded in the change log.
+     */
+    protected abstract void restoreRemoved(long key);
+
+    /**
+     * Replaces the retained values with the values of a snapshot taken before the change log was introduced.
+     */
+    protected abstract void restoreLegacy(Object restoredValues);
+
+    /**
+     * @param percentile percentile (p)
+     * @return pth percentile of the values of the state
+     */
+    public double percentile(double percentile) {
+        return sketch != null ? sketch.percentile(percentile) : retainedPercentile(percentile);
+    }
+
+    /**
+     * Removes all the values, and lifts the degradation of the state.
+     */
+    protected void clear() {
+        clearRetained();
+        budget.release(reservedBytes);
+        reservedBytes = 0;
+        sampleCapacity = 0;
+        sampledCount = 0;
+        sketch = null;
+        changed();
+    }
+
+    /**
+     * Decides whether a new value is retained. The caller then retains it and calls {@link #reserveRetained()}.
+     *
+     * @param value new value
+     * @return true if the value has to be retained by the caller
+     */
+    protected boolean admit(double value) {
+        if (sketch != null) {
+            sketch.add(value);
+            changed();
+            return false;
+        }
+        if (sampleCapacity > 0) {
+            // Reservoir sampling: the nth value of the window replaces a random sampled value with probability
+            // capacity / n, hence the sample stays uniform.
+            sampledCount++;
+            if (retainedCount() < sampleCapacity) {
+                return true;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextLong(sampledCount) >= sampleCapacity) {
+                return false;
+            }
+            removeRetainedAt(random.nextInt(retainedCount()));
+            return true;
+        }
+        return true;
+    }
+
+    /**
+     * Reserves the memory of the value just retained by the caller. When it does not fit in the budget, nothing is
+     * reserved, and the caller removes the value again and calls {@link #degrade()} before adding it anew.
+     *
+     * @return true if the retained values fit in the budget
+     */
+    protected boolean reserveRetained() {
+        long bytes = retainedBytes();
+        if (sampleCapacity > 0) {
+            // The sample keeps its number of values, its memory only varies with the values kept as run lengths.
+            budget.forceReserve(bytes - reservedBytes);
+        } else if (!budget.reserve(reservedBytes, bytes)) {
+            return false;
+        }
+        reservedBytes = bytes;
+        return true;
+    }
+
+    /**
+     * @return true if an expired value has to be removed from the retained values by the caller
+     */
+    protected boolean admitRemoval() {
+        if (sketch != null) {
+            return false;
+        }
+        if (sampleCapacity > 0 && sampledCount > 0) {
+            sampledCount--;
+        }
+        return true;
+    }
+
+    /**
+     * Releases the memory of a value removed by the caller, also when the state is sampling, so that an emptied
+     * state retains nothing from the budget.
+     */
+    protected void releaseRetained() {
+        long bytes = retainedBytes();
+        budget.release(reservedBytes - bytes);
+        reservedBytes = bytes;
+    }
+
+    /**
+     * Degrades the state which cannot retain one more value, as decided by the policy of the budget.
+     */
+    protected void degrade() {
+        switch (budget.getPolicy()) {
+            case SAMPLE:
+                if (retainedCount() == 0) {
+                    break;
+                }
+                sampleCapacity = retainedCount();
+                sampledCount = sampleCapacity;
+                budget.logDegraded("sampling " + sampleCapacity + " values");
+                return;
+            case SKETCH:
+                sketch = new TDigest(SKETCH_COMPRESSION);
+                for (double value : retainedValues()) {
+                    sketch.add(value);
+                }
+                clearRetained();
+                budget.release(reservedBytes);
+                reservedBytes = 0;
+                budget.logDegraded("a t-digest, which ignores expired events");
+                return;
+            default:
+                break;
+        }
+        throw budget.exceeded();
+    }
+
+    @Override
+    public boolean canDestroy() {
+        return retainedCount() == 0 && sketch == null;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        Map<String, Object> state = new HashMap<>();
+        if (changeLog.isBaseRequired()) {
+            state.put(VALUES_LIST, changeLog.snapshotBase(encodeRetained()));
+        } else {
+            state.put(VALUES_LIST, changeLog.snapshotChanges());
+        }
+        if (sketch != null) {
+            state.put(SKETCH, sketch.snapshot());
+        }
+        if (sampleCapacity > 0) {
+            state.put(SAMPLE_CAPACITY, sampleCapacity);
+            state.put(SAMPLED_COUNT, sampledCount);
+        }
+        return state;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void restore(Map<String, Object> state) {
+        Object restoredValues = state.get(VALUES_LIST);
+        changeLog.clear();
+        changed();
+        if (restoredValues instanceof SnapshotStateList || restoredValues instanceof Snapshot) {
+            for (Snapshot snapshot : SortedValuesChangeLog.toSnapshots(restoredValues)) {
+                if (!snapshot.isIncrementalSnapshot()) {
+                    restoreRetained((byte[]) snapshot.getState());
+                    changeLog.restoredBase();
+                } else {
+                    for (long key : changeLog.restoredAdded(snapshot.getState())) {
+                        restoreAdded(key);
+                    }
+                    for (long key : changeLog.restoredRemoved(snapshot.getState())) {
+                        restoreRemoved(key);
+                    }
+                }
+            }
+        } else {
+            restoreLegacy(restoredValues);
+        }
+        Map<String, Object> sketchState = (Map<String, Object>) state.get(SKETCH);
+        sketch = null;
+        if (sketchState != null) {
+            sketch = new TDigest(SKETCH_COMPRESSION);
+            sketch.restore(sketchState);
+        }
+        Object restoredCapacity = state.get(SAMPLE_CAPACITY);
+        sampleCapacity = restoredCapacity == null ? 0 : (Integer) restoredCapacity;
+        sampledCount = restoredCapacity == null ? 0 : (Long) state.get(SAMPLED_COUNT);
+        budget.release(reservedBytes);
+        reservedBytes = retainedBytes();
+        budget.forceReserve(reservedBytes);
+    }
+}
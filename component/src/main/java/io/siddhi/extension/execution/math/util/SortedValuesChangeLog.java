@@ -0,0 +1,176 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import io.siddhi.core.util.snapshot.state.Snapshot;
+import io.siddhi.core.util.snapshot.state.SnapshotRequest;
+import io.siddhi.core.util.snapshot.state.SnapshotStateList;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Log of the values added to and removed from a sorted values state since its last snapshot, used for incremental
+ * persistence.
+ * <p>
+ * As the states are multisets, the order of the changes does not matter, hence the added and the removed values are
+ * kept apart, sorted, and encoded with {@link SortedValuesCodec}. A full snapshot of the values (the base) is
+ * requested when the changes since the last base outnumber the values, so that restoring never replays more
+ * changes than a full snapshot holds values. Values are kept as longs; states of doubles log their IEEE bits.
+ */
+public class SortedValuesChangeLog {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MIN_CHANGES_BEFORE_BASE = 1024;
+
+    private long[] added = new long[INITIAL_CAPACITY];
+    private int addedCount;
+    private long[] removed = new long[INITIAL_CAPACITY];
+    private int removedCount;
+    private long changesSinceBase;
+    private boolean baseRequired = true;
+
+    /**
+     * @param value value added to the state
+     * @param size  number of values in the state
+     */
+    public void recordAdd(long value, int size) {
+        if (baseRequired) {
+            return;
+        }
+        if (addedCount == added.length) {
+            added = Arrays.copyOf(added, addedCount << 1);
+        }
+        added[addedCount++] = value;
+        checkBaseRequired(size);
+    }
+
+    /**
+     * @param value value removed from the state
+     * @param size  number of values in the state
+     */
+    public void recordRemove(long value, int size) {
+        if (baseRequired) {
+            return;
+        }
+        if (removedCount == removed.length) {
+            removed = Arrays.copyOf(removed, removedCount << 1);
+        }
+        removed[removedCount++] = value;
+        checkBaseRequired(size);
+    }
+
+    /**
+     * Requests a full snapshot next, as the state has been replaced (e.g. cleared) as a whole.
+     */
+    public void clear() {
+        baseRequired = true;
+        resetChanges();
+    }
+
+    /**
+     * @return whether the next snapshot has to be a full snapshot of the values
+     */
+    public boolean isBaseRequired() {
+        return baseRequired || SnapshotRequest.isRequestForFullSnapshot();
+    }
+
+    /**
+     * @param sortedValues encoded values of the state
+     * @return full snapshot of the values
+     */
+    public Snapshot snapshotBase(byte[] sortedValues) {
+        baseRequired = false;
+        changesSinceBase = 0;
+        resetChanges();
+        return new Snapshot(sortedValues, false);
+    }
+
+    /**
+     * @return incremental snapshot holding the changes since the previous snapshot
+     */
+    public Snapshot snapshotChanges() {
+        long[] sortedAdded = Arrays.copyOf(added, addedCount);
+        long[] sortedRemoved = Arrays.copyOf(removed, removedCount);
+        Arrays.sort(sortedAdded);
+        Arrays.sort(sortedRemoved);
+        changesSinceBase += addedCount + removedCount;
+        resetChanges();
+        return new Snapshot(new byte[][]{SortedValuesCodec.encode(sortedAdded),
+                SortedValuesCodec.encode(sortedRemoved)}, true);
+    }
+
+    /**
+     * Marks that the state has been restored from a full snapshot.
+     */
+    public void restoredBase() {
+        baseRequired = false;
+        changesSinceBase = 0;
+        resetChanges();
+    }
+
+    /**
+     * @param changes state of an incremental snapshot created by {@link #snapshotChanges()}
+     * @return values added by the changes
+     */
+    public long[] restoredAdded(Object changes) {
+        long[] values = SortedValuesCodec.decodeLongs(((byte[][]) changes)[0]);
+        changesSinceBase += values.length;
+        return values;
+    }
+
+    /**
+     * @param changes state of an incremental snapshot created by {@link #snapshotChanges()}
+     * @return values removed by the changes
+     */
+    public long[] restoredRemoved(Object changes) {
+        long[] values = SortedValuesCodec.decodeLongs(((byte[][]) changes)[1]);
+        changesSinceBase += values.length;
+        return values;
+    }
+
+    /**
+     * @param restored restored snapshot entry, either a single snapshot or the snapshots since the last base
+     * @return snapshots in the order they have to be applied
+     */
+    public static Collection<Snapshot> toSnapshots(Object restored) {
+        if (restored instanceof Snapshot) {
+            return Collections.singletonList((Snapshot) restored);
+        }
+        return ((SnapshotStateList) restored).getSnapshotStates().values();
+    }
+
+    private void checkBaseRequired(int size) {
+        if (changesSinceBase + addedCount + removedCount > Math.max(size, MIN_CHANGES_BEFORE_BASE)) {
+            // The changes would cost more to replay than the values to restore, hence they are dropped.
+            clear();
+        }
+    }
+
+    private void resetChanges() {
+        if (added.length > INITIAL_CAPACITY) {
+            added = new long[INITIAL_CAPACITY];
+        }
+        if (removed.length > INITIAL_CAPACITY) {
+            removed = new long[INITIAL_CAPACITY];
+        }
+        addedCount = 0;
+        removedCount = 0;
+    }
+}
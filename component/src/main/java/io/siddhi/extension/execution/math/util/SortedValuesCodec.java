@@ -0,0 +1,267 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import java.util.Arrays;
+
+/**
+ * Compact binary form of sorted values, used to snapshot the percentile states.
+ * <p>
+ * The values are mapped to longs which keep their order (the values themselves for longs, the sign adjusted IEEE
+ * bits for doubles), the differences between consecutive values are divided by their common power of two, and
+ * written as variable length unsigned integers. Repeated values hence take a single byte, and values sharing their
+ * exponent, such as whole numbers, take one or two bytes, instead of the 8 bytes of the value and the object
+ * overhead of Java serialization.
+ * <p>
+ * Layout: version byte, value count, shift byte, followed by the differences, all counts and differences as
+ * unsigned LEB128 variable length integers.
+ * <p>
+ * Values kept as run lengths, see {@link SortedLongCounts}, are written in a second layout, so that a snapshot does
+ * not expand them to every occurrence: run length version byte, distinct value count, shift byte, followed by the
+ * difference and the number of occurrences of each distinct value.
+ */
+public final class SortedValuesCodec {
+
+    private static final byte SERIAL_VERSION = 1;
+    private static final byte RUN_LENGTH_SERIAL_VERSION = 2;
+
+    private SortedValuesCodec() {
+    }
+
+    /**
+     * @param sortedValues values in ascending order
+     * @return compact binary form of the values
+     */
+    public static byte[] encode(double[] sortedValues) {
+        long[] keys = new long[sortedValues.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = toSortableLong(sortedValues[i]);
+        }
+        return encodeKeys(keys);
+    }
+
+    /**
+     * @param sortedValues values in ascending order
+     * @return compact binary form of the values
+     */
+    public static byte[] encode(long[] sortedValues) {
+        return encodeKeys(sortedValues);
+    }
+
+    /**
+     * @param distinctValues distinct values in ascending order
+     * @param counts         number of occurrences of each distinct value
+     * @param distinctCount  number of distinct values, which may be less than the length of the arrays
+     * @return compact binary form of the values
+     */
+    public static byte[] encodeRuns(long[] distinctValues, int[] counts, int distinctCount) {
+        long commonBits = 0;
+        long previous = 0;
+        for (int i = 0; i < distinctCount; i++) {
+            commonBits |= distinctValues[i] - previous;
+            previous = distinctValues[i];
+        }
+        int shift = commonBits == 0 ? 0 : Long.numberOfTrailingZeros(commonBits);
+        int length = 1 + varLongSize(distinctCount) + 1;
+        previous = 0;
+        for (int i = 0; i < distinctCount; i++) {
+            length += varLongSize((distinctValues[i] - previous) >>> shift) + varLongSize(counts[i]);
+            previous = distinctValues[i];
+        }
+        byte[] bytes = new byte[length];
+        bytes[0] = RUN_LENGTH_SERIAL_VERSION;
+        int position = writeVarLong(bytes, 1, distinctCount);
+        bytes[position++] = (byte) shift;
+        previous = 0;
+        for (int i = 0; i < distinctCount; i++) {
+            position = writeVarLong(bytes, position, (distinctValues[i] - previous) >>> shift);
+            position = writeVarLong(bytes, position, counts[i]);
+            previous = distinctValues[i];
+        }
+        return bytes;
+    }
+
+    /**
+     * @param bytes binary form of long values
+     * @return true if the values are written as run lengths by {@link #encodeRuns(long[], int[], int)}
+     */
+    public static boolean isRunLength(byte[] bytes) {
+        return bytes[0] == RUN_LENGTH_SERIAL_VERSION;
+    }
+
+    /**
+     * @param bytes binary form created by {@link #encodeRuns(long[], int[], int)}
+     * @return number of distinct values
+     */
+    public static int runCount(byte[] bytes) {
+        checkVersion(bytes, RUN_LENGTH_SERIAL_VERSION);
+        return (int) readVarLong(bytes, new int[]{1});
+    }
+
+    /**
+     * Reads the run lengths without expanding them.
+     *
+     * @param bytes          binary form created by {@link #encodeRuns(long[], int[], int)}
+     * @param distinctValues array of at least {@link #runCount(byte[])} length, filled with the distinct values
+     * @param counts         array of at least {@link #runCount(byte[])} length, filled with their occurrences
+     */
+    public static void decodeRuns(byte[] bytes, long[] distinctValues, int[] counts) {
+        checkVersion(bytes, RUN_LENGTH_SERIAL_VERSION);
+        int[] position = {1};
+        int distinctCount = (int) readVarLong(bytes, position);
+        int shift = bytes[position[0]++];
+        long previous = 0;
+        for (int i = 0; i < distinctCount; i++) {
+            previous += readVarLong(bytes, position) << shift;
+            distinctValues[i] = previous;
+            counts[i] = (int) readVarLong(bytes, position);
+        }
+    }
+
+    /**
+     * @param bytes binary form created by {@link #encode(double[])}
+     * @return values in ascending order
+     */
+    public static double[] decodeDoubles(byte[] bytes) {
+        long[] keys = decodeKeys(bytes);
+        double[] values = new double[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = fromSortableLong(keys[i]);
+        }
+        return values;
+    }
+
+    /**
+     * @param bytes binary form created by {@link #encode(long[])} or {@link #encodeRuns(long[], int[], int)}
+     * @return values in ascending order, with every occurrence
+     */
+    public static long[] decodeLongs(byte[] bytes) {
+        if (isRunLength(bytes)) {
+            int distinctCount = runCount(bytes);
+            long[] distinctValues = new long[distinctCount];
+            int[] counts = new int[distinctCount];
+            decodeRuns(bytes, distinctValues, counts);
+            int size = 0;
+            for (int count : counts) {
+                size += count;
+            }
+            long[] values = new long[size];
+            int offset = 0;
+            for (int i = 0; i < distinctCount; i++) {
+                Arrays.fill(values, offset, offset + counts[i], distinctValues[i]);
+                offset += counts[i];
+            }
+            return values;
+        }
+        return decodeKeys(bytes);
+    }
+
+    private static byte[] encodeKeys(long[] keys) {
+        // Differences are taken modulo 2^64, hence they are non negative as unsigned numbers even when the
+        // range of the values overflows a long.
+        long commonBits = 0;
+        long previous = 0;
+        for (long key : keys) {
+            commonBits |= key - previous;
+            previous = key;
+        }
+        int shift = commonBits == 0 ? 0 : Long.numberOfTrailingZeros(commonBits);
+        int length = 1 + varLongSize(keys.length) + 1;
+        previous = 0;
+        for (long key : keys) {
+            length += varLongSize((key - previous) >>> shift);
+            previous = key;
+        }
+        byte[] bytes = new byte[length];
+        bytes[0] = SERIAL_VERSION;
+        int position = writeVarLong(bytes, 1, keys.length);
+        bytes[position++] = (byte) shift;
+        previous = 0;
+        for (long key : keys) {
+            position = writeVarLong(bytes, position, (key - previous) >>> shift);
+            previous = key;
+        }
+        return bytes;
+    }
+
+    private static long[] decodeKeys(byte[] bytes) {
+        checkVersion(bytes, SERIAL_VERSION);
+        int[] position = {1};
+        long[] keys = new long[(int) readVarLong(bytes, position)];
+        int shift = bytes[position[0]++];
+        long previous = 0;
+        for (int i = 0; i < keys.length; i++) {
+            previous += readVarLong(bytes, position) << shift;
+            keys[i] = previous;
+        }
+        return keys;
+    }
+
+    private static void checkVersion(byte[] bytes, byte version) {
+        if (bytes[0] != version) {
+            throw new IllegalArgumentException("Unsupported sorted values serial version " + bytes[0]);
+        }
+    }
+
+    /**
+     * @param value double value
+     * @return long which compares to the longs of other doubles as the doubles compare with {@link Double#compare}
+     */
+    public static long toSortableLong(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * @param bits long created by {@link #toSortableLong(double)}
+     * @return the double value
+     */
+    public static double fromSortableLong(long bits) {
+        return Double.longBitsToDouble(bits ^ ((bits >> 63) & Long.MAX_VALUE));
+    }
+
+    private static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarLong(byte[] bytes, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+
+    private static long readVarLong(byte[] bytes, int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = bytes[position[0]++];
+            value |= (long) (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Merging t-digest (Dunning and Ertl) with the arcsine scale function.
+ * <p>
+ * Incoming values are buffered and periodically merged into at most about {@code compression * PI / 2} centroids,
+ * hence the memory is bounded by the compression and independent of the number of values, and the amortised cost
+ * of an update is O(1). Centroids near the tails hold very few values, so extreme percentiles such as p99 or p99.9
+ * have a relative rank error in the order of {@code 1 / compression} or better, while the median is the least
+ * accurate.
+ */
+public class TDigest implements QuantileSketch {
+
+    private static final String MEANS = "MEANS";
+    private static final String WEIGHTS = "WEIGHTS";
+    private static final String MIN = "MIN";
+    private static final String MAX = "MAX";
+
+    private final double compression;
+    private double[] means;
+    private double[] weights;
+    private int centroidCount;
+    private double totalWeight;
+
+    private final double[] bufferValues;
+    private final double[] bufferWeights;
+    private int bufferCount;
+    private double bufferWeight;
+
+    // Scratch space reused by every merge.
+    private double[] mergedMeans;
+    private double[] mergedWeights;
+
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest(double compression) {
+        this.compression = compression;
+        int centroidCapacity = (int) Math.ceil(compression * Math.PI / 2) + 10;
+        means = new double[centroidCapacity];
+        weights = new double[centroidCapacity];
+        int bufferCapacity = (int) Math.ceil(compression * 5) + 10;
+        bufferValues = new double[bufferCapacity];
+        bufferWeights = new double[bufferCapacity];
+        mergedMeans = new double[centroidCapacity + bufferCapacity];
+        mergedWeights = new double[centroidCapacity + bufferCapacity];
+    }
+
+    @Override
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Adds a value which represents the given number of occurrences.
+     *
+     * @param value  value
+     * @param weight positive weight of the value
+     */
+    public void add(double value, double weight) {
+        if (bufferCount == bufferValues.length) {
+            merge();
+        }
+        bufferValues[bufferCount] = value;
+        bufferWeights[bufferCount] = weight;
+        bufferCount++;
+        bufferWeight += weight;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    @Override
+    public void remove(double value) {
+        throw new UnsupportedOperationException("t-digest does not support removing values");
+    }
+
+    /**
+     * Multiplies the weight of every value seen so far by the given factor.
+     *
+     * @param factor positive scale factor
+     */
+    public void scaleWeights(double factor) {
+        for (int i = 0; i < centroidCount; i++) {
+            weights[i] *= factor;
+        }
+        for (int i = 0; i < bufferCount; i++) {
+            bufferWeights[i] *= factor;
+        }
+        totalWeight *= factor;
+        bufferWeight *= factor;
+    }
+
+    /**
+     * Drops the centroids whose weight is below the given weight, such as values which have decayed away. The minimum
+     * and the maximum are recomputed as the means of the outermost remaining centroids, as the values which set them
+     * may no longer count, either because they are dropped or because they are merged into a heavier centroid.
+     *
+     * @param minWeight smallest weight of a centroid which is kept
+     */
+    public void dropLighterThan(double minWeight) {
+        if (bufferCount > 0) {
+            merge();
+        }
+        int keptCount = 0;
+        double keptWeight = 0;
+        for (int i = 0; i < centroidCount; i++) {
+            if (weights[i] >= minWeight) {
+                means[keptCount] = means[i];
+                weights[keptCount] = weights[i];
+                keptWeight += weights[i];
+                keptCount++;
+            }
+        }
+        if (keptCount == 0) {
+            clear();
+            return;
+        }
+        centroidCount = keptCount;
+        totalWeight = keptWeight;
+        min = means[0];
+        max = means[keptCount - 1];
+    }
+
+    @Override
+    public double percentile(double percentile) {
+        if (bufferCount > 0) {
+            merge();
+        }
+        if (centroidCount == 0) {
+            return 0.0;
+        }
+        if (centroidCount == 1) {
+            return means[0];
+        }
+        double index = percentile / 100 * totalWeight;
+        // Interpolation between the minimum and the centre of the first centroid.
+        double firstCentre = weights[0] / 2;
+        if (index <= firstCentre) {
+            return min + (means[0] - min) * (index / firstCentre);
+        }
+        double weightSoFar = firstCentre;
+        for (int i = 0; i < centroidCount - 1; i++) {
+            double distance = (weights[i] + weights[i + 1]) / 2;
+            if (weightSoFar + distance >= index) {
+                return means[i] + (means[i + 1] - means[i]) * ((index - weightSoFar) / distance);
+            }
+            weightSoFar += distance;
+        }
+        // Interpolation between the centre of the last centroid and the maximum.
+        double lastHalf = weights[centroidCount - 1] / 2;
+        double position = Math.min(1, (index - weightSoFar) / lastHalf);
+        return means[centroidCount - 1] + (max - means[centroidCount - 1]) * position;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return centroidCount == 0 && bufferCount == 0;
+    }
+
+    @Override
+    public void clear() {
+        centroidCount = 0;
+        totalWeight = 0;
+        bufferCount = 0;
+        bufferWeight = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    public double getTotalWeight() {
+        return totalWeight + bufferWeight;
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        if (bufferCount > 0) {
+            merge();
+        }
+        double[] snapshotMeans = new double[centroidCount];
+        double[] snapshotWeights = new double[centroidCount];
+        System.arraycopy(means, 0, snapshotMeans, 0, centroidCount);
+        System.arraycopy(weights, 0, snapshotWeights, 0, centroidCount);
+        Map<String, Object> state = new HashMap<>();
+        state.put(MEANS, snapshotMeans);
+        state.put(WEIGHTS, snapshotWeights);
+        state.put(MIN, min);
+        state.put(MAX, max);
+        return state;
+    }
+
+    @Override
+    public void restore(Map<String, Object> state) {
+        clear();
+        double[] restoredMeans = (double[]) state.get(MEANS);
+        double[] restoredWeights = (double[]) state.get(WEIGHTS);
+        if (restoredMeans.length > means.length) {
+            means = new double[restoredMeans.length];
+            weights = new double[restoredMeans.length];
+            mergedMeans = new double[restoredMeans.length + bufferValues.length];
+            mergedWeights = new double[restoredMeans.length + bufferValues.length];
+        }
+        System.arraycopy(restoredMeans, 0, means, 0, restoredMeans.length);
+        System.arraycopy(restoredWeights, 0, weights, 0, restoredWeights.length);
+        centroidCount = restoredMeans.length;
+        for (int i = 0; i < centroidCount; i++) {
+            totalWeight += weights[i];
+        }
+        min = (Double) state.get(MIN);
+        max = (Double) state.get(MAX);
+    }
+
+    /**
+     * Sorts the buffered values and merges them with the existing centroids in a single pass.
+     */
+    private void merge() {
+        sort(bufferValues, bufferWeights, 0, bufferCount - 1);
+        double newTotalWeight = totalWeight + bufferWeight;
+        int mergedCount = 0;
+        int centroidIndex = 0;
+        int bufferIndex = 0;
+        double weightSoFar = 0;
+        double limit = weightLimit(0, newTotalWeight);
+        while (centroidIndex < centroidCount || bufferIndex < bufferCount) {
+            double mean;
+            double weight;
+            if (bufferIndex == bufferCount
+                    || (centroidIndex < centroidCount && means[centroidIndex] <= bufferValues[bufferIndex])) {
+                mean = means[centroidIndex];
+                weight = weights[centroidIndex];
+                centroidIndex++;
+            } else {
+                mean = bufferValues[bufferIndex];
+                weight = bufferWeights[bufferIndex];
+                bufferIndex++;
+            }
+            if (mergedCount > 0 && weightSoFar + weight <= limit) {
+                double mergedWeight = mergedWeights[mergedCount - 1] + weight;
+                mergedMeans[mergedCount - 1] += (mean - mergedMeans[mergedCount - 1]) * weight / mergedWeight;
+                mergedWeights[mergedCount - 1] = mergedWeight;
+                weightSoFar += weight;
+            } else {
+                if (mergedCount > 0) {
+                    limit = weightLimit(weightSoFar, newTotalWeight);
+                }
+                mergedMeans[mergedCount] = mean;
+                mergedWeights[mergedCount] = weight;
+                mergedCount++;
+                weightSoFar += weight;
+            }
+        }
+        double[] swap = means;
+        means = mergedMeans;
+        mergedMeans = swap.length >= means.length ? swap : new double[means.length];
+        swap = weights;
+        weights = mergedWeights;
+        mergedWeights = swap.length >= weights.length ? swap : new double[weights.length];
+        centroidCount = mergedCount;
+        totalWeight = newTotalWeight;
+        bufferCount = 0;
+        bufferWeight = 0;
+    }
+
+    /**
+     * @return cumulative weight up to which a centroid starting at {@code weightSoFar} may grow,
+     * such that it spans at most one unit of the scale function k(q) = compression / (2 PI) * asin(2q - 1)
+     */
+    private double weightLimit(double weightSoFar, double total) {
+        double q = weightSoFar / total;
+        double k = compression / (2 * Math.PI) * Math.asin(2 * q - 1) + 1;
+        if (k >= compression / 4) {
+            return total;
+        }
+        return (Math.sin(2 * Math.PI * k / compression) + 1) / 2 * total;
+    }
+
+    /**
+     * Sorts the values in ascending order while keeping the weights aligned.
+     */
+    private static void sort(double[] values, double[] valueWeights, int from, int to) {
+        while (to - from > 16) {
+            double pivot = values[(from + to) >>> 1];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(values, valueWeights, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            // Recurse into the smaller half to bound the stack depth.
+            if (j - from < to - i) {
+                sort(values, valueWeights, from, j);
+                from = i;
+            } else {
+                sort(values, valueWeights, i, to);
+                to = j;
+            }
+        }
+        for (int i = from + 1; i <= to; i++) {
+            for (int j = i; j > from && values[j - 1] > values[j]; j--) {
+                swap(values, valueWeights, j, j - 1);
+            }
+        }
+    }
+
+    private static void swap(double[] values, double[] valueWeights, int i, int j) {
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+        double weight = valueWeights[i];
+        valueWeights[i] = valueWeights[j];
+        valueWeights[j] = weight;
+    }
+}
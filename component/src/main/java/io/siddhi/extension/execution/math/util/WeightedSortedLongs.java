@@ -0,0 +1,355 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.extension.execution.math.util;
+
+import java.util.Arrays;
+
+/**
+ * Sorted multiset of long values where every occurrence carries a weight, used by the weighted percentile states.
+ * <p>
+ * The distinct values are kept in a treap whose nodes live in primitive arrays. Every node keeps the total weight and
+ * the number of occurrences of its value, and the total weight of its subtree, so adding or removing a weighted
+ * occurrence and finding the value at a cumulative weight are O(log d) for d distinct values, without materialising
+ * an occurrence per unit of weight. The subtree weights are recomputed from the node weights on every change, hence
+ * the rounding errors of removals do not accumulate across the tree, and a value is dropped exactly when its last
+ * occurrence is removed.
+ * <p>
+ * FLOAT and DOUBLE values are kept through {@link SortedValuesCodec#toSortableLong(double)}, which keeps their order.
+ */
+public class WeightedSortedLongs {
+
+    private static final int NIL = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private double[] weights = new double[INITIAL_CAPACITY];
+    private double[] subtreeWeights = new double[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int[] priorities = new int[INITIAL_CAPACITY];
+    private int[] left = new int[INITIAL_CAPACITY];
+    private int[] right = new int[INITIAL_CAPACITY];
+    private int root = NIL;
+    private int allocated;
+    private int freeHead = NIL;
+    private int distinctCount;
+    private int size;
+    private int seed = 0x2545F491;
+
+    /**
+     * Adds an occurrence of the value.
+     *
+     * @param value  value to be added
+     * @param weight non negative weight of the occurrence
+     */
+    public void add(long value, double weight) {
+        root = insert(root, value, weight);
+        size++;
+    }
+
+    /**
+     * Removes an occurrence of the value which has been added with the given weight.
+     *
+     * @param value  value to be removed
+     * @param weight weight of the occurrence
+     * @return true if the value was found and removed
+     */
+    public boolean remove(long value, double weight) {
+        int node = root;
+        while (node != NIL && keys[node] != value) {
+            node = value < keys[node] ? left[node] : right[node];
+        }
+        if (node == NIL) {
+            return false;
+        }
+        root = remove(root, value, weight);
+        size--;
+        return true;
+    }
+
+    /**
+     * @return number of occurrences
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return total weight of all the occurrences
+     */
+    public double totalWeight() {
+        return root == NIL ? 0.0 : subtreeWeights[root];
+    }
+
+    public void clear() {
+        keys = new long[INITIAL_CAPACITY];
+        weights = new double[INITIAL_CAPACITY];
+        subtreeWeights = new double[INITIAL_CAPACITY];
+        counts = new int[INITIAL_CAPACITY];
+        priorities = new int[INITIAL_CAPACITY];
+        left = new int[INITIAL_CAPACITY];
+        right = new int[INITIAL_CAPACITY];
+        root = NIL;
+        allocated = 0;
+        freeHead = NIL;
+        distinctCount = 0;
+        size = 0;
+    }
+
+    /**
+     * @param cumulativeWeight positive cumulative weight
+     * @return the smallest value whose cumulative weight, including its own, is at least the given weight
+     */
+    public long valueAtWeight(double cumulativeWeight) {
+        return find(cumulativeWeight, false);
+    }
+
+    /**
+     * @param cumulativeWeight non negative cumulative weight
+     * @return the smallest value whose cumulative weight, including its own, is greater than the given weight
+     */
+    public long valueAfterWeight(double cumulativeWeight) {
+        return find(cumulativeWeight, true);
+    }
+
+    /**
+     * @return the distinct values in ascending order
+     */
+    public long[] distinctValues() {
+        long[] result = new long[distinctCount];
+        int index = 0;
+        for (int node : inOrder()) {
+            result[index++] = keys[node];
+        }
+        return result;
+    }
+
+    /**
+     * @return total weights of the distinct values, in the order of {@link #distinctValues()}
+     */
+    public double[] distinctWeights() {
+        double[] result = new double[distinctCount];
+        int index = 0;
+        for (int node : inOrder()) {
+            result[index++] = weights[node];
+        }
+        return result;
+    }
+
+    /**
+     * @return numbers of occurrences of the distinct values, in the order of {@link #distinctValues()}
+     */
+    public int[] distinctCounts() {
+        int[] result = new int[distinctCount];
+        int index = 0;
+        for (int node : inOrder()) {
+            result[index++] = counts[node];
+        }
+        return result;
+    }
+
+    /**
+     * Creates weighted values from the arrays created by {@link #distinctValues()}, {@link #distinctWeights()} and
+     * {@link #distinctCounts()}.
+     *
+     * @param values  distinct values in ascending order
+     * @param weights total weights of the values
+     * @param counts  numbers of occurrences of the values
+     * @return weighted values
+     */
+    public static WeightedSortedLongs fromDistinct(long[] values, double[] weights, int[] counts) {
+        WeightedSortedLongs result = new WeightedSortedLongs();
+        for (int i = 0; i < values.length; i++) {
+            result.root = result.insert(result.root, values[i], weights[i]);
+            int node = result.root;
+            while (result.keys[node] != values[i]) {
+                node = values[i] < result.keys[node] ? result.left[node] : result.right[node];
+            }
+            result.counts[node] = counts[i];
+            result.size += counts[i];
+        }
+        return result;
+    }
+
+    private long find(double cumulativeWeight, boolean exclusive) {
+        int node = root;
+        int last = root;
+        while (node != NIL) {
+            last = node;
+            double leftWeight = left[node] == NIL ? 0.0 : subtreeWeights[left[node]];
+            if (exclusive ? cumulativeWeight < leftWeight : cumulativeWeight <= leftWeight) {
+                node = left[node];
+            } else if (exclusive ? cumulativeWeight < leftWeight + weights[node]
+                    : cumulativeWeight <= leftWeight + weights[node]) {
+                return keys[node];
+            } else {
+                cumulativeWeight -= leftWeight + weights[node];
+                node = right[node];
+            }
+        }
+        // Only reached when rounding leaves the weight just above the total, where the largest value is expected.
+        return keys[last];
+    }
+
+    private int insert(int node, long value, double weight) {
+        if (node == NIL) {
+            return newNode(value, weight);
+        }
+        if (value == keys[node]) {
+            weights[node] += weight;
+            counts[node]++;
+        } else if (value < keys[node]) {
+            // The child is inserted before it is linked, as inserting may reallocate the node arrays.
+            int child = insert(left[node], value, weight);
+            left[node] = child;
+            if (priorities[left[node]] > priorities[node]) {
+                node = rotateRight(node);
+            }
+        } else {
+            int child = insert(right[node], value, weight);
+            right[node] = child;
+            if (priorities[right[node]] > priorities[node]) {
+                node = rotateLeft(node);
+            }
+        }
+        updateWeight(node);
+        return node;
+    }
+
+    private int remove(int node, long value, double weight) {
+        if (value < keys[node]) {
+            left[node] = remove(left[node], value, weight);
+        } else if (value > keys[node]) {
+            right[node] = remove(right[node], value, weight);
+        } else {
+            weights[node] -= weight;
+            if (--counts[node] == 0) {
+                return removeNode(node);
+            }
+        }
+        updateWeight(node);
+        return node;
+    }
+
+    private int removeNode(int node) {
+        if (left[node] == NIL || right[node] == NIL) {
+            int child = left[node] == NIL ? right[node] : left[node];
+            freeNode(node);
+            return child;
+        }
+        int top;
+        if (priorities[left[node]] > priorities[right[node]]) {
+            top = rotateRight(node);
+            right[top] = removeNode(node);
+        } else {
+            top = rotateLeft(node);
+            left[top] = removeNode(node);
+        }
+        updateWeight(top);
+        return top;
+    }
+
+    private int rotateRight(int node) {
+        int top = left[node];
+        left[node] = right[top];
+        right[top] = node;
+        updateWeight(node);
+        updateWeight(top);
+        return top;
+    }
+
+    private int rotateLeft(int node) {
+        int top = right[node];
+        right[node] = left[top];
+        left[top] = node;
+        updateWeight(node);
+        updateWeight(top);
+        return top;
+    }
+
+    private void updateWeight(int node) {
+        double weight = weights[node];
+        if (left[node] != NIL) {
+            weight += subtreeWeights[left[node]];
+        }
+        if (right[node] != NIL) {
+            weight += subtreeWeights[right[node]];
+        }
+        subtreeWeights[node] = weight;
+    }
+
+    private int newNode(long value, double weight) {
+        int node;
+        if (freeHead != NIL) {
+            node = freeHead;
+            freeHead = left[node];
+        } else {
+            if (allocated == keys.length) {
+                int capacity = allocated << 1;
+                keys = Arrays.copyOf(keys, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+                subtreeWeights = Arrays.copyOf(subtreeWeights, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                priorities = Arrays.copyOf(priorities, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+            }
+            node = allocated++;
+        }
+        // Xorshift random priorities keep the treap balanced in expectation.
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        keys[node] = value;
+        weights[node] = weight;
+        subtreeWeights[node] = weight;
+        counts[node] = 1;
+        priorities[node] = seed;
+        left[node] = NIL;
+        right[node] = NIL;
+        distinctCount++;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        left[node] = freeHead;
+        freeHead = node;
+        distinctCount--;
+    }
+
+    private int[] inOrder() {
+        int[] nodes = new int[distinctCount];
+        int[] stack = new int[distinctCount];
+        int stackSize = 0;
+        int index = 0;
+        int node = root;
+        while (node != NIL || stackSize > 0) {
+            while (node != NIL) {
+                stack[stackSize++] = node;
+                node = left[node];
+            }
+            node = stack[--stackSize];
+            nodes[index++] = node;
+            node = right[node];
+        }
+        return nodes;
+    }
+}
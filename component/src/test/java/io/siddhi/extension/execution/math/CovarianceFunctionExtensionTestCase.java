@@ -0,0 +1,180 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.query.output.callback.QueryCallback;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.EventPrinter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class CovarianceFunctionExtensionTestCase {
+    private static final String INPUT_STREAM = "define stream inputStream (deviceId string, x double, y int);";
+    private static final String INPUT_STREAM_STRING = "define stream inputStream (deviceId string, x double, " +
+            "y string);";
+    protected static SiddhiManager siddhiManager;
+    private static Logger logger = LogManager.getLogger(CovarianceFunctionExtensionTestCase.class);
+    private CountDownLatch countDownLatch;
+    private volatile int count;
+    private volatile boolean eventArrived;
+
+    @BeforeMethod
+    public void init() {
+        count = 0;
+        eventArrived = false;
+    }
+
+    @Test
+    public void testCovarianceFunctionExtension() throws Exception {
+        logger.info("CovarianceFunctionExtension no window test case.");
+
+        final int expectedNoOfEvents = 4;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:covariance(x, y) as covariance "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(INPUT_STREAM + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    if (count == 1) {
+                        AssertJUnit.assertEquals(0.0, result, 0.0);
+                    } else if (count == 4) {
+                        AssertJUnit.assertEquals(2.5, result, 1e-12);
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"d1", 1d, 2});
+        inputHandler.send(new Object[]{"d1", 2d, 4});
+        inputHandler.send(new Object[]{"d1", 3d, 6});
+        inputHandler.send(new Object[]{"d1", 4d, 8});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testCovarianceFunctionExtensionLengthWindow() throws Exception {
+        logger.info("CovarianceFunctionExtension length window test case.");
+
+        final int expectedNoOfEvents = 5;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(3) "
+                + "select math:covariance(x, y) as covariance "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(INPUT_STREAM + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    switch (count) {
+                        case 1:
+                            AssertJUnit.assertEquals(0.0, result, 0.0);
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals(0.5, result, 1e-12);
+                            break;
+                        case 3:
+                            AssertJUnit.assertEquals(4.0 / 3, result, 1e-12);
+                            break;
+                        case 4:
+                            AssertJUnit.assertEquals(1.0 / 3, result, 1e-12);
+                            break;
+                        case 5:
+                            AssertJUnit.assertEquals(-1.0, result, 1e-12);
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"d1", 1d, 2});
+        inputHandler.send(new Object[]{"d1", 2d, 4});
+        inputHandler.send(new Object[]{"d1", 3d, 6});
+        inputHandler.send(new Object[]{"d1", 4d, 5});
+        inputHandler.send(new Object[]{"d1", 5d, 3});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(5, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testCovarianceFunctionExtensionInvalidType() throws Exception {
+        logger.info("CovarianceFunctionExtension invalid type test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:covariance(x, y) as covariance "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_STRING + executionPlan);
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testCovarianceFunctionExtensionInvalidNoOfParameters() throws Exception {
+        logger.info("CovarianceFunctionExtension invalid number of parameters test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:covariance(x) as covariance "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM + executionPlan);
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.query.output.callback.QueryCallback;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.stream.output.StreamCallback;
+import io.siddhi.core.util.EventPrinter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class EwmaFunctionExtensionTestCase {
+    private static final String INPUT_STREAM = "define stream inputStream (deviceId string, ts long, " +
+            "temperature double);";
+    protected static SiddhiManager siddhiManager;
+    private static Logger logger = LogManager.getLogger(EwmaFunctionExtensionTestCase.class);
+    private CountDownLatch countDownLatch;
+    private volatile int count;
+    private volatile boolean eventArrived;
+
+    @BeforeMethod
+    public void init() {
+        count = 0;
+        eventArrived = false;
+    }
+
+    @Test
+    public void testEwmaFunctionExtension() throws Exception {
+        logger.info("EwmaFunctionExtension alpha test case.");
+
+        final int expectedNoOfEvents = 4;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:ewma(temperature, 0.5) as ewma "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(INPUT_STREAM + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    switch (count) {
+                        case 1:
+                            AssertJUnit.assertEquals(10.0, result, 0.0);
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals(15.0, result, 0.0);
+                            break;
+                        case 3:
+                            AssertJUnit.assertEquals(15.0, result, 0.0);
+                            break;
+                        case 4:
+                            AssertJUnit.assertEquals(22.5, result, 0.0);
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"d1", 0L, 10d});
+        inputHandler.send(new Object[]{"d1", 0L, 20d});
+        inputHandler.send(new Object[]{"d1", 0L, null});
+        inputHandler.send(new Object[]{"d1", 0L, 30d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testEwmaFunctionExtensionHalfLife() throws Exception {
+        logger.info("EwmaFunctionExtension half life test case.");
+
+        final int expectedNoOfEvents = 4;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:ewma(temperature, 1 sec, ts) as ewma "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(INPUT_STREAM + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    switch (count) {
+                        case 1:
+                            AssertJUnit.assertEquals(10.0, result, 1e-9);
+                            break;
+                        case 2:
+                            // 10 weighs half as much as 20 after a half life.
+                            AssertJUnit.assertEquals(25.0 / 1.5, result, 1e-9);
+                            break;
+                        case 3:
+                            // Values with the same timestamp weigh the same.
+                            AssertJUnit.assertEquals(55.0 / 2.5, result, 1e-9);
+                            break;
+                        case 4:
+                            // A late value weighs by its age.
+                            AssertJUnit.assertEquals(75.0 / 3, result, 1e-9);
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"d1", 1000L, 10d});
+        inputHandler.send(new Object[]{"d1", 2000L, 20d});
+        inputHandler.send(new Object[]{"d1", 2000L, 30d});
+        inputHandler.send(new Object[]{"d1", 1000L, 40d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testEwmaFunctionExtensionPartition() throws Exception {
+        logger.info("EwmaFunctionExtension partition test case.");
+
+        final int expectedNoOfEvents = 4;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("partition with (deviceId of inputStream) "
+                + "begin "
+                + "    from inputStream "
+                + "    select deviceId, math:ewma(temperature, 0.5) as ewma "
+                + "    insert into outputStream; "
+                + "end;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(INPUT_STREAM + executionPlan);
+
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                eventArrived = true;
+                for (Event event : events) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(1);
+                    switch (count) {
+                        case 1:
+                            AssertJUnit.assertEquals(10.0, result, 0.0);
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals(100.0, result, 0.0);
+                            break;
+                        case 3:
+                            AssertJUnit.assertEquals("d1", event.getData(0));
+                            AssertJUnit.assertEquals(15.0, result, 0.0);
+                            break;
+                        case 4:
+                            AssertJUnit.assertEquals("d2", event.getData(0));
+                            AssertJUnit.assertEquals(150.0, result, 0.0);
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"d1", 0L, 10d});
+        inputHandler.send(new Object[]{"d2", 0L, 100d});
+        inputHandler.send(new Object[]{"d1", 0L, 20d});
+        inputHandler.send(new Object[]{"d2", 0L, 200d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testEwmaFunctionExtensionInvalidAlpha() throws Exception {
+        logger.info("EwmaFunctionExtension invalid alpha test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:ewma(temperature, 1.5) as ewma "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM + executionPlan);
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testEwmaFunctionExtensionDynamicAlpha() throws Exception {
+        logger.info("EwmaFunctionExtension dynamic alpha test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:ewma(temperature, temperature) as ewma "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM + executionPlan);
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testEwmaFunctionExtensionInvalidTimestamp() throws Exception {
+        logger.info("EwmaFunctionExtension invalid timestamp test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:ewma(temperature, 1 sec, temperature) as ewma "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM + executionPlan);
+    }
+}
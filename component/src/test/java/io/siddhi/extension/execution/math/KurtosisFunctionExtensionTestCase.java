@@ -0,0 +1,221 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.query.output.callback.QueryCallback;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.EventPrinter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class KurtosisFunctionExtensionTestCase {
+    private static final String INPUT_STREAM_DOUBLE = "define stream inputStream (sensorId int, temperature double);";
+    private static final String INPUT_STREAM_LONG = "define stream inputStream (sensorId int, temperature long);";
+    private static final String INPUT_STREAM_STRING = "define stream inputStream (sensorId int, temperature string);";
+    protected static SiddhiManager siddhiManager;
+    private static Logger logger = LogManager.getLogger(KurtosisFunctionExtensionTestCase.class);
+    private CountDownLatch countDownLatch;
+    private volatile int count;
+    private volatile boolean eventArrived;
+
+    @BeforeMethod
+    public void init() {
+        count = 0;
+        eventArrived = false;
+    }
+
+    @Test
+    public void testKurtosisFunctionExtensionDouble() throws Exception {
+        logger.info("KurtosisFunctionExtension no window test case.");
+
+        final int expectedNoOfEvents = 8;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:kurtosis(temperature) as kurtosis "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    if (count == 1) {
+                        AssertJUnit.assertNull(result);
+                    } else if (count == 8) {
+                        AssertJUnit.assertEquals(-0.21875, result, 1e-12);
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 2d});
+        inputHandler.send(new Object[]{2, 4d});
+        inputHandler.send(new Object[]{3, 4d});
+        inputHandler.send(new Object[]{4, 4d});
+        inputHandler.send(new Object[]{5, 5d});
+        inputHandler.send(new Object[]{6, 5d});
+        inputHandler.send(new Object[]{7, 7d});
+        inputHandler.send(new Object[]{8, 9d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(8, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testKurtosisFunctionExtensionLong() throws Exception {
+        logger.info("KurtosisFunctionExtension length window test case.");
+
+        final int expectedNoOfEvents = 6;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(3) "
+                + "select math:kurtosis(temperature) as kurtosis "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_LONG + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    switch (count) {
+                        case 1:
+                        case 6:
+                            AssertJUnit.assertNull(result);
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals(-2.0, result, 1e-12);
+                            break;
+                        case 3:
+                        case 4:
+                        case 5:
+                            AssertJUnit.assertEquals(-1.5, result, 1e-12);
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 1L});
+        inputHandler.send(new Object[]{2, 2L});
+        inputHandler.send(new Object[]{3, 6L});
+        inputHandler.send(new Object[]{4, 3L});
+        inputHandler.send(new Object[]{5, 3L});
+        inputHandler.send(new Object[]{6, 3L});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(6, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testKurtosisFunctionExtensionConstantWindow() throws Exception {
+        logger.info("KurtosisFunctionExtension window of equal values test case.");
+
+        final int expectedNoOfEvents = 8;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(3) "
+                + "select math:kurtosis(temperature) as kurtosis "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        final Double[] results = new Double[expectedNoOfEvents];
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    results[count++] = (Double) event.getData(0);
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 1.1});
+        inputHandler.send(new Object[]{2, 2.3});
+        inputHandler.send(new Object[]{3, 5.7});
+        inputHandler.send(new Object[]{4, 0.3});
+        inputHandler.send(new Object[]{5, 9.9});
+        inputHandler.send(new Object[]{6, 3.3});
+        inputHandler.send(new Object[]{7, 3.3});
+        inputHandler.send(new Object[]{8, 3.3});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(8, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertNotNull(results[6]);
+        // the removed values leave rounding errors, which are not reported for a window of equal values
+        AssertJUnit.assertNull(results[7]);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testKurtosisFunctionExtensionInvalidType() throws Exception {
+        logger.info("KurtosisFunctionExtension invalid type test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:kurtosis(temperature) as kurtosis "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_STRING + executionPlan);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.query.output.callback.QueryCallback;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.EventPrinter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class LinearRegressionFunctionExtensionTestCase {
+    private static final String INPUT_STREAM = "define stream inputStream (sensorId string, ts long, value double);";
+    private static final String INPUT_STREAM_STRING = "define stream inputStream (sensorId string, ts long, " +
+            "value string);";
+    private static final long START_TIME = 1700000000000L;
+    protected static SiddhiManager siddhiManager;
+    private static Logger logger = LogManager.getLogger(LinearRegressionFunctionExtensionTestCase.class);
+    private CountDownLatch countDownLatch;
+    private volatile int count;
+    private volatile boolean eventArrived;
+
+    @BeforeMethod
+    public void init() {
+        count = 0;
+        eventArrived = false;
+    }
+
+    @Test
+    public void testLinearRegressionFunctionExtension() throws Exception {
+        logger.info("LinearRegressionFunctionExtension no window test case.");
+
+        final int expectedNoOfEvents = 4;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:linearRegression(ts, value) as trend "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(INPUT_STREAM + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    double[] result = (double[]) event.getData(0);
+                    if (count == 1) {
+                        AssertJUnit.assertNull(result);
+                    } else {
+                        AssertJUnit.assertEquals(2.0, result[0], 1e-12);
+                        AssertJUnit.assertEquals(1.0, result[1], 1e-12);
+                        AssertJUnit.assertEquals(1.0, result[2], 1e-12);
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"s1", 1L, 3d});
+        inputHandler.send(new Object[]{"s1", 2L, 5d});
+        inputHandler.send(new Object[]{"s1", 3L, 7d});
+        inputHandler.send(new Object[]{"s1", 4L, 9d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testLinearRegressionFunctionExtensionTimestamps() throws Exception {
+        logger.info("LinearRegressionFunctionExtension epoch millisecond length window test case.");
+
+        final int expectedNoOfEvents = 4;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(3) "
+                + "select math:linearRegression(ts, value) as trend "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(INPUT_STREAM + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    double[] result = (double[]) event.getData(0);
+                    switch (count) {
+                        case 1:
+                            AssertJUnit.assertNull(result);
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals(0.002, result[0], 1e-12);
+                            AssertJUnit.assertEquals(11.0, result[0] * (START_TIME + 500) + result[1], 1e-4);
+                            AssertJUnit.assertEquals(1.0, result[2], 1e-12);
+                            break;
+                        case 3:
+                            AssertJUnit.assertEquals(0.0035, result[0], 1e-12);
+                            AssertJUnit.assertEquals(13.0, result[0] * (START_TIME + 1000) + result[1], 1e-4);
+                            AssertJUnit.assertEquals(49.0 / 52, result[2], 1e-9);
+                            break;
+                        case 4:
+                            AssertJUnit.assertEquals(0.003, result[0], 1e-12);
+                            AssertJUnit.assertEquals(47.0 / 3, result[0] * (START_TIME + 2000) + result[1], 1e-4);
+                            AssertJUnit.assertEquals(27.0 / 31, result[2], 1e-9);
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"s1", START_TIME, 10d});
+        inputHandler.send(new Object[]{"s1", START_TIME + 1000, 12d});
+        inputHandler.send(new Object[]{"s1", START_TIME + 2000, 17d});
+        inputHandler.send(new Object[]{"s1", START_TIME + 3000, 18d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testLinearRegressionFunctionExtensionConstantWindow() throws Exception {
+        logger.info("LinearRegressionFunctionExtension window of a constant x test case.");
+
+        final int expectedNoOfEvents = 8;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("define stream pairStream (x double, y double); "
+                + "@info(name = 'query1') from pairStream#window.length(3) "
+                + "select math:linearRegression(x, y) as trend "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(executionPlan);
+
+        final List<double[]> results = new ArrayList<>();
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    results.add((double[]) event.getData(0));
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("pairStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1.1, 4d});
+        inputHandler.send(new Object[]{2.3, 8d});
+        inputHandler.send(new Object[]{5.7, 1d});
+        inputHandler.send(new Object[]{0.3, 9d});
+        inputHandler.send(new Object[]{9.9, 2d});
+        inputHandler.send(new Object[]{3.3, 7d});
+        inputHandler.send(new Object[]{3.3, 3d});
+        inputHandler.send(new Object[]{3.3, 6d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(8, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertNotNull(results.get(6));
+        // x is constant in the last window, which the rounding errors of the removed pairs should not hide
+        AssertJUnit.assertNull(results.get(7));
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testLinearRegressionFunctionExtensionInvalidType() throws Exception {
+        logger.info("LinearRegressionFunctionExtension invalid type test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:linearRegression(ts, value) as trend "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_STRING + executionPlan);
+    }
+}
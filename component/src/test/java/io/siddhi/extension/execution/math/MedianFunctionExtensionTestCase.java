@@ -0,0 +1,179 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.query.output.callback.QueryCallback;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.EventPrinter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class MedianFunctionExtensionTestCase {
+    private static final String INPUT_STREAM_DOUBLE = "define stream inputStream (sensorId int, temperature double);";
+    private static final String INPUT_STREAM_LONG = "define stream inputStream (sensorId int, temperature long);";
+    private static final String INPUT_STREAM_STRING = "define stream inputStream (sensorId int, temperature string);";
+    protected static SiddhiManager siddhiManager;
+    private static Logger logger = LogManager.getLogger(MedianFunctionExtensionTestCase.class);
+    private CountDownLatch countDownLatch;
+    private volatile int count;
+    private volatile boolean eventArrived;
+
+    @BeforeMethod
+    public void init() {
+        count = 0;
+        eventArrived = false;
+    }
+
+    @Test
+    public void testMedianFunctionExtensionDouble() throws Exception {
+        logger.info("MedianFunctionExtension no window test case.");
+
+        final int expectedNoOfEvents = 10;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:median(temperature) as median, math:percentile(temperature, 50.0) as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    AssertJUnit.assertEquals((Double) event.getData(1), (Double) event.getData(0), 0.0);
+                    if (count == 10) {
+                        AssertJUnit.assertEquals(55.0, (Double) event.getData(0), 0.0);
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10d});
+        inputHandler.send(new Object[]{2, 30d});
+        inputHandler.send(new Object[]{3, 50d});
+        inputHandler.send(new Object[]{4, 40d});
+        inputHandler.send(new Object[]{5, 80d});
+        inputHandler.send(new Object[]{6, 60d});
+        inputHandler.send(new Object[]{7, 20d});
+        inputHandler.send(new Object[]{8, 90d});
+        inputHandler.send(new Object[]{9, 70d});
+        inputHandler.send(new Object[]{10, 100d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(10, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testMedianFunctionExtensionLong() throws Exception {
+        logger.info("MedianFunctionExtension length window test case.");
+
+        final int expectedNoOfEvents = 6;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(3) "
+                + "select math:median(temperature) as median "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_LONG + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    switch (count) {
+                        case 1:
+                            AssertJUnit.assertEquals(10.0, result, 0.0);
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals(20.0, result, 0.0);
+                            break;
+                        case 3:
+                            AssertJUnit.assertEquals(30.0, result, 0.0);
+                            break;
+                        case 4:
+                            AssertJUnit.assertEquals(40.0, result, 0.0);
+                            break;
+                        case 5:
+                            AssertJUnit.assertEquals(50.0, result, 0.0);
+                            break;
+                        case 6:
+                            AssertJUnit.assertEquals(60.0, result, 0.0);
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10L});
+        inputHandler.send(new Object[]{2, 30L});
+        inputHandler.send(new Object[]{3, 50L});
+        inputHandler.send(new Object[]{4, 40L});
+        inputHandler.send(new Object[]{5, 80L});
+        inputHandler.send(new Object[]{6, 60L});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(6, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testMedianFunctionExtensionInvalidType() throws Exception {
+        logger.info("MedianFunctionExtension invalid type test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:median(temperature) as median "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_STRING + executionPlan);
+    }
+}
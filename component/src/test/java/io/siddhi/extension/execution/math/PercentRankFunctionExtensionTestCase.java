@@ -0,0 +1,174 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.query.output.callback.QueryCallback;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.EventPrinter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class PercentRankFunctionExtensionTestCase {
+    private static final String INPUT_STREAM_DOUBLE = "define stream inputStream (sensorId int, temperature double);";
+    private static final String INPUT_STREAM_INT = "define stream inputStream (sensorId int, temperature int);";
+    protected static SiddhiManager siddhiManager;
+    private static Logger logger = LogManager.getLogger(PercentRankFunctionExtensionTestCase.class);
+    private CountDownLatch countDownLatch;
+    private volatile int count;
+    private volatile boolean eventArrived;
+
+    @BeforeMethod
+    public void init() {
+        count = 0;
+        eventArrived = false;
+    }
+
+    @Test
+    public void testPercentRankFunctionExtensionDouble() throws Exception {
+        logger.info("PercentRankFunctionExtension constant probe test case.");
+
+        final int expectedNoOfEvents = 4;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentRank(temperature, 25.0) as rank "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    switch (count) {
+                        case 1:
+                        case 2:
+                            AssertJUnit.assertEquals(100.0, result, 1e-9);
+                            break;
+                        case 3:
+                            AssertJUnit.assertEquals(200.0 / 3, result, 1e-9);
+                            break;
+                        case 4:
+                            AssertJUnit.assertEquals(50.0, result, 1e-9);
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10d});
+        inputHandler.send(new Object[]{2, 20d});
+        inputHandler.send(new Object[]{3, 30d});
+        inputHandler.send(new Object[]{4, 40d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentRankFunctionExtensionInt() throws Exception {
+        logger.info("PercentRankFunctionExtension length window test case.");
+
+        final int expectedNoOfEvents = 4;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(3) "
+                + "select math:percentRank(temperature, temperature) as rank "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_INT + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    switch (count) {
+                        case 1:
+                            AssertJUnit.assertEquals(100.0, result, 1e-9);
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals(50.0, result, 1e-9);
+                            break;
+                        case 3:
+                        case 4:
+                            AssertJUnit.assertEquals(200.0 / 3, result, 1e-9);
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 5});
+        inputHandler.send(new Object[]{2, 1});
+        inputHandler.send(new Object[]{3, 4});
+        // 5 leaves the window, hence 2 is ranked against 1, 4 and 2
+        inputHandler.send(new Object[]{4, 2});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testPercentRankFunctionExtensionInvalidParameters() throws Exception {
+        logger.info("PercentRankFunctionExtension invalid parameters test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentRank(temperature) as rank "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+    }
+}
@@ -21,15 +21,24 @@ package io.siddhi.extension.execution.math;
 import io.siddhi.core.SiddhiAppRuntime;
 import io.siddhi.core.SiddhiManager;
 import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.SiddhiAppCreationException;
 import io.siddhi.core.query.output.callback.QueryCallback;
 import io.siddhi.core.stream.input.InputHandler;
 import io.siddhi.core.util.EventPrinter;
+import io.siddhi.core.util.config.InMemoryConfigManager;
+import io.siddhi.core.util.persistence.IncrementalFileSystemPersistenceStore;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.testng.AssertJUnit;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -914,4 +923,1248 @@ public class PercentileFunctionExtensionTestCase {
         AssertJUnit.assertTrue(eventArrived);
         siddhiAppRuntime.shutdown();
     }
+
+    @Test
+    public void testPercentileFunctionExtensionGroupBy() throws Exception {
+        logger.info("PercentileFunctionExtension group by test case.");
+
+        final int expectedNoOfEvents = 6;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(6) "
+                + "select sensorId, math:percentile(temperature, 50.0) as percentile "
+                + "group by sensorId "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    switch (count) {
+                        case 1:
+                            AssertJUnit.assertEquals(10.0, event.getData(1));
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals(100.0, event.getData(1));
+                            break;
+                        case 3:
+                            AssertJUnit.assertEquals(20.0, event.getData(1));
+                            break;
+                        case 4:
+                            AssertJUnit.assertEquals(200.0, event.getData(1));
+                            break;
+                        case 5:
+                            AssertJUnit.assertEquals(20.0, event.getData(1));
+                            break;
+                        case 6:
+                            AssertJUnit.assertEquals(200.0, event.getData(1));
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10d});
+        inputHandler.send(new Object[]{2, 100d});
+        inputHandler.send(new Object[]{1, 30d});
+        inputHandler.send(new Object[]{2, 300d});
+        inputHandler.send(new Object[]{1, 20d});
+        inputHandler.send(new Object[]{2, 200d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(6, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionLargeWindow() throws Exception {
+        logger.info("PercentileFunctionExtension large length window test case.");
+
+        final int expectedNoOfEvents = 3000;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(1000) "
+                + "select math:percentile(temperature, 50.0) as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        final Object[] lastPercentile = new Object[1];
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    lastPercentile[0] = event.getData(0);
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        // Values are sent in a shuffled order so that the sorted storage has to split and merge internally.
+        for (int i = 0; i < 3000; i++) {
+            inputHandler.send(new Object[]{i, (double) ((i * 7) % 1000 + (i / 1000) * 1000 + 1)});
+        }
+
+        countDownLatch.await(5000, MILLISECONDS);
+        AssertJUnit.assertEquals(3000, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(2500.5, lastPercentile[0]);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionTDigest() throws Exception {
+        logger.info("PercentileFunctionExtension tdigest mode test case.");
+
+        final int expectedNoOfEvents = 10;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentile(temperature, 50.0, 'tdigest', 100) as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        final Object[] lastPercentile = new Object[1];
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    lastPercentile[0] = event.getData(0);
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10d});
+        inputHandler.send(new Object[]{2, 30d});
+        inputHandler.send(new Object[]{3, 50d});
+        inputHandler.send(new Object[]{4, 40d});
+        inputHandler.send(new Object[]{5, 80d});
+        inputHandler.send(new Object[]{6, 60d});
+        inputHandler.send(new Object[]{7, 20d});
+        inputHandler.send(new Object[]{8, 90d});
+        inputHandler.send(new Object[]{9, 70d});
+        inputHandler.send(new Object[]{10, 100d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(10, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(55.0, (Double) lastPercentile[0], 0.0001);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionKll() throws Exception {
+        logger.info("PercentileFunctionExtension kll mode test case.");
+
+        final int expectedNoOfEvents = 10;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentile(temperature, 50.0, 'kll', 200) as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        final Object[] lastPercentile = new Object[1];
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    lastPercentile[0] = event.getData(0);
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10d});
+        inputHandler.send(new Object[]{2, 30d});
+        inputHandler.send(new Object[]{3, 50d});
+        inputHandler.send(new Object[]{4, 40d});
+        inputHandler.send(new Object[]{5, 80d});
+        inputHandler.send(new Object[]{6, 60d});
+        inputHandler.send(new Object[]{7, 20d});
+        inputHandler.send(new Object[]{8, 90d});
+        inputHandler.send(new Object[]{9, 70d});
+        inputHandler.send(new Object[]{10, 100d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(10, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(50.0, (Double) lastPercentile[0], 0.0);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionDecay() throws Exception {
+        logger.info("PercentileFunctionExtension decay mode test case.");
+
+        final int expectedNoOfEvents = 20;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentile(temperature, 50.0, 'decay', 1 sec) as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime("@app:playback " + INPUT_STREAM_DOUBLE + executionPlan);
+
+        final Object[] lastPercentile = new Object[1];
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    lastPercentile[0] = event.getData(0);
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        for (int i = 0; i < 10; i++) {
+            inputHandler.send(1000 + i, new Object[]{i, 10d});
+        }
+        // 30 half-lives later the earlier values weigh about a billionth of the new ones
+        for (int i = 0; i < 10; i++) {
+            inputHandler.send(31000 + i, new Object[]{i, 100d});
+        }
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(20, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(100.0, (Double) lastPercentile[0], 0.0001);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionDecayTimestampOutlier() throws Exception {
+        logger.info("PercentileFunctionExtension decay mode with timestamps and an old outlier test case.");
+
+        final int expectedNoOfEvents = 41;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentile(temperature, 100.0, 'decay', 1 sec, eventTimestamp()) as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        final List<Double> results = new ArrayList<>();
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    results.add((Double) event.getData(0));
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        // the event timestamps decide the weights, not the arrival time
+        inputHandler.send(1000, new Object[]{0, 1000d});
+        for (int i = 0; i < 40; i++) {
+            inputHandler.send(1000 + i * 1000, new Object[]{i, 10d});
+        }
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(41, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(1000.0, results.get(1), 0.0);
+        // more than 32 half-lives later the outlier no longer sets the maximum
+        AssertJUnit.assertEquals(10.0, results.get(40), 0.001);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionDecayNullTimestamp() throws Exception {
+        logger.info("PercentileFunctionExtension decay mode with a null timestamp test case.");
+
+        final int expectedNoOfEvents = 3;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("define stream inputStream (temperature double, timestamp long); "
+                + "@info(name = 'query1') from inputStream "
+                + "select math:percentile(temperature, 100.0, 'decay', 1 min, timestamp) as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(executionPlan);
+
+        final List<Double> results = new ArrayList<>();
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    results.add((Double) event.getData(0));
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        // the event without a timestamp is weighed by the current time of the app
+        long now = System.currentTimeMillis();
+        inputHandler.send(new Object[]{10d, now - 1000});
+        inputHandler.send(new Object[]{20d, null});
+        inputHandler.send(new Object[]{30d, now});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(3, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(Arrays.asList(10.0, 20.0, 30.0), results);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionGk() throws Exception {
+        logger.info("PercentileFunctionExtension gk mode test case.");
+
+        final int expectedNoOfEvents = 10;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentile(temperature, 50.0, 'gk', 0.01) as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        final Object[] lastPercentile = new Object[1];
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    lastPercentile[0] = event.getData(0);
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10d});
+        inputHandler.send(new Object[]{2, 30d});
+        inputHandler.send(new Object[]{3, 50d});
+        inputHandler.send(new Object[]{4, 40d});
+        inputHandler.send(new Object[]{5, 80d});
+        inputHandler.send(new Object[]{6, 60d});
+        inputHandler.send(new Object[]{7, 20d});
+        inputHandler.send(new Object[]{8, 90d});
+        inputHandler.send(new Object[]{9, 70d});
+        inputHandler.send(new Object[]{10, 100d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(10, count);
+        AssertJUnit.assertTrue(eventArrived);
+        // epsilon * n is below one rank, hence the result is exact
+        AssertJUnit.assertEquals(50.0, (Double) lastPercentile[0], 0.0);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testPercentileFunctionExtensionGkInvalidEpsilon() throws Exception {
+        logger.info("PercentileFunctionExtension gk mode invalid epsilon test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentile(temperature, 50.0, 'gk', 1.5) as percentile "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testPercentileFunctionExtensionTDigestSlidingWindow() throws Exception {
+        logger.info("PercentileFunctionExtension tdigest mode sliding window test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(3) "
+                + "select math:percentile(temperature, 50.0, 'tdigest', 100) as percentile "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testPercentileFunctionExtensionKllSlidingWindow() throws Exception {
+        logger.info("PercentileFunctionExtension kll mode sliding window test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(3) "
+                + "select math:percentile(temperature, 50.0, 'kll', 200) as percentile "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testPercentileFunctionExtensionDecaySlidingWindow() throws Exception {
+        logger.info("PercentileFunctionExtension decay mode sliding window test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(3) "
+                + "select math:percentile(temperature, 50.0, 'decay', 1 sec) as percentile "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testPercentileFunctionExtensionGkSlidingWindow() throws Exception {
+        logger.info("PercentileFunctionExtension gk mode sliding window test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(3) "
+                + "select math:percentile(temperature, 50.0, 'gk', 0.01) as percentile "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionOffHeap() throws Exception {
+        logger.info("PercentileFunctionExtension offheap mode length window test case.");
+
+        final int expectedNoOfEvents = 4;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(3) "
+                + "select math:percentile(temperature, 50.0, 'offheap') as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    switch (count) {
+                        case 1:
+                            AssertJUnit.assertEquals(10.0, result, 0.0);
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals(20.0, result, 0.0);
+                            break;
+                        case 3:
+                            AssertJUnit.assertEquals(30.0, result, 0.0);
+                            break;
+                        case 4:
+                            AssertJUnit.assertEquals(40.0, result, 0.0);
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10d});
+        inputHandler.send(new Object[]{2, 30d});
+        inputHandler.send(new Object[]{3, 50d});
+        inputHandler.send(new Object[]{4, 40d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionReservoir() throws Exception {
+        logger.info("PercentileFunctionExtension reservoir mode length window test case.");
+
+        final int expectedNoOfEvents = 4;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        // The reservoir is larger than the window, hence it samples every value
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(3) "
+                + "select math:percentile(temperature, 50.0, 'reservoir', 8) as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_LONG + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    switch (count) {
+                        case 1:
+                            AssertJUnit.assertEquals(10.0, result, 0.0);
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals(20.0, result, 0.0);
+                            break;
+                        case 3:
+                            AssertJUnit.assertEquals(30.0, result, 0.0);
+                            break;
+                        case 4:
+                            AssertJUnit.assertEquals(40.0, result, 0.0);
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10L});
+        inputHandler.send(new Object[]{2, 30L});
+        inputHandler.send(new Object[]{3, 50L});
+        inputHandler.send(new Object[]{4, 40L});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionReservoirDuplicates() throws Exception {
+        logger.info("PercentileFunctionExtension reservoir mode with duplicate values test case.");
+
+        final int expectedNoOfEvents = 220;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        // The window is 10 times larger than the reservoir
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(200) "
+                + "select math:percentile(temperature, 50.0, 'reservoir', 20) as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        final Object[] lastPercentile = new Object[1];
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    lastPercentile[0] = event.getData(0);
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        for (int i = 0; i < 200; i++) {
+            inputHandler.send(new Object[]{i, 10d});
+        }
+        // Each new value expires a 10.0, of which only a tenth is sampled, hence 10.0 remains 90% of the window and
+        // of the expected sample
+        for (int i = 200; i < 220; i++) {
+            inputHandler.send(new Object[]{i, 20d});
+        }
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(expectedNoOfEvents, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(10.0, (Double) lastPercentile[0], 0.0);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionSnapshotRestore() throws Exception {
+        logger.info("PercentileFunctionExtension snapshot and restore test case.");
+
+        final int expectedNoOfEvents = 6;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(5) "
+                + "select math:percentile(temperature, 50.0) as percentile "
+                + "insert into outputStream;");
+        QueryCallback queryCallback = new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    if (count == 6) {
+                        AssertJUnit.assertEquals(50.0, (Double) event.getData(0), 0.0);
+                    }
+                }
+            }
+        };
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10d});
+        inputHandler.send(new Object[]{2, 30d});
+        inputHandler.send(new Object[]{3, 50d});
+        inputHandler.send(new Object[]{4, 40d});
+        inputHandler.send(new Object[]{5, 80d});
+        byte[] snapshot = siddhiAppRuntime.snapshot();
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.restore(snapshot);
+
+        inputHandler.send(new Object[]{6, 60d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(6, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionRunLengthSnapshotRestore() throws Exception {
+        logger.info("PercentileFunctionExtension run length snapshot and restore test case.");
+
+        final int expectedNoOfEvents = 6;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(5) "
+                + "select math:percentile(temperature, 50.0) as percentile "
+                + "insert into outputStream;");
+        QueryCallback queryCallback = new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    if (count == 6) {
+                        AssertJUnit.assertEquals(30.0, (Double) event.getData(0), 0.0);
+                    }
+                }
+            }
+        };
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_INT + executionPlan);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        // few distinct values, which are snapshotted as run lengths
+        inputHandler.send(new Object[]{1, 10});
+        inputHandler.send(new Object[]{2, 30});
+        inputHandler.send(new Object[]{3, 10});
+        inputHandler.send(new Object[]{4, 30});
+        inputHandler.send(new Object[]{5, 10});
+        byte[] snapshot = siddhiAppRuntime.snapshot();
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_INT + executionPlan);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.restore(snapshot);
+
+        inputHandler.send(new Object[]{6, 30});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(6, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionIncrementalPersistence() throws Exception {
+        logger.info("PercentileFunctionExtension incremental persistence test case.");
+
+        final int expectedNoOfEvents = 8;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+        siddhiManager.setIncrementalPersistenceStore(
+                new IncrementalFileSystemPersistenceStore("target/incremental-percentile-snapshots"));
+
+        String executionPlan = ("@app:name('IncrementalPercentileTest') "
+                + INPUT_STREAM_DOUBLE
+                + "@info(name = 'query1') from inputStream#window.length(5) "
+                + "select math:percentile(temperature, 50.0) as percentile "
+                + "insert into outputStream;");
+        QueryCallback queryCallback = new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    if (count == 8) {
+                        AssertJUnit.assertEquals(60.0, (Double) event.getData(0), 0.0);
+                    }
+                }
+            }
+        };
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(executionPlan);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10d});
+        inputHandler.send(new Object[]{2, 30d});
+        inputHandler.send(new Object[]{3, 50d});
+        inputHandler.send(new Object[]{4, 40d});
+        inputHandler.send(new Object[]{5, 80d});
+        siddhiAppRuntime.persist();
+        Thread.sleep(100);
+
+        // Only these changes are written by the second, incremental, snapshot.
+        inputHandler.send(new Object[]{6, 60d});
+        inputHandler.send(new Object[]{7, 20d});
+        siddhiAppRuntime.persist();
+        Thread.sleep(100);
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(executionPlan);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.restoreLastRevision();
+
+        inputHandler.send(new Object[]{8, 70d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(8, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionExpiredEvents() throws Exception {
+        logger.info("PercentileFunctionExtension expired events output test case.");
+
+        final int expectedNoOfEvents = 4;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(2) "
+                + "select math:percentile(temperature, 50.0) as percentile "
+                + "insert all events into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        final List<Double> currentResults = new ArrayList<>();
+        final List<Double> expiredResults = new ArrayList<>();
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                if (inEvents != null) {
+                    for (Event event : inEvents) {
+                        countDownLatch.countDown();
+                        count++;
+                        currentResults.add((Double) event.getData(0));
+                    }
+                }
+                if (removeEvents != null) {
+                    for (Event event : removeEvents) {
+                        countDownLatch.countDown();
+                        count++;
+                        expiredResults.add((Double) event.getData(0));
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10d});
+        inputHandler.send(new Object[]{2, 30d});
+        inputHandler.send(new Object[]{3, 50d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(Arrays.asList(10.0, 20.0, 40.0), currentResults);
+        AssertJUnit.assertEquals(Collections.singletonList(30.0), expiredResults);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionLowCardinality() throws Exception {
+        logger.info("PercentileFunctionExtension low cardinality test case.");
+
+        final int expectedNoOfEvents = 1200;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentile(temperature, 50.0) as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_INT + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    if (count == 100) {
+                        AssertJUnit.assertEquals(404.0, (Double) event.getData(0), 0.0);
+                    } else if (count == 1200) {
+                        AssertJUnit.assertEquals(1499.5, (Double) event.getData(0), 0.0);
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        // Few distinct values first, kept as run lengths, then enough distinct values to switch to a sorted list.
+        int[] statusCodes = {200, 404, 500};
+        for (int i = 0; i < 100; i++) {
+            inputHandler.send(new Object[]{i, statusCodes[i % 3]});
+        }
+        for (int i = 0; i < 1100; i++) {
+            inputHandler.send(new Object[]{i, 1000 + i});
+        }
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(1200, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testPercentileFunctionExtensionInvalidMode() throws Exception {
+        logger.info("PercentileFunctionExtension invalid mode test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentile(temperature, 50.0, 'unknown') as percentile "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionHdr() throws Exception {
+        logger.info("PercentileFunctionExtension hdr mode length window test case.");
+
+        final int expectedNoOfEvents = 10;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(5) "
+                + "select math:percentile(temperature, 97.0, 'hdr', 1000000L, 3) as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_LONG + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    switch (count) {
+                        case 1:
+                            AssertJUnit.assertEquals(10.0, event.getData(0));
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals(30.0, event.getData(0));
+                            break;
+                        case 3:
+                            AssertJUnit.assertEquals(100.0, event.getData(0));
+                            break;
+                        case 4:
+                            AssertJUnit.assertEquals(100.0, event.getData(0));
+                            break;
+                        case 5:
+                            AssertJUnit.assertEquals(100.0, event.getData(0));
+                            break;
+                        case 6:
+                            AssertJUnit.assertEquals(100.0, event.getData(0));
+                            break;
+                        case 7:
+                            AssertJUnit.assertEquals(100.0, event.getData(0));
+                            break;
+                        case 8:
+                            AssertJUnit.assertEquals(90.0, event.getData(0));
+                            break;
+                        case 9:
+                            AssertJUnit.assertEquals(90.0, event.getData(0));
+                            break;
+                        case 10:
+                            AssertJUnit.assertEquals(90.0, event.getData(0));
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10L});
+        inputHandler.send(new Object[]{2, 30L});
+        inputHandler.send(new Object[]{3, 100L});
+        inputHandler.send(new Object[]{4, 40L});
+        inputHandler.send(new Object[]{5, 80L});
+        inputHandler.send(new Object[]{6, 60L});
+        inputHandler.send(new Object[]{7, 20L});
+        inputHandler.send(new Object[]{8, 90L});
+        inputHandler.send(new Object[]{9, 70L});
+        inputHandler.send(new Object[]{10, 50L});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(10, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testPercentileFunctionExtensionHdrDouble() throws Exception {
+        logger.info("PercentileFunctionExtension hdr mode with double values test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentile(temperature, 50.0, 'hdr') as percentile "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionLongPrecision() throws Exception {
+        logger.info("PercentileFunctionExtension long precision test case.");
+
+        final int expectedNoOfEvents = 3;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentile(temperature, 100.0) as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_LONG + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    switch (count) {
+                        case 1:
+                            AssertJUnit.assertEquals(1700000000001.0, event.getData(0));
+                            break;
+                        case 2:
+                        case 3:
+                            AssertJUnit.assertEquals(1700000000005.0, event.getData(0));
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 1700000000001L});
+        inputHandler.send(new Object[]{2, 1700000000005L});
+        inputHandler.send(new Object[]{3, 1700000000003L});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(3, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    private SiddhiManager createBudgetedSiddhiManager(String maxStateBytes, String policy) {
+        return createBudgetedSiddhiManager(maxStateBytes, "0", policy);
+    }
+
+    private SiddhiManager createBudgetedSiddhiManager(String maxStateBytes, String maxTotalBytes, String policy) {
+        Map<String, String> extensionConfigs = new HashMap<>();
+        extensionConfigs.put("math.percentile.max.state.bytes", maxStateBytes);
+        extensionConfigs.put("math.percentile.max.total.bytes", maxTotalBytes);
+        extensionConfigs.put("math.percentile.memory.budget.policy", policy);
+        SiddhiManager budgetedSiddhiManager = new SiddhiManager();
+        budgetedSiddhiManager.setConfigManager(new InMemoryConfigManager(extensionConfigs, new HashMap<>()));
+        return budgetedSiddhiManager;
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionMemoryBudgetReject() throws Exception {
+        logger.info("PercentileFunctionExtension memory budget reject policy test case.");
+
+        countDownLatch = new CountDownLatch(4);
+        // Budget of 3 values per state
+        siddhiManager = createBudgetedSiddhiManager("24", "reject");
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentile(temperature, 50.0) as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10d});
+        inputHandler.send(new Object[]{2, 30d});
+        inputHandler.send(new Object[]{3, 50d});
+        // exceeds the budget, hence the event fails
+        inputHandler.send(new Object[]{4, 40d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(3, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionMemoryBudgetSample() throws Exception {
+        logger.info("PercentileFunctionExtension memory budget sample policy test case.");
+
+        final int expectedNoOfEvents = 10;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        // Budget of 4 distinct INT values per state, each kept as a run length of 16 bytes
+        siddhiManager = createBudgetedSiddhiManager("64", "sample");
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentile(temperature, 50.0) as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_INT + executionPlan);
+
+        final List<Double> inputValues = Arrays.asList(10.0, 30.0, 50.0, 40.0, 80.0, 60.0, 20.0, 90.0, 70.0, 100.0);
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    // The median of the even sized sample averages two sampled values
+                    AssertJUnit.assertTrue(result >= 10.0 && result <= 100.0);
+                    if (count == 3) {
+                        AssertJUnit.assertTrue(inputValues.contains(result));
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        for (Double value : inputValues) {
+            inputHandler.send(new Object[]{1, value.intValue()});
+        }
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(expectedNoOfEvents, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionMemoryBudgetSampleExpired() throws Exception {
+        logger.info("PercentileFunctionExtension memory budget sample policy with expired values test case.");
+
+        countDownLatch = new CountDownLatch(5);
+        // Budget of 2 values per state and in total
+        siddhiManager = createBudgetedSiddhiManager("16", "16", "sample");
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.time(1 sec) "
+                + "select sensorId, math:percentile(temperature, 50.0) as percentile "
+                + "group by sensorId "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime("@app:playback " + INPUT_STREAM_DOUBLE + executionPlan);
+
+        final List<Double> results = new ArrayList<>();
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    if ((Integer) event.getData(0) == 2) {
+                        results.add((Double) event.getData(1));
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        // The third value exceeds the budget, hence the state of sensor 1 samples its values
+        inputHandler.send(1000, new Object[]{1, 10d});
+        inputHandler.send(1001, new Object[]{1, 30d});
+        inputHandler.send(1002, new Object[]{1, 50d});
+        // The values of sensor 1 have expired and released their memory, so sensor 2 fits in the total budget
+        inputHandler.send(5000, new Object[]{2, 10d});
+        inputHandler.send(5001, new Object[]{2, 30d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(5, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(Arrays.asList(10.0, 20.0), results);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentileFunctionExtensionMemoryBudgetSketch() throws Exception {
+        logger.info("PercentileFunctionExtension memory budget sketch policy test case.");
+
+        final int expectedNoOfEvents = 10;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        // Budget of 4 values per state
+        siddhiManager = createBudgetedSiddhiManager("32", "sketch");
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentile(temperature, 100.0) as percentile "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        final Object[] lastPercentile = new Object[1];
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    lastPercentile[0] = event.getData(0);
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10d});
+        inputHandler.send(new Object[]{2, 30d});
+        inputHandler.send(new Object[]{3, 50d});
+        inputHandler.send(new Object[]{4, 40d});
+        inputHandler.send(new Object[]{5, 80d});
+        inputHandler.send(new Object[]{6, 60d});
+        inputHandler.send(new Object[]{7, 20d});
+        inputHandler.send(new Object[]{8, 100d});
+        inputHandler.send(new Object[]{9, 70d});
+        inputHandler.send(new Object[]{10, 90d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(expectedNoOfEvents, count);
+        AssertJUnit.assertTrue(eventArrived);
+        // The t-digest keeps the exact maximum
+        AssertJUnit.assertEquals(100.0, (Double) lastPercentile[0], 0.0);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testPercentileFunctionExtensionMemoryBudgetInvalidPolicy() throws Exception {
+        logger.info("PercentileFunctionExtension memory budget invalid policy test case.");
+
+        siddhiManager = createBudgetedSiddhiManager("32", "unknown");
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentile(temperature, 50.0) as percentile "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+    }
 }
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.query.output.callback.QueryCallback;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.EventPrinter;
+import io.siddhi.core.util.config.InMemoryConfigManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class PercentilesFunctionExtensionTestCase {
+    private static final String INPUT_STREAM_DOUBLE = "define stream inputStream (sensorId int, temperature double);";
+    private static final String INPUT_STREAM_INT = "define stream inputStream (sensorId int, temperature int);";
+    protected static SiddhiManager siddhiManager;
+    private static Logger logger = LogManager.getLogger(PercentilesFunctionExtensionTestCase.class);
+    private CountDownLatch countDownLatch;
+    private volatile int count;
+    private volatile boolean eventArrived;
+
+    @BeforeMethod
+    public void init() {
+        count = 0;
+        eventArrived = false;
+    }
+
+    @Test
+    public void testPercentilesFunctionExtensionDouble() throws Exception {
+        logger.info("PercentilesFunctionExtension no window test case.");
+
+        final int expectedNoOfEvents = 10;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentiles(temperature, 50.0, 90.0, 100.0) as percentiles "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        final double[][] lastPercentiles = new double[1][];
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    lastPercentiles[0] = (double[]) event.getData(0);
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10d});
+        inputHandler.send(new Object[]{2, 30d});
+        inputHandler.send(new Object[]{3, 50d});
+        inputHandler.send(new Object[]{4, 40d});
+        inputHandler.send(new Object[]{5, 80d});
+        inputHandler.send(new Object[]{6, 60d});
+        inputHandler.send(new Object[]{7, 20d});
+        inputHandler.send(new Object[]{8, 90d});
+        inputHandler.send(new Object[]{9, 70d});
+        inputHandler.send(new Object[]{10, 100d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(10, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertTrue(Arrays.toString(lastPercentiles[0]),
+                Arrays.equals(new double[]{55.0, 95.0, 100.0}, lastPercentiles[0]));
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testPercentilesFunctionExtensionInt() throws Exception {
+        logger.info("PercentilesFunctionExtension length window test case.");
+
+        final int expectedNoOfEvents = 6;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(3) "
+                + "select math:percentiles(temperature, 50.0, 100.0) as percentiles "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_INT + executionPlan);
+
+        final double[][] lastPercentiles = new double[1][];
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    lastPercentiles[0] = (double[]) event.getData(0);
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 100});
+        inputHandler.send(new Object[]{2, 10});
+        inputHandler.send(new Object[]{3, 30});
+        inputHandler.send(new Object[]{4, 20});
+        inputHandler.send(new Object[]{5, 50});
+        inputHandler.send(new Object[]{6, 40});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(6, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertTrue(Arrays.toString(lastPercentiles[0]),
+                Arrays.equals(new double[]{40.0, 50.0}, lastPercentiles[0]));
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testPercentilesFunctionExtensionInvalidPercentile() throws Exception {
+        logger.info("PercentilesFunctionExtension invalid percentile test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentiles(temperature, 50.0, 120.0) as percentiles "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+    }
+
+    private SiddhiManager createBudgetedSiddhiManager(String maxStateBytes, String policy) {
+        Map<String, String> extensionConfigs = new HashMap<>();
+        extensionConfigs.put("math.percentiles.max.state.bytes", maxStateBytes);
+        extensionConfigs.put("math.percentiles.memory.budget.policy", policy);
+        SiddhiManager budgetedSiddhiManager = new SiddhiManager();
+        budgetedSiddhiManager.setConfigManager(new InMemoryConfigManager(extensionConfigs, new HashMap<>()));
+        return budgetedSiddhiManager;
+    }
+
+    @Test
+    public void testPercentilesFunctionExtensionMemoryBudgetReject() throws Exception {
+        logger.info("PercentilesFunctionExtension memory budget reject policy test case.");
+
+        countDownLatch = new CountDownLatch(3);
+        // Budget of 3 values per state
+        siddhiManager = createBudgetedSiddhiManager("24", "reject");
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentiles(temperature, 50.0, 100.0) as percentiles "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        final double[][] lastPercentiles = new double[1][];
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    lastPercentiles[0] = (double[]) event.getData(0);
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10d});
+        inputHandler.send(new Object[]{2, 30d});
+        inputHandler.send(new Object[]{3, 50d});
+        // exceeds the budget, hence the event fails
+        inputHandler.send(new Object[]{4, 40d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(3, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertTrue(Arrays.toString(lastPercentiles[0]),
+                Arrays.equals(new double[]{30.0, 50.0}, lastPercentiles[0]));
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testPercentilesFunctionExtensionMemoryBudgetInvalidPolicy() throws Exception {
+        logger.info("PercentilesFunctionExtension memory budget invalid policy test case.");
+
+        siddhiManager = createBudgetedSiddhiManager("32", "unknown");
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:percentiles(temperature, 50.0) as percentiles "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+    }
+}
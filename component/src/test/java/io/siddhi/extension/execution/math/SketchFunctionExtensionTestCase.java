@@ -0,0 +1,411 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.query.output.callback.QueryCallback;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.EventPrinter;
+import io.siddhi.extension.execution.math.util.KllSketch;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class SketchFunctionExtensionTestCase {
+    private static final String INPUT_STREAM_DOUBLE = "define stream inputStream (sensorId int, temperature double);";
+    private static final String INPUT_STREAM_SKETCH = "define stream sketchStream (nodeId int, sketch object);";
+    private static final String INPUT_STREAM_TIMESTAMP =
+            "define stream inputStream (temperature double, timestamp long);";
+    protected static SiddhiManager siddhiManager;
+    private static Logger logger = LogManager.getLogger(SketchFunctionExtensionTestCase.class);
+    private CountDownLatch countDownLatch;
+    private volatile int count;
+    private volatile boolean eventArrived;
+
+    @BeforeMethod
+    public void init() {
+        count = 0;
+        eventArrived = false;
+    }
+
+    @Test
+    public void testSketchFunctionExtension() throws Exception {
+        logger.info("SketchFunctionExtension with sketchPercentile test case.");
+
+        final int expectedNoOfEvents = 10;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:sketch(temperature) as sketch "
+                + "insert into sketchStream; "
+                + "@info(name = 'query2') from sketchStream "
+                + "select math:sketchPercentile(sketch, 50.0) as median, "
+                + "math:sketchPercentile(sketch, 97.0) as p97 "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        final Object[] lastPercentiles = new Object[2];
+        siddhiAppRuntime.addCallback("query2", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    lastPercentiles[0] = event.getData(0);
+                    lastPercentiles[1] = event.getData(1);
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10d});
+        inputHandler.send(new Object[]{2, 30d});
+        inputHandler.send(new Object[]{3, 50d});
+        inputHandler.send(new Object[]{4, 40d});
+        inputHandler.send(new Object[]{5, 80d});
+        inputHandler.send(new Object[]{6, 60d});
+        inputHandler.send(new Object[]{7, 20d});
+        inputHandler.send(new Object[]{8, 90d});
+        inputHandler.send(new Object[]{9, 70d});
+        inputHandler.send(new Object[]{10, 100d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(10, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(50.0, (Double) lastPercentiles[0], 0.0);
+        AssertJUnit.assertEquals(100.0, (Double) lastPercentiles[1], 0.0);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testSketchMergeFunctionExtension() throws Exception {
+        logger.info("SketchMergeFunctionExtension test case.");
+
+        final int expectedNoOfEvents = 2;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from sketchStream "
+                + "select math:sketchPercentile(math:sketchMerge(sketch), 50.0) as median "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_SKETCH + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    switch (count) {
+                        case 1:
+                            AssertJUnit.assertEquals(30.0, result, 0.0);
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals(50.0, result, 0.0);
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        KllSketch first = new KllSketch(200);
+        KllSketch second = new KllSketch(200);
+        for (int i = 1; i <= 5; i++) {
+            first.add(i * 10d);
+            second.add((i + 5) * 10d);
+        }
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("sketchStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, first.toBytes()});
+        inputHandler.send(new Object[]{2, second.toBytes()});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(2, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testSketchMergeFunctionExtensionDifferentK() throws Exception {
+        logger.info("SketchMergeFunctionExtension different k test case.");
+
+        countDownLatch = new CountDownLatch(2);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from sketchStream "
+                + "select math:sketchPercentile(math:sketchMerge(sketch), 50.0) as median "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_SKETCH + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    switch (count) {
+                        case 1:
+                            AssertJUnit.assertEquals(30.0, result, 0.0);
+                            break;
+                        case 2:
+                            // the sketch of a different k has not been merged
+                            AssertJUnit.assertEquals(50.0, result, 0.0);
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        KllSketch first = new KllSketch(200);
+        KllSketch smaller = new KllSketch(100);
+        KllSketch second = new KllSketch(200);
+        for (int i = 1; i <= 5; i++) {
+            first.add(i * 10d);
+            smaller.add(1000d);
+            second.add((i + 5) * 10d);
+        }
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("sketchStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, first.toBytes()});
+        // differs in k, hence the event fails
+        inputHandler.send(new Object[]{2, smaller.toBytes()});
+        inputHandler.send(new Object[]{3, second.toBytes()});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(2, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testSketchMergeFunctionExtensionInvalidSketch() throws Exception {
+        logger.info("SketchMergeFunctionExtension invalid sketch test case.");
+
+        countDownLatch = new CountDownLatch(2);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from sketchStream "
+                + "select math:sketchPercentile(math:sketchMerge(sketch), 50.0) as median "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_SKETCH + executionPlan);
+
+        final List<Double> results = new ArrayList<>();
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    results.add((Double) event.getData(0));
+                }
+            }
+        });
+
+        KllSketch first = new KllSketch(200);
+        KllSketch second = new KllSketch(200);
+        for (int i = 1; i <= 5; i++) {
+            first.add(i * 10d);
+            second.add((i + 5) * 10d);
+        }
+        byte[] truncated = Arrays.copyOf(second.toBytes(), 20);
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("sketchStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, first.toBytes()});
+        // neither is a sketch, hence the events fail without changing the merged sketch
+        inputHandler.send(new Object[]{2, "not a sketch"});
+        inputHandler.send(new Object[]{3, truncated});
+        inputHandler.send(new Object[]{4, second.toBytes()});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(2, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(Arrays.asList(30.0, 50.0), results);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testCreateSketchFunctionExtension() throws Exception {
+        logger.info("CreateSketchFunctionExtension test case.");
+
+        final int expectedNoOfEvents = 1;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:sketchPercentile(math:createSketch(temperature), 50.0) as median "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    AssertJUnit.assertEquals(42.5, (Double) event.getData(0), 0.0);
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 42.5d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(1, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testSketchMergeFunctionExtensionCreateSketch() throws Exception {
+        logger.info("SketchMergeFunctionExtension merging single value sketches test case.");
+
+        countDownLatch = new CountDownLatch(4);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:sketchPercentile(math:sketchMerge(math:createSketch(temperature)), 50.0) as median "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        final List<Double> results = new ArrayList<>();
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    results.add((Double) event.getData(0));
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10d});
+        inputHandler.send(new Object[]{2, 30d});
+        inputHandler.send(new Object[]{3, 20d});
+        inputHandler.send(new Object[]{4, 40d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(Arrays.asList(10.0, 10.0, 20.0, 20.0), results);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testSketchIncrementalAggregation() throws Exception {
+        logger.info("SketchIncrementalAttributeAggregator test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("define aggregation temperatureAggregation "
+                + "from inputStream "
+                + "select math:sketch(temperature) as temperatureSketch "
+                + "aggregate by timestamp every sec...hour;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_TIMESTAMP + executionPlan);
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        // Two seconds of the same minute, the minute level sketch is merged from the second level sketches.
+        inputHandler.send(new Object[]{10d, 1496289950000L});
+        inputHandler.send(new Object[]{30d, 1496289950100L});
+        inputHandler.send(new Object[]{50d, 1496289950200L});
+        inputHandler.send(new Object[]{40d, 1496289950300L});
+        inputHandler.send(new Object[]{80d, 1496289950400L});
+        inputHandler.send(new Object[]{60d, 1496289951000L});
+        inputHandler.send(new Object[]{20d, 1496289951100L});
+        inputHandler.send(new Object[]{90d, 1496289951200L});
+        inputHandler.send(new Object[]{70d, 1496289951300L});
+        inputHandler.send(new Object[]{100d, 1496289951400L});
+        Thread.sleep(100);
+
+        Event[] events = siddhiAppRuntime.query("from temperatureAggregation "
+                + "within 1496200000000L, 1596434876000L per \"minutes\" "
+                + "select math:sketchPercentile(temperatureSketch, 50.0) as median, "
+                + "math:sketchPercentile(temperatureSketch, 100.0) as maximum;");
+        EventPrinter.print(events);
+        AssertJUnit.assertNotNull(events);
+        AssertJUnit.assertEquals(1, events.length);
+        AssertJUnit.assertEquals(50.0, (Double) events[0].getData(0), 0.0);
+        AssertJUnit.assertEquals(100.0, (Double) events[0].getData(1), 0.0);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testSketchFunctionExtensionInvalidK() throws Exception {
+        logger.info("SketchFunctionExtension invalid k test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:sketch(temperature, 2) as sketch "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.query.output.callback.QueryCallback;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.EventPrinter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class StdDevFunctionExtensionTestCase {
+    private static final String INPUT_STREAM_DOUBLE = "define stream inputStream (sensorId int, temperature double);";
+    private static final String INPUT_STREAM_LONG = "define stream inputStream (sensorId int, temperature long);";
+    private static final String INPUT_STREAM_STRING = "define stream inputStream (sensorId int, temperature string);";
+    protected static SiddhiManager siddhiManager;
+    private static Logger logger = LogManager.getLogger(StdDevFunctionExtensionTestCase.class);
+    private CountDownLatch countDownLatch;
+    private volatile int count;
+    private volatile boolean eventArrived;
+
+    @BeforeMethod
+    public void init() {
+        count = 0;
+        eventArrived = false;
+    }
+
+    @Test
+    public void testStdDevFunctionExtensionDouble() throws Exception {
+        logger.info("StdDevFunctionExtension no window test case.");
+
+        final int expectedNoOfEvents = 8;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:stdDev(temperature) as stdDev "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    if (count == 1) {
+                        AssertJUnit.assertEquals(0.0, result, 0.0);
+                    } else if (count == 8) {
+                        AssertJUnit.assertEquals(2.0, result, 1e-12);
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 2d});
+        inputHandler.send(new Object[]{2, 4d});
+        inputHandler.send(new Object[]{3, 4d});
+        inputHandler.send(new Object[]{4, 4d});
+        inputHandler.send(new Object[]{5, 5d});
+        inputHandler.send(new Object[]{6, 5d});
+        inputHandler.send(new Object[]{7, 7d});
+        inputHandler.send(new Object[]{8, 9d});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(8, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testStdDevFunctionExtensionLong() throws Exception {
+        logger.info("StdDevFunctionExtension length window test case.");
+
+        final int expectedNoOfEvents = 6;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(3) "
+                + "select math:stdDev(temperature) as stdDev "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_LONG + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    switch (count) {
+                        case 1:
+                            AssertJUnit.assertEquals(0.0, result, 0.0);
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals(10.0, result, 1e-9);
+                            break;
+                        case 3:
+                            AssertJUnit.assertEquals(Math.sqrt(200.0 / 3), result, 1e-9);
+                            break;
+                        case 4:
+                            AssertJUnit.assertEquals(Math.sqrt(1400.0 / 3), result, 1e-9);
+                            break;
+                        case 5:
+                            AssertJUnit.assertEquals(Math.sqrt(1400.0 / 3), result, 1e-9);
+                            break;
+                        case 6:
+                            AssertJUnit.assertEquals(Math.sqrt(200.0 / 3), result, 1e-9);
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10L});
+        inputHandler.send(new Object[]{2, 30L});
+        inputHandler.send(new Object[]{3, 20L});
+        inputHandler.send(new Object[]{4, 70L});
+        inputHandler.send(new Object[]{5, 60L});
+        inputHandler.send(new Object[]{6, 50L});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(6, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testStdDevFunctionExtensionLargeValues() throws Exception {
+        logger.info("StdDevFunctionExtension large values test case.");
+
+        final int expectedNoOfEvents = 6;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(4) "
+                + "select math:stdDev(temperature) as stdDev "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    if (count == 4) {
+                        AssertJUnit.assertEquals(Math.sqrt(22.5), result, 1e-6);
+                    } else if (count == 6) {
+                        AssertJUnit.assertEquals(Math.sqrt(22.5), result, 1e-6);
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 1e9 + 4});
+        inputHandler.send(new Object[]{2, 1e9 + 7});
+        inputHandler.send(new Object[]{3, 1e9 + 13});
+        inputHandler.send(new Object[]{4, 1e9 + 16});
+        inputHandler.send(new Object[]{5, 1e9 + 4});
+        inputHandler.send(new Object[]{6, 1e9 + 7});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(6, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testStdDevFunctionExtensionConstantWindow() throws Exception {
+        logger.info("StdDevFunctionExtension window of equal values test case.");
+
+        final int expectedNoOfEvents = 8;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(3) "
+                + "select math:stdDev(temperature) as stdDev "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        final Double[] lastResult = new Double[1];
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    lastResult[0] = (Double) event.getData(0);
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 1.1});
+        inputHandler.send(new Object[]{2, 2.3});
+        inputHandler.send(new Object[]{3, 5.7});
+        inputHandler.send(new Object[]{4, 0.3});
+        inputHandler.send(new Object[]{5, 9.9});
+        inputHandler.send(new Object[]{6, 3.3});
+        inputHandler.send(new Object[]{7, 3.3});
+        inputHandler.send(new Object[]{8, 3.3});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(8, count);
+        AssertJUnit.assertTrue(eventArrived);
+        // the removed values leave rounding errors, which are not reported for a window of equal values
+        AssertJUnit.assertEquals(0.0, lastResult[0], 0.0);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testStdDevFunctionExtensionInvalidType() throws Exception {
+        logger.info("StdDevFunctionExtension invalid type test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:stdDev(temperature) as stdDev "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_STRING + executionPlan);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c)  2026, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.extension.execution.math;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.query.output.callback.QueryCallback;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.EventPrinter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+public class WeightedPercentileFunctionExtensionTestCase {
+    private static final String INPUT_STREAM_DOUBLE =
+            "define stream inputStream (sensorId int, temperature double, count long);";
+    private static final String INPUT_STREAM_INT =
+            "define stream inputStream (sensorId int, temperature int, count int);";
+    protected static SiddhiManager siddhiManager;
+    private static Logger logger = LogManager.getLogger(WeightedPercentileFunctionExtensionTestCase.class);
+    private CountDownLatch countDownLatch;
+    private volatile int count;
+    private volatile boolean eventArrived;
+
+    @BeforeMethod
+    public void init() {
+        count = 0;
+        eventArrived = false;
+    }
+
+    @Test
+    public void testWeightedPercentileFunctionExtensionDouble() throws Exception {
+        logger.info("WeightedPercentileFunctionExtension no window test case.");
+
+        final int expectedNoOfEvents = 4;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:weightedPercentile(temperature, count, 50.0) as median, "
+                + "math:weightedPercentile(temperature, count, 90.0) as p90 "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+
+        final Object[] lastPercentiles = new Object[2];
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    lastPercentiles[0] = event.getData(0);
+                    lastPercentiles[1] = event.getData(1);
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        // Same as the percentiles of 10, 20, 20, 30, 30, 30, 40, 40, 40, 40
+        inputHandler.send(new Object[]{1, 10d, 1L});
+        inputHandler.send(new Object[]{2, 20d, 2L});
+        inputHandler.send(new Object[]{3, 30d, 3L});
+        inputHandler.send(new Object[]{4, 40d, 4L});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertTrue(eventArrived);
+        AssertJUnit.assertEquals(30.0, (Double) lastPercentiles[0], 0.0);
+        AssertJUnit.assertEquals(40.0, (Double) lastPercentiles[1], 0.0);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void testWeightedPercentileFunctionExtensionInt() throws Exception {
+        logger.info("WeightedPercentileFunctionExtension length window test case.");
+
+        final int expectedNoOfEvents = 3;
+        countDownLatch = new CountDownLatch(expectedNoOfEvents);
+        siddhiManager = new SiddhiManager();
+
+        String executionPlan = ("@info(name = 'query1') from inputStream#window.length(2) "
+                + "select math:weightedPercentile(temperature, count, 50.0) as median "
+                + "insert into outputStream;");
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager
+                .createSiddhiAppRuntime(INPUT_STREAM_INT + executionPlan);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timeStamp, inEvents, removeEvents);
+                eventArrived = true;
+                for (Event event : inEvents) {
+                    countDownLatch.countDown();
+                    count++;
+                    Double result = (Double) event.getData(0);
+                    switch (count) {
+                        case 1:
+                            AssertJUnit.assertEquals(10.0, result, 0.0);
+                            break;
+                        case 2:
+                            AssertJUnit.assertEquals(10.0, result, 0.0);
+                            break;
+                        case 3:
+                            AssertJUnit.assertEquals(25.0, result, 0.0);
+                            break;
+                        default:
+                            AssertJUnit.fail();
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{1, 10, 3});
+        inputHandler.send(new Object[]{2, 20, 1});
+        inputHandler.send(new Object[]{3, 30, 1});
+
+        countDownLatch.await(1000, MILLISECONDS);
+        AssertJUnit.assertEquals(3, count);
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void testWeightedPercentileFunctionExtensionInvalidPercentile() throws Exception {
+        logger.info("WeightedPercentileFunctionExtension invalid percentile test case.");
+
+        siddhiManager = new SiddhiManager();
+        String executionPlan = ("@info(name = 'query1') from inputStream "
+                + "select math:weightedPercentile(temperature, count, 150.0) as percentile "
+                + "insert into outputStream;");
+        siddhiManager.createSiddhiAppRuntime(INPUT_STREAM_DOUBLE + executionPlan);
+    }
+}